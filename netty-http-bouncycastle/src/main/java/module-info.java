@@ -3,8 +3,10 @@ import org.xbib.netty.http.server.api.ServerCertificateProvider;
 module org.xbib.netty.http.bouncycastle {
     exports org.xbib.netty.http.bouncycastle;
     requires org.xbib.netty.http.server.api;
+    requires io.netty.common;
     requires org.bouncycastle.pkix;
     requires org.bouncycastle.provider;
+    requires java.logging;
     provides ServerCertificateProvider with
             org.xbib.netty.http.bouncycastle.BouncyCastleSelfSignedCertificateProvider;
 }
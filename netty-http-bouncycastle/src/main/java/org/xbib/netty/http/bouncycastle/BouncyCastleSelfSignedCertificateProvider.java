@@ -4,26 +4,80 @@ import org.bouncycastle.operator.OperatorCreationException;
 import org.xbib.netty.http.server.api.ServerCertificateProvider;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
 import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Provides self-signed certificates. The key algorithm is set by the system property
+ * {@code xbib.netty.http.selfcert.algorithm}, one of {@code EC} (the default), {@code ED25519} or {@code RSA}.
+ * If the system property {@code xbib.netty.http.selfcert.cachedir} names a directory, generated certificates
+ * are kept there and reused by later starts, as long as they are valid.
+ */
 public class BouncyCastleSelfSignedCertificateProvider implements ServerCertificateProvider {
 
+    private static final Logger logger = Logger.getLogger(BouncyCastleSelfSignedCertificateProvider.class.getName());
+
     private final SelfSignedCertificate selfSignedCertificate;
 
+    private final SelfSignedCertificate.KeyAlgorithm keyAlgorithm;
+
+    private final Path cacheDirectory;
+
     public BouncyCastleSelfSignedCertificateProvider() {
+        this(SelfSignedCertificate.KeyAlgorithm.valueOf(System.getProperty("xbib.netty.http.selfcert.algorithm", "EC")
+                        .toUpperCase(Locale.ROOT)),
+                System.getProperty("xbib.netty.http.selfcert.cachedir") != null ?
+                        Paths.get(System.getProperty("xbib.netty.http.selfcert.cachedir")) : null);
+    }
+
+    /**
+     * Create a provider of self-signed certificates.
+     *
+     * @param keyAlgorithm the key algorithm
+     * @param cacheDirectory the directory for keeping generated certificates, or null for no caching
+     */
+    public BouncyCastleSelfSignedCertificateProvider(SelfSignedCertificate.KeyAlgorithm keyAlgorithm,
+                                                     Path cacheDirectory) {
         this.selfSignedCertificate = new SelfSignedCertificate();
+        this.keyAlgorithm = keyAlgorithm;
+        this.cacheDirectory = cacheDirectory;
     }
 
     @Override
     public void prepare(String fqdn) {
+        prepare(Collections.singletonList(fqdn));
+    }
+
+    @Override
+    public void prepare(List<String> fqdns) {
+        Path path = cacheDirectory != null ? cacheDirectory.resolve(cacheFileName(fqdns)) : null;
+        if (path != null && read(path, fqdns)) {
+            return;
+        }
         try {
-            selfSignedCertificate.generate(fqdn,  new SecureRandom(), 2048);
-        } catch (IOException | NoSuchProviderException | NoSuchAlgorithmException | OperatorCreationException e) {
+            selfSignedCertificate.generate(fqdns, new SecureRandom(), keyAlgorithm);
+        } catch (IOException | GeneralSecurityException | OperatorCreationException e) {
             throw new UncheckedIOException(new IOException(e));
         }
+        if (path != null) {
+            write(path);
+        }
     }
 
     @Override
@@ -40,4 +94,58 @@ public class BouncyCastleSelfSignedCertificateProvider implements ServerCertific
     public String getKeyPassword() {
         return null;
     }
+
+    private boolean read(Path path, List<String> fqdns) {
+        if (!Files.isReadable(path)) {
+            return false;
+        }
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            selfSignedCertificate.importPEM(inputStream);
+            // the cached certificate must be for exactly these names, never serve the key of other names
+            if (selfSignedCertificate.isValidOn(new Date()) &&
+                    SelfSignedCertificate.notAfter().equals(selfSignedCertificate.getNotAfter()) &&
+                    selfSignedCertificate.hasSubjectAlternativeNames(fqdns)) {
+                logger.log(Level.FINE, () -> "using cached self-signed certificate " + path);
+                return true;
+            }
+            logger.log(Level.FINE, () -> "cached self-signed certificate " + path + " does not match, replacing it");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "unable to read cached self-signed certificate " + path, e);
+        }
+        return false;
+    }
+
+    private void write(Path path) {
+        try {
+            Files.createDirectories(cacheDirectory);
+            // a temporary file is only readable by the owner, and the move replaces the cached certificate at once
+            Path tmp = Files.createTempFile(cacheDirectory, ".selfcert", ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(tmp)) {
+                selfSignedCertificate.exportPEM(outputStream);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "unable to cache self-signed certificate " + path, e);
+        }
+    }
+
+    /**
+     * The cache file name is the SHA-256 digest of the names, the key algorithm and the validity of the
+     * certificate, prefixed by the first name for readability.
+     */
+    private String cacheFileName(List<String> fqdns) {
+        String key = String.join("\n", fqdns) + "\n" + keyAlgorithm.name() + "\n" +
+                SelfSignedCertificate.notAfter().getTime();
+        String prefix = fqdns.isEmpty() ? "selfcert" : fqdns.get(0).replaceAll("[^A-Za-z0-9.-]", "_");
+        if (prefix.length() > 64) {
+            prefix = prefix.substring(0, 64);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return prefix + "-" + HexFormat.of().formatHex(digest) + ".pem";
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 }
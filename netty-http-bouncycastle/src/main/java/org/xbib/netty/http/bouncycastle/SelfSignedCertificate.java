@@ -1,33 +1,49 @@
 package org.xbib.netty.http.bouncycastle;
 
+import io.netty.util.NetUtil;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.asn1.x509.Certificate;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.X509v3CertificateBuilder;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.util.PrivateKeyFactory;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
 import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.DefaultDigestAlgorithmIdentifierFinder;
 import org.bouncycastle.operator.DefaultSignatureAlgorithmIdentifierFinder;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.operator.bc.BcRSAContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.bouncycastle.util.encoders.Base64;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.PrivateKey;
 import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.NamedParameterSpec;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Generates a temporary self-signed certificate for testing purposes.
@@ -57,7 +73,7 @@ public final class SelfSignedCertificate {
     private PrivateKey key;
 
     /**
-     * Creates a new instance.
+     * Creates a new instance with an RSA key.
      *
      * @param fqdn a fully qualified domain name
      * @param random the {@link SecureRandom} to use
@@ -69,23 +85,161 @@ public final class SelfSignedCertificate {
      */
     public void generate(String fqdn, SecureRandom random, int bits)
             throws IOException, NoSuchProviderException, NoSuchAlgorithmException, OperatorCreationException {
+        KeyPair keypair = generateRSAKeyPair(random, bits);
+        generate(Collections.singletonList(fqdn), keypair, newRSAContentSigner(keypair.getPrivate()));
+    }
+
+    /**
+     * Creates a new instance for one or more names. The first name is the subject of the certificate,
+     * all names are subject alternative names.
+     *
+     * @param names the fully qualified domain names or IP addresses
+     * @param random the {@link SecureRandom} to use
+     * @param keyAlgorithm the key algorithm
+     * @throws GeneralSecurityException if the key algorithm does not exist
+     * @throws OperatorCreationException if the signer can not be created
+     * @throws IOException if generation fails
+     */
+    public void generate(List<String> names, SecureRandom random, KeyAlgorithm keyAlgorithm)
+            throws IOException, GeneralSecurityException, OperatorCreationException {
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("no names given");
+        }
+        KeyPair keypair;
+        ContentSigner contentSigner;
+        switch (keyAlgorithm) {
+            case EC: {
+                KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
+                keyGen.initialize(new ECGenParameterSpec("secp256r1"), random);
+                keypair = keyGen.generateKeyPair();
+                contentSigner = new JcaContentSignerBuilder("SHA256withECDSA").build(keypair.getPrivate());
+                break;
+            }
+            case ED25519: {
+                KeyPairGenerator keyGen = KeyPairGenerator.getInstance("Ed25519");
+                keyGen.initialize(NamedParameterSpec.ED25519, random);
+                keypair = keyGen.generateKeyPair();
+                contentSigner = new JcaContentSignerBuilder("Ed25519").build(keypair.getPrivate());
+                break;
+            }
+            default: {
+                keypair = generateRSAKeyPair(random, 2048);
+                contentSigner = newRSAContentSigner(keypair.getPrivate());
+                break;
+            }
+        }
+        generate(names, keypair, contentSigner);
+    }
+
+    private static KeyPair generateRSAKeyPair(SecureRandom random, int bits)
+            throws NoSuchProviderException, NoSuchAlgorithmException {
         KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA", "BC");
         keyGen.initialize(bits, random);
-        KeyPair keypair = keyGen.generateKeyPair();
+        return keyGen.generateKeyPair();
+    }
+
+    private static ContentSigner newRSAContentSigner(PrivateKey privateKey)
+            throws IOException, OperatorCreationException {
+        AlgorithmIdentifier sigAlgId =
+                new DefaultSignatureAlgorithmIdentifierFinder().find("SHA256WithRSAEncryption");
+        AlgorithmIdentifier digestAlgId =
+                new DefaultDigestAlgorithmIdentifierFinder().find(sigAlgId);
+        AsymmetricKeyParameter caPrivateKeyParameters = PrivateKeyFactory.createKey(privateKey.getEncoded());
+        return new BcRSAContentSignerBuilder(sigAlgId, digestAlgId).build(caPrivateKeyParameters);
+    }
+
+    private void generate(List<String> names, KeyPair keypair, ContentSigner contentSigner) throws IOException {
         this.key = keypair.getPrivate();
-        X500Name name = new X500Name("CN=" + fqdn);
+        X500Name name = new X500Name("CN=" + names.get(0));
         SubjectPublicKeyInfo subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(keypair.getPublic().getEncoded());
         X509v3CertificateBuilder certificateBuilder =
                 new X509v3CertificateBuilder(name, BigInteger.valueOf(System.currentTimeMillis()),
                         DEFAULT_NOT_BEFORE, DEFAULT_NOT_AFTER, name, subjectPublicKeyInfo);
-        AlgorithmIdentifier sigAlgId =
-                new DefaultSignatureAlgorithmIdentifierFinder().find("SHA256WithRSAEncryption");
-        AlgorithmIdentifier digestAlgId =
-                new DefaultDigestAlgorithmIdentifierFinder().find(sigAlgId);
-        AsymmetricKeyParameter caPrivateKeyParameters = PrivateKeyFactory.createKey(key.getEncoded());
-        ContentSigner contentSigner = new BcRSAContentSignerBuilder(sigAlgId, digestAlgId)
-                .build(caPrivateKeyParameters);
+        certificateBuilder.addExtension(Extension.subjectAlternativeName, false, generalNames(names));
         this.cert = certificateBuilder.build(contentSigner).toASN1Structure();
+        encode();
+    }
+
+    /**
+     * Read a private key and a certificate in PEM format, as written by {@link #exportPEM(OutputStream)}.
+     *
+     * @param inputStream the input stream
+     * @throws IOException if the input stream does not contain a private key and a certificate
+     */
+    public void importPEM(InputStream inputStream) throws IOException {
+        PrivateKey privateKey = null;
+        Certificate certificate = null;
+        try (PEMParser pemParser = new PEMParser(new InputStreamReader(inputStream, StandardCharsets.US_ASCII))) {
+            Object object;
+            while ((object = pemParser.readObject()) != null) {
+                if (object instanceof PrivateKeyInfo) {
+                    privateKey = new JcaPEMKeyConverter().getPrivateKey((PrivateKeyInfo) object);
+                } else if (object instanceof X509CertificateHolder) {
+                    certificate = ((X509CertificateHolder) object).toASN1Structure();
+                }
+            }
+        }
+        if (privateKey == null || certificate == null) {
+            throw new IOException("no private key and certificate found");
+        }
+        this.key = privateKey;
+        this.cert = certificate;
+        encode();
+    }
+
+    /**
+     * Check if the certificate is valid at a date.
+     *
+     * @param date the date
+     * @return true if the certificate is valid
+     */
+    public boolean isValidOn(Date date) {
+        return cert != null && new X509CertificateHolder(cert).isValidOn(date);
+    }
+
+    /**
+     * Returns the end of the validity of generated certificates.
+     *
+     * @return the date after which generated certificates are no longer valid
+     */
+    public static Date notAfter() {
+        return new Date(DEFAULT_NOT_AFTER.getTime());
+    }
+
+    /**
+     * Returns the end of the validity of the certificate.
+     *
+     * @return the date after which the certificate is no longer valid, or null if there is no certificate
+     */
+    public Date getNotAfter() {
+        return cert != null ? new X509CertificateHolder(cert).getNotAfter() : null;
+    }
+
+    /**
+     * Check if the subject alternative names of the certificate are exactly the given names.
+     *
+     * @param names the fully qualified domain names or IP addresses
+     * @return true if the certificate has exactly these subject alternative names, in this order
+     */
+    public boolean hasSubjectAlternativeNames(List<String> names) {
+        if (cert == null) {
+            return false;
+        }
+        GeneralNames generalNames = GeneralNames.fromExtensions(new X509CertificateHolder(cert).getExtensions(),
+                Extension.subjectAlternativeName);
+        return generalNames != null && Arrays.equals(generalNames.getNames(), generalNames(names).getNames());
+    }
+
+    private static GeneralNames generalNames(List<String> names) {
+        GeneralName[] generalNames = new GeneralName[names.size()];
+        for (int i = 0; i < generalNames.length; i++) {
+            String s = names.get(i);
+            generalNames[i] = new GeneralName(isAddress(s) ? GeneralName.iPAddress : GeneralName.dNSName, s);
+        }
+        return new GeneralNames(generalNames);
+    }
+
+    private void encode() throws IOException {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         outputStream.write(BEGIN_KEY.getBytes(StandardCharsets.US_ASCII));
         outputStream.write('\n');
@@ -102,6 +256,10 @@ public final class SelfSignedCertificate {
         this.certBytes = outputStream.toByteArray();
     }
 
+    private static boolean isAddress(String name) {
+        return NetUtil.isValidIpV4Address(name) || NetUtil.isValidIpV6Address(name);
+    }
+
     /**
      * Returns the generated X.509 certificate file in PEM format.
      * @return input stream of certificate
@@ -111,7 +269,7 @@ public final class SelfSignedCertificate {
     }
 
     /**
-     * Returns the generated RSA private key file in PEM format.
+     * Returns the generated private key file in PEM format.
      * @return input stream of private key
      */
     public InputStream privateKey() {
@@ -119,7 +277,7 @@ public final class SelfSignedCertificate {
     }
 
     /**
-     * Returns the generated RSA private key.
+     * Returns the generated private key.
      * @return private key
      */
     public PrivateKey key() {
@@ -131,7 +289,7 @@ public final class SelfSignedCertificate {
         outputStream.write(certBytes);
     }
 
-    private void writeEncoded(byte[] bytes, OutputStream outputStream) throws IOException {
+    private static void writeEncoded(byte[] bytes, OutputStream outputStream) throws IOException {
         byte[] buf = new byte[64];
         byte[] base64 = Base64.encode(bytes);
         for (int i = 0; i < base64.length; i += buf.length) {
@@ -147,4 +305,12 @@ public final class SelfSignedCertificate {
             outputStream.write('\n');
         }
     }
+
+    /**
+     * The key algorithms of self-signed certificates. EC keys on the P-256 curve and Ed25519 keys are
+     * generated in a few milliseconds, RSA keys may take seconds.
+     */
+    public enum KeyAlgorithm {
+        RSA, EC, ED25519
+    }
 }
@@ -1,12 +1,23 @@
 package org.xbib.netty.http.bouncycastle;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.SecureRandom;
 import java.security.Security;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
 import java.util.logging.Logger;
 
 class SelfSignedCertificateTest {
@@ -22,4 +33,100 @@ class SelfSignedCertificateTest {
         selfSignedCertificate.exportPEM(outputStream);
         logger.info(new String(outputStream.toByteArray(), StandardCharsets.US_ASCII));
     }
+
+    @Test
+    void testSubjectAlternativeNames() throws Exception {
+        for (SelfSignedCertificate.KeyAlgorithm keyAlgorithm :
+                List.of(SelfSignedCertificate.KeyAlgorithm.EC, SelfSignedCertificate.KeyAlgorithm.ED25519)) {
+            SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate();
+            selfSignedCertificate.generate(List.of("localhost", "a.localhost", "127.0.0.1"),
+                    new SecureRandom(), keyAlgorithm);
+            X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(selfSignedCertificate.certificate());
+            assertEquals(3, certificate.getSubjectAlternativeNames().size());
+            assertTrue(selfSignedCertificate.isValidOn(new Date()));
+            // import what was exported
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            selfSignedCertificate.exportPEM(outputStream);
+            SelfSignedCertificate imported = new SelfSignedCertificate();
+            imported.importPEM(new ByteArrayInputStream(outputStream.toByteArray()));
+            assertArrayEquals(selfSignedCertificate.key().getEncoded(), imported.key().getEncoded());
+            assertArrayEquals(selfSignedCertificate.certificate().readAllBytes(), imported.certificate().readAllBytes());
+        }
+    }
+
+    @Test
+    void testAddressNames() throws Exception {
+        SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate();
+        selfSignedCertificate.generate(List.of("localhost", "127.0.0.1", "::1", "1.2.3"),
+                new SecureRandom(), SelfSignedCertificate.KeyAlgorithm.EC);
+        X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(selfSignedCertificate.certificate());
+        // 2 is a DNS name, 7 is an IP address
+        List<Integer> types = certificate.getSubjectAlternativeNames().stream()
+                .map(name -> (Integer) name.get(0))
+                .toList();
+        assertEquals(List.of(2, 7, 7, 2), types);
+    }
+
+    @Test
+    void testCachedCertificate() throws Exception {
+        Path cacheDirectory = Files.createTempDirectory("selfcert");
+        try {
+            BouncyCastleSelfSignedCertificateProvider provider =
+                    new BouncyCastleSelfSignedCertificateProvider(SelfSignedCertificate.KeyAlgorithm.EC, cacheDirectory);
+            provider.prepare("localhost");
+            byte[] certificate = provider.getCertificateChain().readAllBytes();
+            BouncyCastleSelfSignedCertificateProvider nextProvider =
+                    new BouncyCastleSelfSignedCertificateProvider(SelfSignedCertificate.KeyAlgorithm.EC, cacheDirectory);
+            nextProvider.prepare("localhost");
+            assertArrayEquals(certificate, nextProvider.getCertificateChain().readAllBytes());
+            assertArrayEquals(provider.getPrivateKey().readAllBytes(), nextProvider.getPrivateKey().readAllBytes());
+        } finally {
+            try (var paths = Files.list(cacheDirectory)) {
+                for (Path path : paths.toList()) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(cacheDirectory);
+        }
+    }
+
+    @Test
+    void testCachedCertificateOfOtherNamesIsNotServed() throws Exception {
+        Path cacheDirectory = Files.createTempDirectory("selfcert");
+        try {
+            BouncyCastleSelfSignedCertificateProvider provider =
+                    new BouncyCastleSelfSignedCertificateProvider(SelfSignedCertificate.KeyAlgorithm.EC, cacheDirectory);
+            provider.prepare("a.localhost");
+            Path a = single(cacheDirectory);
+            Path copy = Files.copy(a, cacheDirectory.resolve("a.copy"));
+            Files.delete(a);
+            provider.prepare("b.localhost");
+            Path b = single(cacheDirectory);
+            // a cache file which holds the certificate of other names, as if the file names collided
+            Files.move(copy, b, StandardCopyOption.REPLACE_EXISTING);
+            BouncyCastleSelfSignedCertificateProvider nextProvider =
+                    new BouncyCastleSelfSignedCertificateProvider(SelfSignedCertificate.KeyAlgorithm.EC, cacheDirectory);
+            nextProvider.prepare("b.localhost");
+            X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(nextProvider.getCertificateChain());
+            assertEquals(List.of(List.of(2, "b.localhost")), List.copyOf(certificate.getSubjectAlternativeNames()));
+        } finally {
+            try (var paths = Files.list(cacheDirectory)) {
+                for (Path path : paths.toList()) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(cacheDirectory);
+        }
+    }
+
+    private static Path single(Path directory) throws Exception {
+        try (var paths = Files.list(directory)) {
+            List<Path> list = paths.filter(path -> path.toString().endsWith(".pem")).toList();
+            assertEquals(1, list.size());
+            return list.get(0);
+        }
+    }
 }
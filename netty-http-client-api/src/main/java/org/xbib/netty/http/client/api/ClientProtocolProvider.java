@@ -1,12 +1,35 @@
 package org.xbib.netty.http.client.api;
 
+import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 
-public interface ClientProtocolProvider<C extends HttpChannelInitializer, T extends ClientTransport> {
+/**
+ * A protocol of the client. The provider creates the channel initializers and the transports of the client.
+ *
+ * @param <S> the client
+ * @param <F> the SSL handler factory of the client
+ */
+public interface ClientProtocolProvider<S, F> {
 
     boolean supportsMajorVersion(int majorVersion);
 
-    Class<C> initializerClass();
+    /**
+     * Create the channel initializer of a connection.
+     *
+     * @param client the client
+     * @param httpAddress the address to connect to
+     * @param sslHandlerFactory the SSL handler factory, or null if the address is not secure
+     * @param helper the channel initializer of another protocol, for protocol upgrades, or null
+     * @return the channel initializer
+     */
+    HttpChannelInitializer createInitializer(S client, HttpAddress httpAddress, F sslHandlerFactory, HttpChannelInitializer helper);
 
-    Class<T> transportClass();
+    /**
+     * Create a transport.
+     *
+     * @param client the client
+     * @param httpAddress the address to connect to, or null if the transport uses the connection pool
+     * @return the transport
+     */
+    ClientTransport createTransport(S client, HttpAddress httpAddress);
 }
@@ -3,7 +3,6 @@ import org.xbib.netty.http.client.Http2;
 
 module org.xbib.netty.http.client {
     uses org.xbib.netty.http.client.api.ClientProtocolProvider;
-    uses org.xbib.netty.http.common.TransportProvider;
     exports org.xbib.netty.http.client;
     exports org.xbib.netty.http.client.cookie;
     exports org.xbib.netty.http.client.handler.http;
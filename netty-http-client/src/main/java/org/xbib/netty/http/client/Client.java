@@ -5,6 +5,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.pool.ChannelPoolHandler;
@@ -26,11 +27,17 @@ import org.xbib.netty.http.client.api.ClientProtocolProvider;
 import org.xbib.netty.http.client.api.Request;
 import org.xbib.netty.http.client.api.ClientTransport;
 import org.xbib.netty.http.client.pool.BoundedChannelPool;
+import org.xbib.netty.http.common.AffinityThreadFactory;
+import org.xbib.netty.http.common.CpuSet;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 import org.xbib.netty.http.common.HttpResponse;
 import org.xbib.netty.http.common.NetworkUtils;
 import org.xbib.netty.http.common.TransportProvider;
+import org.xbib.netty.http.common.TransportProviders;
+import org.xbib.netty.http.common.TlsRecordSizing;
+import org.xbib.netty.http.common.TransportTuning;
+import org.xbib.netty.http.common.TuningProfile;
 import org.xbib.netty.http.common.security.SecurityUtil;
 import javax.net.ssl.SNIHostName;
 import javax.net.ssl.SNIServerName;
@@ -40,17 +47,18 @@ import javax.net.ssl.SSLParameters;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.InvocationTargetException;
 import java.net.InetSocketAddress;
 import java.security.KeyStoreException;
 import java.security.Provider;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.ServiceLoader;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
@@ -70,12 +78,7 @@ public final class Client implements AutoCloseable {
             NetworkUtils.extendSystemProperties();
         }
         // change Netty defaults to safer ones, but still allow override from arg line
-        if (System.getProperty("io.netty.noUnsafe") == null) {
-            System.setProperty("io.netty.noUnsafe", Boolean.toString(true));
-        }
-        if (System.getProperty("io.netty.noKeySetOptimization") == null) {
-            System.setProperty("io.netty.noKeySetOptimization", Boolean.toString(true));
-        }
+        TuningProfile.configureSystemProperties();
     }
 
     private final AtomicLong requestCounter;
@@ -88,9 +91,15 @@ public final class Client implements AutoCloseable {
 
     private final Bootstrap bootstrap;
 
+    private final Bootstrap domainSocketBootstrap;
+
+    private final TransportProvider domainSocketTransportProvider;
+
     private final Queue<ClientTransport> transports;
 
-    private final List<ClientProtocolProvider<HttpChannelInitializer, ClientTransport>> protocolProviders;
+    private final List<ClientProtocolProvider<Client, SslHandlerFactory>> protocolProviders;
+
+    private final Map<Integer, SslContext> sslContexts;
 
     private final AtomicBoolean closed;
 
@@ -116,14 +125,9 @@ public final class Client implements AutoCloseable {
         this.responseCounter = new AtomicLong();
         this.closed = new AtomicBoolean(false);
         this.clientConfig = clientConfig;
-        this.protocolProviders = new ArrayList<>();
-        for (ClientProtocolProvider<HttpChannelInitializer, ClientTransport> provider : ServiceLoader.load(ClientProtocolProvider.class)) {
-            protocolProviders.add(provider);
-            if (logger.isLoggable(Level.FINEST)) {
-                logger.log(Level.FINEST, "protocol provider: " + provider.transportClass());
-            }
-        }
-        initializeTrustManagerFactory(clientConfig);
+        this.protocolProviders = ProtocolProviders.protocolProviders;
+        this.sslContexts = new ConcurrentHashMap<>();
+        TuningProfile tuningProfile = clientConfig.getTuningProfile();
         this.byteBufAllocator = byteBufAllocator != null ? byteBufAllocator : ByteBufAllocator.DEFAULT;
         if (eventLoopGroup != null) {
             this.eventLoopGroup = eventLoopGroup;
@@ -131,19 +135,28 @@ public final class Client implements AutoCloseable {
         if (socketChannelClass != null) {
             this.socketChannelClass = socketChannelClass;
         }
-        ServiceLoader<TransportProvider> transportProviders = ServiceLoader.load(TransportProvider.class);
-        for (TransportProvider transportProvider : transportProviders) {
-            if (this.eventLoopGroup == null &&
-                    (clientConfig.getTransportProviderName() == null || clientConfig.getTransportProviderName().equals(transportProvider.getClass().getName()))) {
-                this.eventLoopGroup = transportProvider.createEventLoopGroup(clientConfig.getThreadCount(), new HttpClientThreadFactory());
+        CpuSet cpuSet = clientConfig.getCpuSet();
+        // in thread-per-core mode, one event loop for each CPU of the set
+        int threadCount = cpuSet != null && clientConfig.getThreadCount() == 0 ?
+                cpuSet.size() : clientConfig.getThreadCount();
+        ThreadFactory threadFactory = cpuSet != null ?
+                new AffinityThreadFactory("org-xbib-netty-http-client-", cpuSet) : new HttpClientThreadFactory();
+        TransportProvider namedTransportProvider = TransportProviders.find(clientConfig.getTransportProviderName());
+        if (namedTransportProvider != null) {
+            if (this.eventLoopGroup == null) {
+                this.eventLoopGroup = namedTransportProvider.createEventLoopGroup(threadCount, threadFactory);
+                if (this.eventLoopGroup != null) {
+                    namedTransportProvider.setIoRatio(this.eventLoopGroup, tuningProfile.getIoRatio());
+                }
             }
-            if (this.socketChannelClass == null &&
-                    (clientConfig.getTransportProviderName() == null || clientConfig.getTransportProviderName().equals(transportProvider.getClass().getName()))) {
-                this.socketChannelClass = transportProvider.createSocketChannelClass();
+            if (this.socketChannelClass == null) {
+                this.socketChannelClass = namedTransportProvider.createSocketChannelClass();
             }
         }
         if (this.eventLoopGroup == null) {
-            this.eventLoopGroup = new NioEventLoopGroup(clientConfig.getThreadCount(), new HttpClientThreadFactory());
+            NioEventLoopGroup nioEventLoopGroup = new NioEventLoopGroup(threadCount, threadFactory);
+            nioEventLoopGroup.setIoRatio(tuningProfile.getIoRatio());
+            this.eventLoopGroup = nioEventLoopGroup;
         }
         if (logger.isLoggable(Level.FINEST)) {
             logger.log(Level.FINEST, "event loop group class: " + this.eventLoopGroup.getClass().getName());
@@ -154,17 +167,42 @@ public final class Client implements AutoCloseable {
         if (logger.isLoggable(Level.FINEST)) {
             logger.log(Level.FINEST, "socket channel class: " + this.socketChannelClass.getName());
         }
+        TransportProvider channelTransportProvider = null;
+        for (TransportProvider transportProvider : TransportProviders.getTransportProviders()) {
+            if ((clientConfig.getTransportProviderName() == null || clientConfig.getTransportProviderName().equals(transportProvider.getClass().getName())) &&
+                    this.socketChannelClass.equals(transportProvider.createSocketChannelClass())) {
+                channelTransportProvider = transportProvider;
+                break;
+            }
+        }
         this.bootstrap = new Bootstrap()
                 .group(this.eventLoopGroup)
                 .channel(this.socketChannelClass)
                 .option(ChannelOption.ALLOCATOR, byteBufAllocator)
-                .option(ChannelOption.TCP_NODELAY, clientConfig.isTcpNodelay())
-                .option(ChannelOption.SO_KEEPALIVE, clientConfig.isKeepAlive())
-                .option(ChannelOption.SO_REUSEADDR, clientConfig.isReuseAddr())
                 .option(ChannelOption.SO_SNDBUF, clientConfig.getTcpSendBufferSize())
                 .option(ChannelOption.SO_RCVBUF, clientConfig.getTcpReceiveBufferSize())
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, clientConfig.getConnectTimeoutMillis())
                 .option(ChannelOption.WRITE_BUFFER_WATER_MARK, clientConfig.getWriteBufferWaterMark());
+        RecvByteBufAllocator recvByteBufAllocator = tuningProfile.newRecvByteBufAllocator();
+        if (recvByteBufAllocator != null) {
+            bootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, recvByteBufAllocator);
+        }
+        Class<? extends Channel> domainSocketChannelClass = channelTransportProvider != null ?
+                channelTransportProvider.createDomainSocketChannelClass() : null;
+        if (domainSocketChannelClass != null) {
+            // before the TCP options are set
+            this.domainSocketBootstrap = bootstrap.clone().channel(domainSocketChannelClass);
+            this.domainSocketTransportProvider = channelTransportProvider;
+        } else {
+            this.domainSocketBootstrap = null;
+            this.domainSocketTransportProvider = null;
+        }
+        bootstrap.option(ChannelOption.TCP_NODELAY, clientConfig.isTcpNodelay())
+                .option(ChannelOption.SO_KEEPALIVE, clientConfig.isKeepAlive())
+                .option(ChannelOption.SO_REUSEADDR, clientConfig.isReuseAddr());
+        if (channelTransportProvider != null) {
+            channelTransportProvider.configure(bootstrap, clientConfig.getTransportTuning());
+        }
         this.transports = new ConcurrentLinkedQueue<>();
         if (!clientConfig.getPoolNodes().isEmpty()) {
             List<HttpAddress> nodes = clientConfig.getPoolNodes();
@@ -198,7 +236,7 @@ public final class Client implements AutoCloseable {
         return new Builder();
     }
 
-    public List<ClientProtocolProvider<HttpChannelInitializer, ClientTransport>> getProtocolProviders() {
+    public List<ClientProtocolProvider<Client, SslHandlerFactory>> getProtocolProviders() {
         return protocolProviders;
     }
 
@@ -233,30 +271,20 @@ public final class Client implements AutoCloseable {
     public ClientTransport newTransport(HttpAddress httpAddress) {
         ClientTransport transport = null;
         if (httpAddress != null) {
-            for (ClientProtocolProvider<HttpChannelInitializer, ClientTransport> protocolProvider : protocolProviders) {
+            for (ClientProtocolProvider<Client, SslHandlerFactory> protocolProvider : protocolProviders) {
                 if (protocolProvider.supportsMajorVersion(httpAddress.getVersion().majorVersion())) {
-                    try {
-                        transport = protocolProvider.transportClass()
-                                .getConstructor(Client.class, HttpAddress.class).newInstance(this, httpAddress);
-                        break;
-                    } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                        throw new IllegalStateException();
-                    }
+                    transport = protocolProvider.createTransport(this, httpAddress);
+                    break;
                 }
             }
             if (transport == null) {
                 throw new UnsupportedOperationException("no protocol support for " + httpAddress);
             }
         } else if (hasPooledConnections()) {
-            for (ClientProtocolProvider<HttpChannelInitializer, ClientTransport> protocolProvider : protocolProviders) {
+            for (ClientProtocolProvider<Client, SslHandlerFactory> protocolProvider : protocolProviders) {
                 if (protocolProvider.supportsMajorVersion(pool.getVersion().majorVersion())) {
-                    try {
-                        transport = protocolProvider.transportClass()
-                                .getConstructor(Client.class, HttpAddress.class).newInstance(this, null);
-                        break;
-                    } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                        throw new IllegalStateException();
-                    }
+                    transport = protocolProvider.createTransport(this, null);
+                    break;
                 }
             }
             if (transport == null) {
@@ -272,13 +300,21 @@ public final class Client implements AutoCloseable {
     public Channel newChannel(HttpAddress httpAddress) throws IOException {
         if (httpAddress != null) {
             HttpVersion httpVersion = httpAddress.getVersion();
-            SslContext sslContext = newSslContext(clientConfig, httpAddress.getVersion());
+            SslContext sslContext = httpAddress.isSecure() ? getSslContext(httpAddress.getVersion()) : null;
             SslHandlerFactory sslHandlerFactory = new SslHandlerFactory(sslContext, clientConfig, httpAddress, byteBufAllocator);
             HttpChannelInitializer initializerTwo =
                     findChannelInitializer(2, httpAddress, sslHandlerFactory, null);
             HttpChannelInitializer initializer =
                     findChannelInitializer(httpVersion.majorVersion(), httpAddress, sslHandlerFactory, initializerTwo);
             try {
+                if (httpAddress.getDomainSocketPath() != null) {
+                    if (domainSocketBootstrap == null) {
+                        throw new IOException("unix domain sockets are not supported by " + socketChannelClass.getName());
+                    }
+                    return domainSocketBootstrap.handler(initializer)
+                            .connect(domainSocketTransportProvider.createDomainSocketAddress(httpAddress.getDomainSocketPath()))
+                            .sync().await().channel();
+                }
                 return bootstrap.handler(initializer)
                         .connect(httpAddress.getInetSocketAddress()).sync().await().channel();
             } catch (InterruptedException e) {
@@ -408,20 +444,40 @@ public final class Client implements AutoCloseable {
                                                           HttpAddress httpAddress,
                                                           SslHandlerFactory sslHandlerFactory,
                                                           HttpChannelInitializer helper) {
-        for (ClientProtocolProvider<HttpChannelInitializer, ClientTransport> protocolProvider : protocolProviders) {
+        for (ClientProtocolProvider<Client, SslHandlerFactory> protocolProvider : protocolProviders) {
             if (protocolProvider.supportsMajorVersion(majorVersion)) {
-                try {
-                    return protocolProvider.initializerClass()
-                            .getConstructor(ClientConfig.class, HttpAddress.class, SslHandlerFactory.class, HttpChannelInitializer.class)
-                            .newInstance(clientConfig, httpAddress, sslHandlerFactory, helper);
-                } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    throw new IllegalStateException();
-                }
+                return protocolProvider.createInitializer(this, httpAddress, sslHandlerFactory, helper);
             }
         }
         throw new IllegalStateException("no channel initializer found for major version " + majorVersion);
     }
 
+    /**
+     * Returns the SSL context for an HTTP version. The SSL context is built when the first secure connection
+     * of the HTTP version is opened, and shared by all connections of this client.
+     *
+     * @param httpVersion the HTTP version
+     * @return the SSL context
+     * @throws SSLException if the SSL context can not be built
+     */
+    private SslContext getSslContext(HttpVersion httpVersion) throws SSLException {
+        Integer majorVersion = httpVersion.majorVersion();
+        SslContext sslContext = sslContexts.get(majorVersion);
+        if (sslContext == null) {
+            synchronized (sslContexts) {
+                sslContext = sslContexts.get(majorVersion);
+                if (sslContext == null) {
+                    if (sslContexts.isEmpty()) {
+                        initializeTrustManagerFactory(clientConfig);
+                    }
+                    sslContext = newSslContext(clientConfig, httpVersion);
+                    sslContexts.put(majorVersion, sslContext);
+                }
+            }
+        }
+        return sslContext;
+    }
+
     /**
      * Initialize trust manager factory once per client lifecycle.
      * @param clientConfig the client config
@@ -491,7 +547,7 @@ public final class Client implements AutoCloseable {
         public void channelCreated(Channel channel) throws IOException {
             HttpAddress httpAddress = channel.attr(pool.getAttributeKey()).get();
             HttpVersion httpVersion = httpAddress.getVersion();
-            SslContext sslContext = newSslContext(clientConfig, httpAddress.getVersion());
+            SslContext sslContext = httpAddress.isSecure() ? getSslContext(httpAddress.getVersion()) : null;
             SslHandlerFactory sslHandlerFactory = new SslHandlerFactory(sslContext,
                     clientConfig, httpAddress, byteBufAllocator);
             HttpChannelInitializer initializerTwo =
@@ -502,6 +558,30 @@ public final class Client implements AutoCloseable {
         }
     }
 
+    /**
+     * The protocol providers, loaded once per JVM.
+     */
+    private static class ProtocolProviders {
+
+        private static final List<ClientProtocolProvider<Client, SslHandlerFactory>> protocolProviders =
+                load();
+
+        private static List<ClientProtocolProvider<Client, SslHandlerFactory>> load() {
+            List<ClientProtocolProvider<Client, SslHandlerFactory>> list = new ArrayList<>();
+            for (ClientProtocolProvider<?, ?> provider : ServiceLoader.load(ClientProtocolProvider.class)) {
+                // the service loader can not express the type arguments, the providers are written for this client
+                @SuppressWarnings("unchecked")
+                ClientProtocolProvider<Client, SslHandlerFactory> clientProtocolProvider =
+                        (ClientProtocolProvider<Client, SslHandlerFactory>) provider;
+                list.add(clientProtocolProvider);
+                if (logger.isLoggable(Level.FINEST)) {
+                    logger.log(Level.FINEST, "protocol provider: " + provider.getClass().getName());
+                }
+            }
+            return Collections.unmodifiableList(list);
+        }
+    }
+
     public static class SslHandlerFactory {
 
         private final SslContext sslContext;
@@ -606,6 +686,18 @@ public final class Client implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Bind the event loops to the CPUs of a set. Without an explicit thread count,
+         * there is one event loop for each CPU of the set.
+         *
+         * @param cpuSet the CPU set, or null for unbound event loops
+         * @return this builder
+         */
+        public Builder setCpuSet(CpuSet cpuSet) {
+            clientConfig.setCpuSet(cpuSet);
+            return this;
+        }
+
         public Builder setConnectTimeoutMillis(int connectTimeoutMillis) {
             clientConfig.setConnectTimeoutMillis(connectTimeoutMillis);
             return this;
@@ -771,13 +863,31 @@ public final class Client implements AutoCloseable {
             return this;
         }
 
+        public Builder setTransportTuning(TransportTuning transportTuning) {
+            clientConfig.setTransportTuning(transportTuning);
+            return this;
+        }
+
+        public Builder setTlsRecordSizing(TlsRecordSizing tlsRecordSizing) {
+            clientConfig.setTlsRecordSizing(tlsRecordSizing);
+            return this;
+        }
+
+        public Builder setTuningProfile(TuningProfile tuningProfile) {
+            clientConfig.setTuningProfile(tuningProfile);
+            return this;
+        }
+
         public Builder enableNegotiation(boolean enableNegotiation) {
             clientConfig.setEnableNegotiation(enableNegotiation);
             return this;
         }
 
         public Client build() {
-            return new Client(clientConfig, byteBufAllocator, eventLoopGroup, socketChannelClass);
+            // each client has an allocator of its own, so its arenas are not shared with other clients
+            ByteBufAllocator allocator = byteBufAllocator != null ? byteBufAllocator :
+                    clientConfig.getTuningProfile().newByteBufAllocator();
+            return new Client(clientConfig, allocator, eventLoopGroup, socketChannelClass);
         }
     }
 }
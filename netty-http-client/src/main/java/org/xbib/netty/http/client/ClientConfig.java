@@ -10,7 +10,11 @@ import io.netty.handler.ssl.OpenSsl;
 import io.netty.handler.ssl.SslProvider;
 import org.xbib.netty.http.client.api.Pool;
 import org.xbib.netty.http.client.api.BackOff;
+import org.xbib.netty.http.common.CpuSet;
 import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.TlsRecordSizing;
+import org.xbib.netty.http.common.TransportTuning;
+import org.xbib.netty.http.common.TuningProfile;
 import org.xbib.netty.http.common.security.SecurityUtil;
 
 import javax.net.ssl.TrustManagerFactory;
@@ -45,6 +49,11 @@ public class ClientConfig {
          */
         int THREAD_COUNT = 0;
 
+        /**
+         * No CPU set, the threads are not bound to CPUs.
+         */
+        CpuSet CPU_SET = null;
+
         /**
          * Default for TCP_NODELAY.
          */
@@ -167,6 +176,11 @@ public class ClientConfig {
          */
         WriteBufferWaterMark WRITE_BUFFER_WATER_MARK = WriteBufferWaterMark.DEFAULT;
 
+        /**
+         * Default tuning profile.
+         */
+        TuningProfile TUNING_PROFILE = TuningProfile.SAFE;
+
         /**
          * Default for backoff.
          */
@@ -183,6 +197,8 @@ public class ClientConfig {
 
     private int threadCount = Defaults.THREAD_COUNT;
 
+    private CpuSet cpuSet = Defaults.CPU_SET;
+
     private boolean tcpNodelay = Defaults.TCP_NODELAY;
 
     private boolean keepAlive = Defaults.SO_KEEPALIVE;
@@ -251,6 +267,12 @@ public class ClientConfig {
 
     private WriteBufferWaterMark writeBufferWaterMark = Defaults.WRITE_BUFFER_WATER_MARK;
 
+    private TransportTuning transportTuning = new TransportTuning();
+
+    private TlsRecordSizing tlsRecordSizing = new TlsRecordSizing();
+
+    private TuningProfile tuningProfile = Defaults.TUNING_PROFILE;
+
     private BackOff backOff = Defaults.BACK_OFF;
 
     private boolean enableNegotiation = Defaults.ENABLE_NEGOTIATION;
@@ -301,6 +323,15 @@ public class ClientConfig {
         return threadCount;
     }
 
+    public ClientConfig setCpuSet(CpuSet cpuSet) {
+        this.cpuSet = cpuSet;
+        return this;
+    }
+
+    public CpuSet getCpuSet() {
+        return cpuSet;
+    }
+
     public ClientConfig setTcpNodelay(boolean tcpNodelay) {
         this.tcpNodelay = tcpNodelay;
         return this;
@@ -621,6 +652,33 @@ public class ClientConfig {
         return writeBufferWaterMark;
     }
 
+    public ClientConfig setTransportTuning(TransportTuning transportTuning) {
+        this.transportTuning = transportTuning;
+        return this;
+    }
+
+    public TransportTuning getTransportTuning() {
+        return transportTuning;
+    }
+
+    public ClientConfig setTlsRecordSizing(TlsRecordSizing tlsRecordSizing) {
+        this.tlsRecordSizing = tlsRecordSizing;
+        return this;
+    }
+
+    public TlsRecordSizing getTlsRecordSizing() {
+        return tlsRecordSizing;
+    }
+
+    public ClientConfig setTuningProfile(TuningProfile tuningProfile) {
+        this.tuningProfile = tuningProfile;
+        return this;
+    }
+
+    public TuningProfile getTuningProfile() {
+        return tuningProfile;
+    }
+
     public ClientConfig setBackOff(BackOff backOff) {
         this.backOff = backOff;
         return this;
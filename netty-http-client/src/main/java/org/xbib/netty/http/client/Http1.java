@@ -3,8 +3,10 @@ package org.xbib.netty.http.client;
 import org.xbib.netty.http.client.api.ClientProtocolProvider;
 import org.xbib.netty.http.client.handler.http.Http1ChannelInitializer;
 import org.xbib.netty.http.client.transport.Http1Transport;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpChannelInitializer;
 
-public class Http1 implements ClientProtocolProvider<Http1ChannelInitializer, Http1Transport> {
+public class Http1 implements ClientProtocolProvider<Client, Client.SslHandlerFactory> {
 
     @Override
     public boolean supportsMajorVersion(int majorVersion) {
@@ -12,12 +14,14 @@ public class Http1 implements ClientProtocolProvider<Http1ChannelInitializer, Ht
     }
 
     @Override
-    public Class<Http1ChannelInitializer> initializerClass() {
-        return Http1ChannelInitializer.class;
+    public Http1ChannelInitializer createInitializer(Client client, HttpAddress httpAddress,
+                                                     Client.SslHandlerFactory sslHandlerFactory,
+                                                     HttpChannelInitializer helper) {
+        return new Http1ChannelInitializer(client.getClientConfig(), httpAddress, sslHandlerFactory, helper);
     }
 
     @Override
-    public Class<Http1Transport> transportClass() {
-        return Http1Transport.class;
+    public Http1Transport createTransport(Client client, HttpAddress httpAddress) {
+        return new Http1Transport(client, httpAddress);
     }
 }
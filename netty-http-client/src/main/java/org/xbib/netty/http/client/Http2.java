@@ -3,8 +3,10 @@ package org.xbib.netty.http.client;
 import org.xbib.netty.http.client.api.ClientProtocolProvider;
 import org.xbib.netty.http.client.handler.http2.Http2ChannelInitializer;
 import org.xbib.netty.http.client.transport.Http2Transport;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpChannelInitializer;
 
-public class Http2 implements ClientProtocolProvider<Http2ChannelInitializer, Http2Transport> {
+public class Http2 implements ClientProtocolProvider<Client, Client.SslHandlerFactory> {
 
     @Override
     public boolean supportsMajorVersion(int majorVersion) {
@@ -12,12 +14,14 @@ public class Http2 implements ClientProtocolProvider<Http2ChannelInitializer, Ht
     }
 
     @Override
-    public Class<Http2ChannelInitializer> initializerClass() {
-        return Http2ChannelInitializer.class;
+    public Http2ChannelInitializer createInitializer(Client client, HttpAddress httpAddress,
+                                                     Client.SslHandlerFactory sslHandlerFactory,
+                                                     HttpChannelInitializer helper) {
+        return new Http2ChannelInitializer(client.getClientConfig(), httpAddress, sslHandlerFactory, helper);
     }
 
     @Override
-    public Class<Http2Transport> transportClass() {
-        return Http2Transport.class;
+    public Http2Transport createTransport(Client client, HttpAddress httpAddress) {
+        return new Http2Transport(client, httpAddress);
     }
 }
@@ -21,6 +21,7 @@ import org.xbib.netty.http.client.handler.ws1.Http1WebSocketClientHandler;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 import org.xbib.netty.http.client.handler.http2.Http2ChannelInitializer;
 import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.TlsRecordSizingHandler;
 
 import java.net.URI;
 import java.util.logging.Level;
@@ -71,6 +72,10 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel> impleme
         ChannelPipeline pipeline = channel.pipeline();
         SslHandler sslHandler = sslHandlerFactory.create();
         pipeline.addLast("client-ssl-handler", sslHandler);
+        if (clientConfig.getTlsRecordSizing().isEnabled()) {
+            pipeline.addLast("client-tls-record-sizing",
+                    new TlsRecordSizingHandler(sslHandler, clientConfig.getTlsRecordSizing()));
+        }
         if (clientConfig.isEnableNegotiation()) {
             ApplicationProtocolNegotiationHandler negotiationHandler =
                     new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
@@ -12,12 +12,14 @@ import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.Http2MultiplexCodec;
 import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
 import io.netty.handler.logging.LogLevel;
+import io.netty.handler.ssl.SslHandler;
 import org.xbib.netty.http.client.Client;
 import org.xbib.netty.http.client.ClientConfig;
 import org.xbib.netty.http.client.handler.http.TrafficLoggingHandler;
 import org.xbib.netty.http.client.api.ClientTransport;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.HttpChannelInitializer;
+import org.xbib.netty.http.common.TlsRecordSizingHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -57,7 +59,11 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel> impleme
     }
 
     private void configureEncrypted(Channel channel) {
-        channel.pipeline().addLast(sslHandlerFactory.create());
+        SslHandler sslHandler = sslHandlerFactory.create();
+        channel.pipeline().addLast(sslHandler);
+        if (clientConfig.getTlsRecordSizing().isEnabled()) {
+            channel.pipeline().addLast(new TlsRecordSizingHandler(sslHandler, clientConfig.getTlsRecordSizing()));
+        }
         configureCleartext(channel);
     }
 
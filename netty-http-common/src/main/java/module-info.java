@@ -1,4 +1,6 @@
 module org.xbib.netty.http.common {
+    uses org.xbib.netty.http.common.CpuAffinity;
+    uses org.xbib.netty.http.common.TransportProvider;
     exports org.xbib.netty.http.common;
     exports org.xbib.netty.http.common.cookie;
     exports org.xbib.netty.http.common.mime;
@@ -0,0 +1,67 @@
+package org.xbib.netty.http.common;
+
+import java.util.ServiceLoader;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A thread factory for daemon threads which bind each new thread to the next CPU of a CPU set.
+ * Two factories with the same CPU set bind their n-th threads to the same CPU, so event loops
+ * and their worker threads can be paired. Memory which a bound thread touches first is allocated
+ * on the NUMA node of its CPU, this includes the arena chunks of a pooled allocator.
+ */
+public class AffinityThreadFactory implements ThreadFactory {
+
+    private static final Logger logger = Logger.getLogger(AffinityThreadFactory.class.getName());
+
+    private final String prefix;
+
+    private final CpuSet cpuSet;
+
+    private final AtomicInteger number;
+
+    public AffinityThreadFactory(String prefix, CpuSet cpuSet) {
+        this.prefix = prefix;
+        this.cpuSet = cpuSet;
+        this.number = new AtomicInteger();
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        int n = number.getAndIncrement();
+        int cpu = cpuSet.get(n);
+        Thread thread = new Thread(() -> {
+            CpuAffinity cpuAffinity = Holder.cpuAffinity;
+            if (cpuAffinity == null || !cpuAffinity.bind(cpu)) {
+                logger.log(Level.FINE, "thread " + Thread.currentThread().getName() + " is not bound to CPU " + cpu);
+            }
+            runnable.run();
+        }, prefix + n + "-cpu-" + cpu);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * The CPU affinity implementation, loaded once per JVM.
+     */
+    private static class Holder {
+
+        private static final CpuAffinity cpuAffinity = load();
+
+        private static CpuAffinity load() {
+            for (CpuAffinity cpuAffinity : ServiceLoader.load(CpuAffinity.class)) {
+                if (cpuAffinity.isAvailable()) {
+                    return cpuAffinity;
+                }
+            }
+            CpuAffinity cpuAffinity = new TasksetCpuAffinity();
+            if (cpuAffinity.isAvailable()) {
+                return cpuAffinity;
+            }
+            logger.log(Level.WARNING, "binding threads to CPUs is not available on this system");
+            return null;
+        }
+    }
+}
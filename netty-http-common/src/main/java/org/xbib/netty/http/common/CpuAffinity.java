@@ -0,0 +1,24 @@
+package org.xbib.netty.http.common;
+
+/**
+ * Binds threads to CPUs. An implementation can be provided by the service loader,
+ * for example one that calls {@code sched_setaffinity} by a native library. Without such
+ * an implementation, {@link TasksetCpuAffinity} is used.
+ */
+public interface CpuAffinity {
+
+    /**
+     * Whether threads can be bound to CPUs on this system.
+     *
+     * @return true if threads can be bound
+     */
+    boolean isAvailable();
+
+    /**
+     * Bind the current thread to a CPU.
+     *
+     * @param cpu the CPU
+     * @return true if the thread is bound, false if not
+     */
+    boolean bind(int cpu);
+}
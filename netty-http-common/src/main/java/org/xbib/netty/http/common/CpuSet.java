@@ -0,0 +1,117 @@
+package org.xbib.netty.http.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An ordered set of CPUs, written as a Linux CPU list like {@code 0-7,16-23}.
+ */
+public final class CpuSet {
+
+    private final int[] cpus;
+
+    private CpuSet(int[] cpus) {
+        this.cpus = cpus;
+    }
+
+    /**
+     * Parse a CPU list.
+     *
+     * @param cpuList the CPU list, a comma separated list of CPU numbers and ranges
+     * @return the CPU set
+     * @throws IllegalArgumentException if the CPU list is not valid or empty
+     */
+    public static CpuSet parse(String cpuList) {
+        BitSet bitSet = new BitSet();
+        for (String s : cpuList.trim().split(",")) {
+            if (s.isBlank()) {
+                continue;
+            }
+            try {
+                int pos = s.indexOf('-');
+                if (pos > 0) {
+                    int from = Integer.parseInt(s.substring(0, pos).trim());
+                    int to = Integer.parseInt(s.substring(pos + 1).trim());
+                    if (from < 0 || to < from) {
+                        throw new IllegalArgumentException("invalid CPU range: " + s);
+                    }
+                    bitSet.set(from, to + 1);
+                } else {
+                    int cpu = Integer.parseInt(s.trim());
+                    if (cpu < 0) {
+                        throw new IllegalArgumentException("invalid CPU: " + s);
+                    }
+                    bitSet.set(cpu);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid CPU list: " + cpuList, e);
+            }
+        }
+        if (bitSet.isEmpty()) {
+            throw new IllegalArgumentException("empty CPU list");
+        }
+        return new CpuSet(bitSet.stream().toArray());
+    }
+
+    /**
+     * The CPUs of a NUMA node, as listed by Linux in {@code /sys/devices/system/node}.
+     *
+     * @param node the NUMA node
+     * @return the CPU set of the node
+     * @throws IOException if the node does not exist or the system does not expose NUMA nodes
+     */
+    public static CpuSet ofNumaNode(int node) throws IOException {
+        Path path = Paths.get("/sys/devices/system/node/node" + node + "/cpulist");
+        return parse(Files.readString(path, StandardCharsets.US_ASCII));
+    }
+
+    public int size() {
+        return cpus.length;
+    }
+
+    /**
+     * The CPU for a thread, the threads are assigned to the CPUs in turn.
+     *
+     * @param index the index of the thread
+     * @return the CPU
+     */
+    public int get(int index) {
+        return cpus[index % cpus.length];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CpuSet && Arrays.equals(cpus, ((CpuSet) o).cpus);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cpus);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < cpus.length) {
+            int j = i;
+            while (j + 1 < cpus.length && cpus[j + 1] == cpus[j] + 1) {
+                j++;
+            }
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(cpus[i]);
+            if (j > i) {
+                sb.append('-').append(cpus[j]);
+            }
+            i = j + 1;
+        }
+        return sb.toString();
+    }
+}
@@ -4,9 +4,13 @@ import io.netty.handler.codec.http.HttpVersion;
 import org.xbib.net.URL;
 
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Objects;
 
 /**
  * A handle for host, port, HTTP version, secure transport flag of a channel for HTTP.
+ * An address with a domain socket path is reached over a unix domain socket, the host and port
+ * are only used for the base URL.
  */
 public class HttpAddress implements PoolKey {
 
@@ -22,6 +26,8 @@ public class HttpAddress implements PoolKey {
 
     private final Boolean secure;
 
+    private final Path domainSocketPath;
+
     private InetSocketAddress inetSocketAddress;
 
     public static HttpAddress http1(String host) {
@@ -56,6 +62,26 @@ public class HttpAddress implements PoolKey {
         return new HttpAddress(host, port, HTTP_2_0, true);
     }
 
+    /**
+     * An HTTP/1 address of a unix domain socket.
+     *
+     * @param domainSocketPath the path of the domain socket
+     * @return the address
+     */
+    public static HttpAddress http1(Path domainSocketPath) {
+        return new HttpAddress("localhost", 80, HTTP_1_1, false, domainSocketPath);
+    }
+
+    /**
+     * A cleartext HTTP/2 address of a unix domain socket.
+     *
+     * @param domainSocketPath the path of the domain socket
+     * @return the address
+     */
+    public static HttpAddress http2(Path domainSocketPath) {
+        return new HttpAddress("localhost", 80, HTTP_2_0, false, domainSocketPath);
+    }
+
     public static HttpAddress http1(URL url) {
         return new HttpAddress(url, HTTP_1_1);
     }
@@ -81,10 +107,15 @@ public class HttpAddress implements PoolKey {
     }
 
     public HttpAddress(String host, Integer port, HttpVersion version, boolean secure) {
+        this(host, port, version, secure, null);
+    }
+
+    public HttpAddress(String host, Integer port, HttpVersion version, boolean secure, Path domainSocketPath) {
         this.host = host;
         this.port = (port == null || port == -1) ? secure ? 443 : 80 : port;
         this.version = version;
         this.secure = secure;
+        this.domainSocketPath = domainSocketPath;
     }
 
     @Override
@@ -102,6 +133,15 @@ public class HttpAddress implements PoolKey {
                 URL.http().host(host).port(port).build();
     }
 
+    /**
+     * The path of the unix domain socket of this address.
+     *
+     * @return the path, or null for a TCP address
+     */
+    public Path getDomainSocketPath() {
+        return domainSocketPath;
+    }
+
     public HttpVersion getVersion() {
         return version;
     }
@@ -112,7 +152,8 @@ public class HttpAddress implements PoolKey {
 
     @Override
     public String toString() {
-        return host + ":" + port + " (version:" + version + ",secure:" + secure + ")";
+        return (domainSocketPath != null ? "unix:" + domainSocketPath : host + ":" + port) +
+                " (version:" + version + ",secure:" + secure + ")";
     }
 
     @Override
@@ -121,11 +162,12 @@ public class HttpAddress implements PoolKey {
                 host.equals(((HttpAddress) object).host) &&
                 (port != null && port.equals(((HttpAddress) object).port)) &&
                 version.equals(((HttpAddress) object).version) &&
-                secure.equals(((HttpAddress) object).secure);
+                secure.equals(((HttpAddress) object).secure) &&
+                Objects.equals(domainSocketPath, ((HttpAddress) object).domainSocketPath);
     }
 
     @Override
     public int hashCode() {
-        return host.hashCode() ^ port ^ version.hashCode() ^ secure.hashCode();
+        return host.hashCode() ^ port ^ version.hashCode() ^ secure.hashCode() ^ Objects.hashCode(domainSocketPath);
     }
 }
@@ -0,0 +1,83 @@
+package org.xbib.netty.http.common;
+
+import io.netty.handler.ssl.OpenSsl;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Probe for kernel TLS (kTLS), where the kernel encrypts the records of a TLS connection, so file regions
+ * can be sent with {@code sendfile} over TLS. kTLS needs Linux with the {@code tls} upper layer protocol,
+ * OpenSSL 3 with {@code SSL_OP_ENABLE_KTLS}, and an SSL engine which hands the connection to the kernel
+ * after the handshake.
+ *
+ * Netty 4.1 and netty-tcnative do not expose {@code SSL_OP_ENABLE_KTLS} or {@code SSL_sendfile}, and
+ * the {@code SslHandler} always encrypts in user space. So kTLS is never available with this version of
+ * Netty, even if the kernel and OpenSSL support it, and connections always fall back to the
+ * {@code SslHandler}. The probe reports the first missing requirement.
+ */
+public final class KernelTls {
+
+    private static final Logger logger = Logger.getLogger(KernelTls.class.getName());
+
+    private static final Path AVAILABLE_ULP = Paths.get("/proc/sys/net/ipv4/tcp_available_ulp");
+
+    private static final long OPENSSL_3 = 0x30000000L;
+
+    private static final String UNAVAILABILITY_CAUSE = probe();
+
+    private KernelTls() {
+    }
+
+    /**
+     * Whether connections can use kTLS.
+     *
+     * @return true if kTLS is available
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    /**
+     * Returns the reason why kTLS is not available.
+     *
+     * @return the reason, or null if kTLS is available
+     */
+    public static String unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    private static String probe() {
+        String cause;
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux")) {
+            cause = "kTLS is only supported on Linux";
+        } else if (!isTlsUlpAvailable()) {
+            cause = "the kernel does not provide the tls upper layer protocol, load the tls module";
+        } else if (!OpenSsl.isAvailable()) {
+            cause = "OpenSSL is not available";
+        } else if (OpenSsl.version() < OPENSSL_3) {
+            cause = "OpenSSL " + OpenSsl.versionString() + " does not support kTLS, OpenSSL 3 is required";
+        } else {
+            cause = "netty-tcnative does not expose SSL_OP_ENABLE_KTLS, the SslHandler of Netty 4.1 encrypts in user space";
+        }
+        logger.log(Level.FINE, () -> "kTLS is not available: " + cause);
+        return cause;
+    }
+
+    private static boolean isTlsUlpAvailable() {
+        try {
+            for (String ulp : Files.readString(AVAILABLE_ULP).trim().split("\\s+")) {
+                if ("tls".equals(ulp)) {
+                    return true;
+                }
+            }
+        } catch (IOException | SecurityException e) {
+            logger.log(Level.FINEST, e.getMessage(), e);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package org.xbib.netty.http.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binds threads to CPUs on Linux by the {@code taskset} command. The thread ID of the current thread
+ * is taken from {@code /proc/thread-self}. A process is started for each bound thread, so this is only
+ * suitable for long running threads such as event loops.
+ */
+public class TasksetCpuAffinity implements CpuAffinity {
+
+    private static final Logger logger = Logger.getLogger(TasksetCpuAffinity.class.getName());
+
+    private static final Path THREAD_SELF = Paths.get("/proc/thread-self");
+
+    @Override
+    public boolean isAvailable() {
+        return Files.isSymbolicLink(THREAD_SELF);
+    }
+
+    @Override
+    public boolean bind(int cpu) {
+        try {
+            String tid = Files.readSymbolicLink(THREAD_SELF).getFileName().toString();
+            Process process = new ProcessBuilder("taskset", "-p", "-c", Integer.toString(cpu), tid)
+                    .redirectErrorStream(true)
+                    .start();
+            try (InputStream inputStream = process.getInputStream()) {
+                inputStream.readAllBytes();
+            }
+            int exitValue = process.waitFor();
+            if (exitValue != 0) {
+                logger.log(Level.WARNING, "taskset failed with exit value " + exitValue + " for CPU " + cpu);
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "unable to bind thread to CPU " + cpu + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
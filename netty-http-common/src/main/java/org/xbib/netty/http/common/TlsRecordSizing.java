@@ -0,0 +1,93 @@
+package org.xbib.netty.http.common;
+
+/**
+ * Dynamic sizing of TLS records. After a handshake, and after the connection was idle, the first bytes
+ * are sent in small records which fit into one TCP segment, so the peer can decrypt the first bytes
+ * of a response without waiting for a full record of 16 KB. After that, records grow to the maximum size
+ * for bulk transfer. Disabled by default, the SSL handler then always wraps up to 16 KB into a record.
+ */
+public class TlsRecordSizing {
+
+    /**
+     * The largest TLS record, 16 KB of plain text.
+     */
+    public static final int MAX_RECORD_SIZE = 16 * 1024;
+
+    private boolean enabled;
+
+    private int smallRecordSize = 1360;
+
+    private int smallRecordBytes = 64 * 1024;
+
+    private long idleTimeoutMillis = 1000L;
+
+    /**
+     * Enable dynamic record sizing.
+     *
+     * @param enabled true to enable
+     * @return this record sizing
+     */
+    public TlsRecordSizing setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the plain text size of small records. The default of 1360 bytes fits into one TCP segment
+     * of IPv4 and IPv6 with TCP timestamps and the TLS record overhead.
+     *
+     * @param smallRecordSize the size of small records in bytes
+     * @return this record sizing
+     */
+    public TlsRecordSizing setSmallRecordSize(int smallRecordSize) {
+        this.smallRecordSize = smallRecordSize;
+        return this;
+    }
+
+    public int getSmallRecordSize() {
+        return smallRecordSize;
+    }
+
+    /**
+     * Set the number of bytes which are sent in small records after a handshake or an idle period.
+     *
+     * @param smallRecordBytes the number of bytes, default is 64 KB
+     * @return this record sizing
+     */
+    public TlsRecordSizing setSmallRecordBytes(int smallRecordBytes) {
+        this.smallRecordBytes = smallRecordBytes;
+        return this;
+    }
+
+    public int getSmallRecordBytes() {
+        return smallRecordBytes;
+    }
+
+    /**
+     * Set the time without writes after which small records are used again, because the
+     * congestion window of the connection may have shrunk.
+     *
+     * @param idleTimeoutMillis the idle time in milliseconds, or 0 to use small records after the handshake only
+     * @return this record sizing
+     */
+    public TlsRecordSizing setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "TlsRecordSizing[enabled=" + enabled +
+                ",smallRecordSize=" + smallRecordSize +
+                ",smallRecordBytes=" + smallRecordBytes +
+                ",idleTimeoutMillis=" + idleTimeoutMillis + "]";
+    }
+}
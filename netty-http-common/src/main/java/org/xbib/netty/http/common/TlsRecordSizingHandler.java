@@ -0,0 +1,140 @@
+package org.xbib.netty.http.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.PendingWriteQueue;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.PromiseCombiner;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes the TLS records of an {@link SslHandler} by {@link TlsRecordSizing}. The handler must be placed
+ * directly behind the SSL handler, so it sees the plain text which is written to the SSL handler.
+ * The SSL handler wraps the pending plain text at flush, so the record size is switched at flush boundaries:
+ * when a write crosses the end of the small record phase, the small part is written, and the rest and all
+ * later writes are held back until the next flush. The flush wraps the small part in small records, switches
+ * to large records, and then writes and flushes the held back writes.
+ */
+public class TlsRecordSizingHandler extends ChannelOutboundHandlerAdapter {
+
+    private final SslHandler sslHandler;
+
+    private final int smallRecordSize;
+
+    private final int smallRecordBytes;
+
+    private final long idleTimeoutNanos;
+
+    private long written;
+
+    private long lastWriteNanos;
+
+    private int recordSize;
+
+    private PendingWriteQueue pendingWrites;
+
+    private boolean switchPending;
+
+    public TlsRecordSizingHandler(SslHandler sslHandler, TlsRecordSizing tlsRecordSizing) {
+        this.sslHandler = sslHandler;
+        this.smallRecordSize = tlsRecordSizing.getSmallRecordSize();
+        this.smallRecordBytes = tlsRecordSizing.getSmallRecordBytes();
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(tlsRecordSizing.getIdleTimeoutMillis());
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        lastWriteNanos = System.nanoTime();
+        pendingWrites = new PendingWriteQueue(ctx);
+        setRecordSize(smallRecordSize);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        switchPending = false;
+        pendingWrites.removeAndWriteAll();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (switchPending) {
+            // keep the order of writes until the switch to large records at the next flush
+            if (msg instanceof ByteBuf) {
+                written += ((ByteBuf) msg).readableBytes();
+            }
+            lastWriteNanos = System.nanoTime();
+            pendingWrites.add(msg, promise);
+            return;
+        }
+        if (!(msg instanceof ByteBuf)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        ByteBuf byteBuf = (ByteBuf) msg;
+        long now = System.nanoTime();
+        if (idleTimeoutNanos > 0L && now - lastWriteNanos >= idleTimeoutNanos) {
+            written = 0L;
+            setRecordSize(smallRecordSize);
+        }
+        lastWriteNanos = now;
+        if (recordSize != TlsRecordSizing.MAX_RECORD_SIZE &&
+                written + byteBuf.readableBytes() > smallRecordBytes) {
+            switchPending = true;
+            if (written < smallRecordBytes) {
+                // the part of the write which still belongs to the small record phase
+                int smallBytes = (int) (smallRecordBytes - written);
+                written += byteBuf.readableBytes();
+                PromiseCombiner promiseCombiner = new PromiseCombiner(ctx.executor());
+                promiseCombiner.add(ctx.write(byteBuf.readRetainedSlice(smallBytes)));
+                ChannelPromise rest = ctx.newPromise();
+                promiseCombiner.add(rest);
+                pendingWrites.add(byteBuf, rest);
+                promiseCombiner.finish(promise);
+            } else {
+                written += byteBuf.readableBytes();
+                pendingWrites.add(byteBuf, promise);
+            }
+            return;
+        }
+        written += byteBuf.readableBytes();
+        ctx.write(byteBuf, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        if (switchPending) {
+            // wrap the pending bytes in small records before switching to large records
+            ctx.flush();
+            setRecordSize(TlsRecordSizing.MAX_RECORD_SIZE);
+            switchPending = false;
+            pendingWrites.removeAndWriteAll();
+        }
+        ctx.flush();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        switchPending = false;
+        pendingWrites.removeAndFailAll(new ClosedChannelException());
+        ctx.close(promise);
+    }
+
+    /**
+     * Returns the current plain text size of TLS records.
+     *
+     * @return the record size in bytes
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    private void setRecordSize(int recordSize) {
+        if (this.recordSize != recordSize) {
+            this.recordSize = recordSize;
+            sslHandler.setWrapDataSize(recordSize);
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package org.xbib.netty.http.common;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
+import java.net.SocketAddress;
+import java.nio.file.Path;
 import java.util.concurrent.ThreadFactory;
 
 public interface TransportProvider {
@@ -13,4 +20,78 @@ public interface TransportProvider {
 
     Class<? extends ServerSocketChannel> createServerSocketChannelClass();
 
+    /**
+     * The channel class for unix domain socket connections of this transport.
+     *
+     * @return the channel class, or null if the transport does not support unix domain sockets
+     */
+    default Class<? extends Channel> createDomainSocketChannelClass() {
+        return null;
+    }
+
+    /**
+     * The server channel class for unix domain sockets of this transport.
+     *
+     * @return the server channel class, or null if the transport does not support unix domain sockets
+     */
+    default Class<? extends ServerChannel> createServerDomainSocketChannelClass() {
+        return null;
+    }
+
+    /**
+     * Create the socket address of a unix domain socket.
+     *
+     * @param path the path of the domain socket
+     * @return the socket address, or null if the transport does not support unix domain sockets
+     */
+    default SocketAddress createDomainSocketAddress(Path path) {
+        return null;
+    }
+
+    /**
+     * The channel option for SO_REUSEPORT of the server socket channels of this transport.
+     *
+     * @return the channel option, or null if the transport does not support SO_REUSEPORT
+     */
+    default ChannelOption<Boolean> getReusePortOption() {
+        return null;
+    }
+
+    /**
+     * The priority of this transport on this platform. Without a transport provider name, servers and
+     * clients use the provider with the highest priority. A transport which is not available on this
+     * platform should return 0.
+     *
+     * @return the priority
+     */
+    default int getPriority() {
+        return 0;
+    }
+
+    /**
+     * Set the percentage of time which the event loops of a group of this transport spend on I/O.
+     *
+     * @param eventLoopGroup the event loop group created by this transport
+     * @param ioRatio the I/O ratio, between 1 and 100
+     */
+    default void setIoRatio(EventLoopGroup eventLoopGroup, int ioRatio) {
+    }
+
+    /**
+     * Apply the transport specific settings to a server bootstrap.
+     *
+     * @param bootstrap the server bootstrap
+     * @param transportTuning the settings
+     */
+    default void configure(ServerBootstrap bootstrap, TransportTuning transportTuning) {
+    }
+
+    /**
+     * Apply the transport specific settings to a client bootstrap.
+     *
+     * @param bootstrap the client bootstrap
+     * @param transportTuning the settings
+     */
+    default void configure(Bootstrap bootstrap, TransportTuning transportTuning) {
+    }
 }
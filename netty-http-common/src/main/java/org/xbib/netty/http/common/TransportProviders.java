@@ -0,0 +1,55 @@
+package org.xbib.netty.http.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The transport providers found by the service loader. The service loader runs once per JVM,
+ * all clients and servers share the provider instances. The providers are ordered by their priority,
+ * and by their class name if the priorities are equal, so the order does not depend on the class path.
+ */
+public final class TransportProviders {
+
+    private static final List<TransportProvider> transportProviders = load();
+
+    private TransportProviders() {
+    }
+
+    /**
+     * Returns all transport providers.
+     *
+     * @return the transport providers, the highest priority first
+     */
+    public static List<TransportProvider> getTransportProviders() {
+        return transportProviders;
+    }
+
+    /**
+     * Find a transport provider by name.
+     *
+     * @param transportProviderName the class name of the transport provider, or null for the provider with the
+     *                              highest priority
+     * @return the transport provider, or null if there is no such provider
+     */
+    public static TransportProvider find(String transportProviderName) {
+        for (TransportProvider transportProvider : transportProviders) {
+            if (transportProviderName == null || transportProviderName.equals(transportProvider.getClass().getName())) {
+                return transportProvider;
+            }
+        }
+        return null;
+    }
+
+    private static List<TransportProvider> load() {
+        List<TransportProvider> list = new ArrayList<>();
+        for (TransportProvider transportProvider : ServiceLoader.load(TransportProvider.class)) {
+            list.add(transportProvider);
+        }
+        list.sort(Comparator.comparingInt(TransportProvider::getPriority).reversed()
+                .thenComparing(transportProvider -> transportProvider.getClass().getName()));
+        return Collections.unmodifiableList(list);
+    }
+}
@@ -0,0 +1,140 @@
+package org.xbib.netty.http.common;
+
+/**
+ * Socket settings which are specific to a native transport. A {@link TransportProvider} applies
+ * the settings it supports and ignores the others. By default, all settings are off and the
+ * defaults of the operating system apply.
+ */
+public class TransportTuning {
+
+    private int tcpFastOpen;
+
+    private boolean tcpFastOpenConnect;
+
+    private int tcpDeferAcceptSeconds;
+
+    private boolean tcpQuickAck;
+
+    private int busyPollMicros;
+
+    private long tcpNotSentLowAt;
+
+    private Boolean edgeTriggered;
+
+    /**
+     * Enable TCP_FASTOPEN on server sockets.
+     *
+     * @param tcpFastOpen the length of the queue of pending fast open requests, or 0 to disable
+     * @return this tuning
+     */
+    public TransportTuning setTcpFastOpen(int tcpFastOpen) {
+        this.tcpFastOpen = tcpFastOpen;
+        return this;
+    }
+
+    public int getTcpFastOpen() {
+        return tcpFastOpen;
+    }
+
+    /**
+     * Enable TCP_FASTOPEN_CONNECT on client sockets, so request data is sent with the SYN
+     * to servers which support TCP fast open.
+     *
+     * @param tcpFastOpenConnect true to enable
+     * @return this tuning
+     */
+    public TransportTuning setTcpFastOpenConnect(boolean tcpFastOpenConnect) {
+        this.tcpFastOpenConnect = tcpFastOpenConnect;
+        return this;
+    }
+
+    public boolean isTcpFastOpenConnect() {
+        return tcpFastOpenConnect;
+    }
+
+    /**
+     * Enable TCP_DEFER_ACCEPT on server sockets, so connections are accepted when data arrives.
+     *
+     * @param tcpDeferAcceptSeconds the seconds to wait for data, or 0 to disable
+     * @return this tuning
+     */
+    public TransportTuning setTcpDeferAcceptSeconds(int tcpDeferAcceptSeconds) {
+        this.tcpDeferAcceptSeconds = tcpDeferAcceptSeconds;
+        return this;
+    }
+
+    public int getTcpDeferAcceptSeconds() {
+        return tcpDeferAcceptSeconds;
+    }
+
+    /**
+     * Enable TCP_QUICKACK, so acknowledgements are not delayed.
+     *
+     * @param tcpQuickAck true to enable
+     * @return this tuning
+     */
+    public TransportTuning setTcpQuickAck(boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+        return this;
+    }
+
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    /**
+     * Enable SO_BUSY_POLL, so the kernel polls the device queue when a socket is read.
+     *
+     * @param busyPollMicros the time to busy poll in microseconds, or 0 to disable
+     * @return this tuning
+     */
+    public TransportTuning setBusyPollMicros(int busyPollMicros) {
+        this.busyPollMicros = busyPollMicros;
+        return this;
+    }
+
+    public int getBusyPollMicros() {
+        return busyPollMicros;
+    }
+
+    /**
+     * Set TCP_NOTSENT_LOWAT, which limits the unsent bytes in the socket send buffer.
+     *
+     * @param tcpNotSentLowAt the limit in bytes, or 0 for the default of the operating system
+     * @return this tuning
+     */
+    public TransportTuning setTcpNotSentLowAt(long tcpNotSentLowAt) {
+        this.tcpNotSentLowAt = tcpNotSentLowAt;
+        return this;
+    }
+
+    public long getTcpNotSentLowAt() {
+        return tcpNotSentLowAt;
+    }
+
+    /**
+     * Use edge-triggered or level-triggered mode for transports with a choice.
+     *
+     * @param edgeTriggered true for edge-triggered, false for level-triggered, null for the default of the transport
+     * @return this tuning
+     */
+    public TransportTuning setEdgeTriggered(Boolean edgeTriggered) {
+        this.edgeTriggered = edgeTriggered;
+        return this;
+    }
+
+    public Boolean getEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportTuning[tcpFastOpen=" + tcpFastOpen +
+                ",tcpFastOpenConnect=" + tcpFastOpenConnect +
+                ",tcpDeferAcceptSeconds=" + tcpDeferAcceptSeconds +
+                ",tcpQuickAck=" + tcpQuickAck +
+                ",busyPollMicros=" + busyPollMicros +
+                ",tcpNotSentLowAt=" + tcpNotSentLowAt +
+                ",edgeTriggered=" + edgeTriggered + "]";
+    }
+}
@@ -0,0 +1,131 @@
+package org.xbib.netty.http.common;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.util.NettyRuntime;
+import io.netty.util.internal.PlatformDependent;
+import java.util.Locale;
+
+/**
+ * Profiles for the buffer allocation and the event loops of servers and clients.
+ *
+ * The use of Unsafe and of the selected keys optimization of Netty are JVM wide settings, which Netty reads
+ * when its classes are initialized. They are taken from the profile named by the system property
+ * {@code xbib.netty.http.tuningprofile}, see {@link #configureSystemProperties()}. All other settings
+ * are applied to each server or client with the profile of its configuration.
+ */
+public enum TuningProfile {
+
+    /**
+     * Netty without Unsafe and without the selected keys optimization, with the default allocator
+     * and the default settings of the event loops. This is the default profile.
+     */
+    SAFE(0, 0, 0, 0, 0, 50),
+
+    /**
+     * Pooled direct buffers with 4 MB chunks, large receive buffers, many reads per event loop turn,
+     * and more time for I/O than for tasks in the event loops.
+     */
+    THROUGHPUT(9, 1024, 65536, 1024 * 1024, 32, 70),
+
+    /**
+     * Pooled direct buffers with 1 MB chunks, small receive buffers, and few reads per event loop turn,
+     * so a busy connection does not delay the other connections of an event loop.
+     */
+    LOW_LATENCY(7, 64, 2048, 65536, 4, 50);
+
+    private static final int PAGE_SIZE = 8192;
+
+    private final int maxOrder;
+
+    private final int minimumReceiveBufferSize;
+
+    private final int initialReceiveBufferSize;
+
+    private final int maximumReceiveBufferSize;
+
+    private final int maxMessagesPerRead;
+
+    private final int ioRatio;
+
+    TuningProfile(int maxOrder,
+                  int minimumReceiveBufferSize,
+                  int initialReceiveBufferSize,
+                  int maximumReceiveBufferSize,
+                  int maxMessagesPerRead,
+                  int ioRatio) {
+        this.maxOrder = maxOrder;
+        this.minimumReceiveBufferSize = minimumReceiveBufferSize;
+        this.initialReceiveBufferSize = initialReceiveBufferSize;
+        this.maximumReceiveBufferSize = maximumReceiveBufferSize;
+        this.maxMessagesPerRead = maxMessagesPerRead;
+        this.ioRatio = ioRatio;
+    }
+
+    /**
+     * Change the JVM wide Netty defaults to the profile named by the system property
+     * {@code xbib.netty.http.tuningprofile}, unless they are set on the command line. The profile
+     * {@link #SAFE} disables Unsafe and the selected keys optimization, the other profiles keep the Netty defaults.
+     * This must be called before Netty classes are initialized.
+     */
+    public static void configureSystemProperties() {
+        TuningProfile tuningProfile = TuningProfile.valueOf(System.getProperty("xbib.netty.http.tuningprofile",
+                SAFE.name()).toUpperCase(Locale.ROOT));
+        if (tuningProfile == SAFE) {
+            if (System.getProperty("io.netty.noUnsafe") == null) {
+                System.setProperty("io.netty.noUnsafe", Boolean.toString(true));
+            }
+            if (System.getProperty("io.netty.noKeySetOptimization") == null) {
+                System.setProperty("io.netty.noKeySetOptimization", Boolean.toString(true));
+            }
+        }
+    }
+
+    /**
+     * Returns a new buffer allocator of this profile, for a server or a client. The pooled allocators have
+     * two arenas per core, as long as the arenas take no more than half of the memory, where each arena is
+     * assumed to hold three chunks, as in the defaults of Netty. Heap arenas are sized from the maximum heap
+     * memory, direct arenas from the maximum direct memory.
+     *
+     * @return the buffer allocator
+     */
+    public ByteBufAllocator newByteBufAllocator() {
+        if (this == SAFE) {
+            return ByteBufAllocator.DEFAULT;
+        }
+        long chunkSize = (long) PAGE_SIZE << maxOrder;
+        int heapArenas = arenas(Runtime.getRuntime().maxMemory(), chunkSize);
+        int directArenas = arenas(PlatformDependent.maxDirectMemory(), chunkSize);
+        return new PooledByteBufAllocator(true, heapArenas, directArenas, PAGE_SIZE, maxOrder,
+                PooledByteBufAllocator.defaultSmallCacheSize(), PooledByteBufAllocator.defaultNormalCacheSize(),
+                true);
+    }
+
+    private static int arenas(long memory, long chunkSize) {
+        return (int) Math.max(1L, Math.min(2L * NettyRuntime.availableProcessors(), memory / chunkSize / 2 / 3));
+    }
+
+    /**
+     * Returns a new receive buffer allocator for a channel.
+     *
+     * @return the receive buffer allocator, or null for the default of the channel
+     */
+    public RecvByteBufAllocator newRecvByteBufAllocator() {
+        if (this == SAFE) {
+            return null;
+        }
+        return new AdaptiveRecvByteBufAllocator(minimumReceiveBufferSize, initialReceiveBufferSize,
+                maximumReceiveBufferSize).maxMessagesPerRead(maxMessagesPerRead);
+    }
+
+    /**
+     * The percentage of time which the event loops spend on I/O, compared to the time for tasks.
+     *
+     * @return the I/O ratio
+     */
+    public int getIoRatio() {
+        return ioRatio;
+    }
+}
@@ -1,6 +1,33 @@
 package org.xbib.netty.http.common.mime;
 
+import io.netty.buffer.ByteBuf;
+import java.util.Map;
+
 public interface MimeMultipartListener {
 
    void handle(String type, String subtype, MimeMultipart part);
+
+   /**
+    * Called when the headers of a part are parsed. A listener which accepts the part receives the body
+    * in pieces by {@link #content(ByteBuf, boolean)} as it arrives, instead of a complete part by
+    * {@link #handle(String, String, MimeMultipart)}.
+    *
+    * @param type the type of the multipart message
+    * @param subtype the sub type of the multipart message
+    * @param headers the headers of the part
+    * @return true if the body of the part should be passed in pieces
+    */
+   default boolean startPart(String type, String subtype, Map<String, String> headers) {
+      return false;
+   }
+
+   /**
+    * A piece of the body of an accepted part. The listener is responsible for releasing the content.
+    *
+    * @param content the content
+    * @param last true if this is the last piece of the part
+    */
+   default void content(ByteBuf content, boolean last) {
+      content.release();
+   }
 }
@@ -1,17 +1,34 @@
 package org.xbib.netty.http.common.mime;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ByteProcessor;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 /**
  * A MIME multi part message parser (RFC 2046).
+ *
+ * The parser is incremental. Content can be offered in chunks as they arrive, parts are emitted
+ * as soon as their closing delimiter is found. Part bodies are retained slices of the offered
+ * chunks, no content is copied, and the listener is responsible for releasing them.
+ * A listener which accepts a part in {@link MimeMultipartListener#startPart(String, String, Map)}
+ * receives the body in pieces as the chunks arrive, so large parts are not collected in memory.
+ * The first boundary is only recognized at the start of the message or at the start of a line.
+ * Delimiters are located by a Boyer-Moore-Horspool search, so direct buffers are never
+ * required to have a backing array.
  */
 public class MimeMultipartParser {
 
+    private static final int MAX_HEADER_LINE_LENGTH = 8192;
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
     private final String contentType;
 
     private final ByteBuf payload;
@@ -22,9 +39,36 @@ public class MimeMultipartParser {
 
     private String subType;
 
+    private Delimiter dashBoundary;
+
+    private Delimiter delimiter;
+
+    private CompositeByteBuf cumulation;
+
+    private State state;
+
+    private Map<String, String> headers;
+
+    private int searchOffset;
+
+    private boolean atStart;
+
+    private boolean streaming;
+
+    /**
+     * Create a parser for incremental parsing by {@link #offer(ByteBuf, MimeMultipartListener)}.
+     *
+     * @param contentType the content type with the boundary parameter
+     */
+    public MimeMultipartParser(String contentType) {
+        this(contentType, null);
+    }
+
     public MimeMultipartParser(String contentType, ByteBuf payload) {
         this.contentType = contentType;
         this.payload = payload;
+        this.state = State.PREAMBLE;
+        this.atStart = true;
         if (contentType != null) {
             int pos = contentType.indexOf(';');
             this.type = pos >= 0 ? contentType.substring(0, pos) : contentType;
@@ -33,6 +77,17 @@ public class MimeMultipartParser {
             Map<String, String> m = parseHeaderLine(contentType);
             this.boundary = m.containsKey("boundary") ?
                     m.get("boundary").getBytes(StandardCharsets.US_ASCII) : null;
+            if (boundary != null) {
+                byte[] b = new byte[boundary.length + 2];
+                b[0] = '-';
+                b[1] = '-';
+                System.arraycopy(boundary, 0, b, 2, boundary.length);
+                this.dashBoundary = new Delimiter(b);
+                byte[] d = new byte[b.length + 2];
+                System.arraycopy(CRLF, 0, d, 0, 2);
+                System.arraycopy(b, 0, d, 2, b.length);
+                this.delimiter = new Delimiter(d);
+            }
         }
     }
 
@@ -44,87 +99,223 @@ public class MimeMultipartParser {
         return subType;
     }
 
+    /**
+     * Parse the complete payload given at construction time.
+     *
+     * @param listener the listener for the parts
+     * @throws IOException if the payload is not a complete multipart message
+     */
     public void parse(MimeMultipartListener listener) throws IOException {
-        if (boundary == null) {
+        if (boundary == null || payload == null) {
             return;
         }
-        // Assumption: header is in 8 bytes (ISO-8859-1). Convert to Unicode.
-        StringBuilder sb = new StringBuilder();
-        boolean inHeader = true;
-        boolean inBody = false;
-        Integer start = null;
-        Map<String, String> headers = new LinkedHashMap<>();
-        int eol = 0;
-        byte[] payloadBytes = payload.array();
-        for (int i = 0; i < payloadBytes.length; i++) {
-            byte b = payloadBytes[i];
-            if (inHeader) {
-                switch (b) {
-                    case '\r':
-                        break;
-                    case '\n':
-                        if (sb.length() > 0) {
-                            String[] s = sb.toString().split(":");
-                            String k = s[0];
-                            String v = s[1];
-                            if (!k.startsWith("--")) {
-                                headers.put(k.toLowerCase(Locale.ROOT), v.trim());
-                            }
-                            eol = 0;
-                            sb.setLength(0);
-                        } else {
-                            eol++;
-                            if (eol >= 1) {
-                                eol = 0;
-                                sb.setLength(0);
-                                inHeader = false;
-                                inBody = true;
-                            }
-                        }
-                        break;
-                    default:
-                        eol = 0;
-                        sb.append(b);
-                        break;
+        try {
+            offer(payload.retainedDuplicate(), listener);
+        } finally {
+            releaseCumulation();
+        }
+        finish();
+    }
+
+    /**
+     * Offer a chunk of the multipart message. The parser takes over the reference of the chunk.
+     *
+     * @param chunk the chunk
+     * @param listener the listener for the parts which are completed by this chunk
+     * @throws IOException if the message is malformed
+     */
+    public void offer(ByteBuf chunk, MimeMultipartListener listener) throws IOException {
+        if (boundary == null || state == State.EPILOGUE) {
+            chunk.release();
+            return;
+        }
+        if (cumulation == null) {
+            cumulation = chunk.alloc().compositeBuffer(Integer.MAX_VALUE);
+        }
+        cumulation.addComponent(true, chunk);
+        try {
+            while (step(listener)) {
+                // continue as long as there is progress
+            }
+        } finally {
+            if (state == State.EPILOGUE) {
+                cumulation.release();
+                cumulation = null;
+            } else {
+                cumulation.discardReadComponents();
+            }
+        }
+    }
+
+    /**
+     * Whether the closing delimiter has been found.
+     *
+     * @return true if the multipart message is complete
+     */
+    public boolean isComplete() {
+        return state == State.EPILOGUE;
+    }
+
+    /**
+     * Signal the end of the multipart message and release all pending content.
+     *
+     * @throws IOException if the closing delimiter has not been found
+     */
+    public void finish() throws IOException {
+        releaseCumulation();
+        if (boundary != null && state != State.EPILOGUE) {
+            throw new IOException("boundary not found");
+        }
+    }
+
+    private void releaseCumulation() {
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+
+    private boolean step(MimeMultipartListener listener) throws IOException {
+        switch (state) {
+            case PREAMBLE: {
+                if (atStart) {
+                    // without preamble, the message starts with the dash boundary
+                    if (cumulation.readableBytes() < dashBoundary.length()) {
+                        return false;
+                    }
+                    atStart = false;
+                    if (dashBoundary.matches(cumulation, cumulation.readerIndex())) {
+                        cumulation.readerIndex(cumulation.readerIndex() + dashBoundary.length());
+                        state = State.DELIMITER;
+                    }
+                    return true;
                 }
+                // otherwise the dash boundary must start a line
+                int i = delimiter.indexOf(cumulation, cumulation.readerIndex() + searchOffset,
+                        cumulation.writerIndex());
+                if (i < 0) {
+                    skipTo(cumulation.writerIndex() - delimiter.length() + 1);
+                    return false;
+                }
+                cumulation.readerIndex(i + delimiter.length());
+                searchOffset = 0;
+                state = State.DELIMITER;
+                return true;
             }
-            if (inBody) {
-                int len = headers.containsKey("content-length") ?
-                        Integer.parseInt(headers.get("content-length")) : -1;
-                if (len > 0) {
-                    inBody = false;
-                    inHeader = true;
-                } else {
-                    if (b != '\r' && b != '\n') {
-                        start = i;
+            case DELIMITER: {
+                if (cumulation.readableBytes() < 2) {
+                    return false;
+                }
+                int r = cumulation.readerIndex();
+                if (cumulation.getByte(r) == '-' && cumulation.getByte(r + 1) == '-') {
+                    state = State.EPILOGUE;
+                    return false;
+                }
+                // skip transport padding up to the end of the delimiter line
+                int lf = cumulation.forEachByte(ByteProcessor.FIND_LF);
+                if (lf < 0) {
+                    checkLineLength();
+                    return false;
+                }
+                cumulation.readerIndex(lf + 1);
+                headers = new LinkedHashMap<>();
+                state = State.HEADERS;
+                return true;
+            }
+            case HEADERS: {
+                int lf = cumulation.forEachByte(ByteProcessor.FIND_LF);
+                if (lf < 0) {
+                    checkLineLength();
+                    return false;
+                }
+                int r = cumulation.readerIndex();
+                int len = lf > r && cumulation.getByte(lf - 1) == '\r' ? lf - 1 - r : lf - r;
+                cumulation.readerIndex(lf + 1);
+                if (len == 0) {
+                    Map<String, String> m = new LinkedHashMap<>();
+                    for (Map.Entry<String, String> entry : headers.entrySet()) {
+                        m.putAll(parseHeaderLine(entry.getValue()));
                     }
-                    if (start != null) {
-                        i = indexOf(payloadBytes, boundary, start, payloadBytes.length);
-                        if (i == -1) {
-                            throw new IOException("boundary not found");
-                        }
-                        int l = i - start;
-                        if (l > 4) {
-                            l = l - 4;
-                        }
-                        //BytesReference body = new BytesArray(payloadBytes, start, l)
-                        ByteBuf body = payload.retainedSlice(start, l);
-                        Map<String, String> m = new LinkedHashMap<>();
-                        for (Map.Entry<String, String> entry : headers.entrySet()) {
-                            m.putAll(parseHeaderLine(entry.getValue()));
-                        }
-                        headers.putAll(m);
-                        if (listener != null) {
-                            listener.handle(type, subType, new MimePart(headers, body));
+                    headers.putAll(m);
+                    searchOffset = 0;
+                    streaming = listener != null && listener.startPart(type, subType, headers);
+                    state = State.BODY;
+                    return true;
+                }
+                // header lines are 8 bit (ISO-8859-1)
+                String line = cumulation.toString(r, len, StandardCharsets.ISO_8859_1);
+                int pos = line.indexOf(':');
+                if (pos < 0) {
+                    throw new IOException("malformed header line: " + line);
+                }
+                headers.put(line.substring(0, pos).trim().toLowerCase(Locale.ROOT), line.substring(pos + 1).trim());
+                return true;
+            }
+            case BODY: {
+                int r = cumulation.readerIndex();
+                int i = delimiter.indexOf(cumulation, r + searchOffset, cumulation.writerIndex());
+                if (i < 0) {
+                    // the tail may be the beginning of the delimiter
+                    int end = cumulation.writerIndex() - delimiter.length() + 1;
+                    if (streaming) {
+                        if (end > r) {
+                            ByteBuf content = retainedBody(r, end - r);
+                            cumulation.readerIndex(end);
+                            searchOffset = 0;
+                            listener.content(content, false);
                         }
-                        inBody = false;
-                        inHeader = true;
-                        headers = new LinkedHashMap<>();
-                        start = null;
-                        eol = -1;
+                    } else {
+                        searchOffset = Math.max(0, end - r);
                     }
+                    return false;
                 }
+                ByteBuf body = retainedBody(r, i - r);
+                cumulation.readerIndex(i + delimiter.length());
+                searchOffset = 0;
+                state = State.DELIMITER;
+                Map<String, String> partHeaders = headers;
+                headers = null;
+                if (streaming) {
+                    streaming = false;
+                    listener.content(body, true);
+                } else if (listener != null) {
+                    listener.handle(type, subType, new MimePart(partHeaders, body));
+                } else {
+                    body.release();
+                }
+                return true;
             }
+            default:
+                return false;
+        }
+    }
+
+    private ByteBuf retainedBody(int index, int length) {
+        if (length == 0) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        // slices of the components survive the discarding of read components in the cumulation
+        List<ByteBuf> buffers = cumulation.decompose(index, length);
+        if (buffers.size() == 1) {
+            return buffers.get(0).retain();
+        }
+        ByteBuf[] array = new ByteBuf[buffers.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = buffers.get(i).retain();
+        }
+        return Unpooled.wrappedBuffer(array.length, array);
+    }
+
+    private void skipTo(int index) {
+        if (index > cumulation.readerIndex()) {
+            cumulation.readerIndex(index);
+        }
+        searchOffset = 0;
+    }
+
+    private void checkLineLength() throws IOException {
+        if (cumulation.readableBytes() > MAX_HEADER_LINE_LENGTH) {
+            throw new IOException("header line too long");
         }
     }
 
@@ -205,19 +396,58 @@ public class MimeMultipartParser {
         return params;
     }
 
-    private static int indexOf(byte[] array, byte[] target, int start, int end) {
-        if (target.length == 0) {
-            return 0;
+    private enum State {
+        PREAMBLE, DELIMITER, HEADERS, BODY, EPILOGUE
+    }
+
+    /**
+     * A delimiter with a precomputed Boyer-Moore-Horspool shift table.
+     */
+    private static class Delimiter {
+
+        private final byte[] pattern;
+
+        private final int[] shift;
+
+        Delimiter(byte[] pattern) {
+            this.pattern = pattern;
+            this.shift = new int[256];
+            int m = pattern.length;
+            for (int i = 0; i < shift.length; i++) {
+                shift[i] = m;
+            }
+            for (int i = 0; i < m - 1; i++) {
+                shift[pattern[i] & 0xff] = m - 1 - i;
+            }
+        }
+
+        int length() {
+            return pattern.length;
+        }
+
+        boolean matches(ByteBuf byteBuf, int index) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (byteBuf.getByte(index + j) != pattern[j]) {
+                    return false;
+                }
+            }
+            return true;
         }
-        outer:
-        for (int i = start; i < end - target.length + 1; i++) {
-            for (int j = 0; j < target.length; j++) {
-                if (array[i + j] != target[j]) {
-                    continue outer;
+
+        int indexOf(ByteBuf byteBuf, int from, int to) {
+            int m = pattern.length;
+            int i = from;
+            while (i <= to - m) {
+                int j = m - 1;
+                while (j >= 0 && byteBuf.getByte(i + j) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
                 }
+                i += shift[byteBuf.getByte(i + m - 1) & 0xff];
             }
-            return i;
+            return -1;
         }
-        return -1;
     }
 }
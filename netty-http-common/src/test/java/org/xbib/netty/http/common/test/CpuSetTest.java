@@ -0,0 +1,28 @@
+package org.xbib.netty.http.common.test;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.netty.http.common.CpuSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CpuSetTest {
+
+    @Test
+    void testCpuList() {
+        CpuSet cpuSet = CpuSet.parse("0-3,8, 10-11\n");
+        assertEquals(7, cpuSet.size());
+        assertEquals(0, cpuSet.get(0));
+        assertEquals(8, cpuSet.get(4));
+        assertEquals(11, cpuSet.get(6));
+        // threads are assigned to the CPUs in turn
+        assertEquals(0, cpuSet.get(7));
+        assertEquals("0-3,8,10-11", cpuSet.toString());
+    }
+
+    @Test
+    void testInvalidCpuList() {
+        assertThrows(IllegalArgumentException.class, () -> CpuSet.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> CpuSet.parse("3-1"));
+        assertThrows(IllegalArgumentException.class, () -> CpuSet.parse("a"));
+    }
+}
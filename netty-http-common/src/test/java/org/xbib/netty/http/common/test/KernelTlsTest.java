@@ -0,0 +1,16 @@
+package org.xbib.netty.http.common.test;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.netty.http.common.KernelTls;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class KernelTlsTest {
+
+    @Test
+    void testFallback() {
+        // Netty 4.1 can not hand TLS records to the kernel, the probe names the missing requirement
+        assertFalse(KernelTls.isAvailable());
+        assertNotNull(KernelTls.unavailabilityCause());
+    }
+}
@@ -0,0 +1,164 @@
+package org.xbib.netty.http.common.test.mime;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.xbib.netty.http.common.mime.MimeMultipart;
+import org.xbib.netty.http.common.mime.MimeMultipartListener;
+import org.xbib.netty.http.common.mime.MimeMultipartParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MimeMultipartParserTest {
+
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    private static final String MESSAGE = "preamble\r\n" +
+            "------WebKitFormBoundary7MA4YWxkTrZu0gW\r\n" +
+            "Content-Disposition: form-data; name=\"text\"\r\n" +
+            "\r\n" +
+            "Hello World\r\n" +
+            "------WebKitFormBoundary7MA4YWxkTrZu0gW\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "line 1\r\nline 2 ------WebKitFormBoundary\r\n" +
+            "------WebKitFormBoundary7MA4YWxkTrZu0gW--\r\n" +
+            "epilogue";
+
+    @Test
+    void testParseDirectBuffer() throws IOException {
+        ByteBuf payload = PooledByteBufAllocator.DEFAULT.directBuffer();
+        payload.writeCharSequence(MESSAGE, StandardCharsets.ISO_8859_1);
+        List<MimeMultipart> parts = new ArrayList<>();
+        MimeMultipartParser parser = new MimeMultipartParser(CONTENT_TYPE, payload);
+        parser.parse((type, subtype, part) -> parts.add(part));
+        assertEquals("multipart/form-data", parser.type());
+        assertParts(parts);
+        assertTrue(payload.release());
+    }
+
+    @Test
+    void testParseChunks() throws IOException {
+        byte[] bytes = MESSAGE.getBytes(StandardCharsets.ISO_8859_1);
+        for (int chunkSize = 1; chunkSize < 64; chunkSize++) {
+            List<MimeMultipart> parts = new ArrayList<>();
+            MimeMultipartParser parser = new MimeMultipartParser(CONTENT_TYPE);
+            for (int i = 0; i < bytes.length; i += chunkSize) {
+                ByteBuf chunk = PooledByteBufAllocator.DEFAULT.directBuffer();
+                chunk.writeBytes(bytes, i, Math.min(chunkSize, bytes.length - i));
+                parser.offer(chunk, (type, subtype, part) -> parts.add(part));
+            }
+            assertTrue(parser.isComplete());
+            parser.finish();
+            assertParts(parts);
+        }
+    }
+
+    @Test
+    void testMissingClosingDelimiter() throws IOException {
+        MimeMultipartParser parser = new MimeMultipartParser(CONTENT_TYPE);
+        ByteBuf chunk = PooledByteBufAllocator.DEFAULT.directBuffer();
+        chunk.writeCharSequence(MESSAGE.substring(0, 120), StandardCharsets.ISO_8859_1);
+        List<MimeMultipart> parts = new ArrayList<>();
+        parser.offer(chunk, (type, subtype, part) -> parts.add(part));
+        assertFalse(parser.isComplete());
+        assertThrows(IOException.class, parser::finish);
+        parts.forEach(part -> part.body().release());
+        assertEquals(0, chunk.refCnt());
+    }
+
+    @Test
+    void testStreamParts() throws IOException {
+        byte[] bytes = MESSAGE.getBytes(StandardCharsets.ISO_8859_1);
+        for (int chunkSize = 1; chunkSize < 64; chunkSize++) {
+            List<String> bodies = new ArrayList<>();
+            StringBuilder sb = new StringBuilder();
+            int[] maxPiece = new int[1];
+            MimeMultipartListener listener = new MimeMultipartListener() {
+                @Override
+                public void handle(String type, String subtype, MimeMultipart part) {
+                    part.body().release();
+                    throw new AssertionError("accepted parts must be streamed");
+                }
+
+                @Override
+                public boolean startPart(String type, String subtype, Map<String, String> headers) {
+                    return true;
+                }
+
+                @Override
+                public void content(ByteBuf content, boolean last) {
+                    maxPiece[0] = Math.max(maxPiece[0], content.readableBytes());
+                    sb.append(content.toString(StandardCharsets.UTF_8));
+                    content.release();
+                    if (last) {
+                        bodies.add(sb.toString());
+                        sb.setLength(0);
+                    }
+                }
+            };
+            MimeMultipartParser parser = new MimeMultipartParser(CONTENT_TYPE);
+            for (int i = 0; i < bytes.length; i += chunkSize) {
+                ByteBuf chunk = PooledByteBufAllocator.DEFAULT.directBuffer();
+                chunk.writeBytes(bytes, i, Math.min(chunkSize, bytes.length - i));
+                parser.offer(chunk, listener);
+            }
+            parser.finish();
+            assertEquals(List.of("Hello World", "line 1\r\nline 2 ------WebKitFormBoundary"), bodies);
+            // the body is handed over as it arrives, not collected
+            assertTrue(maxPiece[0] <= chunkSize + 44);
+        }
+    }
+
+    @Test
+    void testWithoutPreamble() throws IOException {
+        ByteBuf payload = PooledByteBufAllocator.DEFAULT.directBuffer();
+        payload.writeCharSequence(MESSAGE.substring(MESSAGE.indexOf("------")), StandardCharsets.ISO_8859_1);
+        List<MimeMultipart> parts = new ArrayList<>();
+        new MimeMultipartParser(CONTENT_TYPE, payload).parse((type, subtype, part) -> parts.add(part));
+        assertParts(parts);
+        assertTrue(payload.release());
+    }
+
+    @Test
+    void testBoundaryInsidePreambleLine() throws IOException {
+        ByteBuf payload = PooledByteBufAllocator.DEFAULT.directBuffer();
+        payload.writeCharSequence("text ------WebKitFormBoundary7MA4YWxkTrZu0gW\r\n" +
+                "Content-Disposition: form-data; name=\"ignored\"\r\n\r\nignored\r\n" + MESSAGE,
+                StandardCharsets.ISO_8859_1);
+        List<MimeMultipart> parts = new ArrayList<>();
+        new MimeMultipartParser(CONTENT_TYPE, payload).parse((type, subtype, part) -> parts.add(part));
+        assertParts(parts);
+        assertTrue(payload.release());
+    }
+
+    @Test
+    void testParseReleasesOnError() {
+        ByteBuf payload = PooledByteBufAllocator.DEFAULT.directBuffer();
+        payload.writeCharSequence(MESSAGE.replace("Content-Type: text/plain", "malformed"),
+                StandardCharsets.ISO_8859_1);
+        MimeMultipartParser parser = new MimeMultipartParser(CONTENT_TYPE, payload);
+        List<MimeMultipart> parts = new ArrayList<>();
+        assertThrows(IOException.class, () -> parser.parse((type, subtype, part) -> parts.add(part)));
+        parts.forEach(part -> part.body().release());
+        assertTrue(payload.release());
+    }
+
+    private static void assertParts(List<MimeMultipart> parts) {
+        assertEquals(2, parts.size());
+        assertEquals("text", parts.get(0).headers().get("name"));
+        assertEquals("Hello World", parts.get(0).body().toString(StandardCharsets.UTF_8));
+        assertEquals("a.txt", parts.get(1).headers().get("filename"));
+        assertEquals("text/plain", parts.get(1).headers().get("content-type"));
+        assertEquals("line 1\r\nline 2 ------WebKitFormBoundary", parts.get(1).body().toString(StandardCharsets.UTF_8));
+        parts.forEach(part -> part.body().release());
+    }
+}
@@ -1,13 +1,26 @@
 package org.xbib.netty.http.epoll;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import org.xbib.netty.http.common.TransportProvider;
+import org.xbib.netty.http.common.TransportTuning;
+import java.net.SocketAddress;
+import java.nio.file.Path;
 import java.util.concurrent.ThreadFactory;
 
 public class EpollTransportProvider implements TransportProvider {
@@ -26,4 +39,86 @@ public class EpollTransportProvider implements TransportProvider {
     public Class<? extends ServerSocketChannel> createServerSocketChannelClass() {
         return Epoll.isAvailable() ? EpollServerSocketChannel.class : null;
     }
+
+    @Override
+    public Class<? extends Channel> createDomainSocketChannelClass() {
+        return Epoll.isAvailable() ? EpollDomainSocketChannel.class : null;
+    }
+
+    @Override
+    public Class<? extends ServerChannel> createServerDomainSocketChannelClass() {
+        return Epoll.isAvailable() ? EpollServerDomainSocketChannel.class : null;
+    }
+
+    @Override
+    public SocketAddress createDomainSocketAddress(Path path) {
+        return Epoll.isAvailable() ? new DomainSocketAddress(path.toFile()) : null;
+    }
+
+    @Override
+    public ChannelOption<Boolean> getReusePortOption() {
+        return Epoll.isAvailable() ? EpollChannelOption.SO_REUSEPORT : null;
+    }
+
+    @Override
+    public int getPriority() {
+        return Epoll.isAvailable() ? 20 : 0;
+    }
+
+    @Override
+    public void setIoRatio(EventLoopGroup eventLoopGroup, int ioRatio) {
+        if (eventLoopGroup instanceof EpollEventLoopGroup) {
+            ((EpollEventLoopGroup) eventLoopGroup).setIoRatio(ioRatio);
+        }
+    }
+
+    @Override
+    public void configure(ServerBootstrap bootstrap, TransportTuning transportTuning) {
+        if (!Epoll.isAvailable() || transportTuning == null) {
+            return;
+        }
+        if (transportTuning.getTcpFastOpen() > 0) {
+            bootstrap.option(ChannelOption.TCP_FASTOPEN, transportTuning.getTcpFastOpen());
+        }
+        if (transportTuning.getTcpDeferAcceptSeconds() > 0) {
+            bootstrap.option(EpollChannelOption.TCP_DEFER_ACCEPT, transportTuning.getTcpDeferAcceptSeconds());
+        }
+        if (transportTuning.isTcpQuickAck()) {
+            bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, true);
+        }
+        if (transportTuning.getBusyPollMicros() > 0) {
+            bootstrap.childOption(EpollChannelOption.SO_BUSY_POLL, transportTuning.getBusyPollMicros());
+        }
+        if (transportTuning.getTcpNotSentLowAt() > 0L) {
+            bootstrap.childOption(EpollChannelOption.TCP_NOTSENT_LOWAT, transportTuning.getTcpNotSentLowAt());
+        }
+        if (transportTuning.getEdgeTriggered() != null) {
+            EpollMode epollMode = transportTuning.getEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, epollMode);
+            bootstrap.childOption(EpollChannelOption.EPOLL_MODE, epollMode);
+        }
+    }
+
+    @Override
+    public void configure(Bootstrap bootstrap, TransportTuning transportTuning) {
+        if (!Epoll.isAvailable() || transportTuning == null) {
+            return;
+        }
+        if (transportTuning.isTcpFastOpenConnect()) {
+            bootstrap.option(ChannelOption.TCP_FASTOPEN_CONNECT, true);
+        }
+        if (transportTuning.isTcpQuickAck()) {
+            bootstrap.option(EpollChannelOption.TCP_QUICKACK, true);
+        }
+        if (transportTuning.getBusyPollMicros() > 0) {
+            bootstrap.option(EpollChannelOption.SO_BUSY_POLL, transportTuning.getBusyPollMicros());
+        }
+        if (transportTuning.getTcpNotSentLowAt() > 0L) {
+            bootstrap.option(EpollChannelOption.TCP_NOTSENT_LOWAT, transportTuning.getTcpNotSentLowAt());
+        }
+        if (transportTuning.getEdgeTriggered() != null) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, transportTuning.getEdgeTriggered() ?
+                    EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+        }
+    }
 }
@@ -0,0 +1,9 @@
+module org.xbib.netty.http.iouring {
+    exports org.xbib.netty.http.iouring;
+    requires org.xbib.netty.http.common;
+    requires org.xbib.netty.http.epoll;
+    requires io.netty.transport;
+    requires io.netty.incubator.transport.classes.io_uring;
+    provides org.xbib.netty.http.common.TransportProvider with
+            org.xbib.netty.http.iouring.IOUringTransportProvider;
+}
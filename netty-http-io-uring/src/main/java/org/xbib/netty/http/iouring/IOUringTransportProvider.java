@@ -0,0 +1,140 @@
+package org.xbib.netty.http.iouring;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringChannelOption;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import org.xbib.netty.http.common.TransportProvider;
+import org.xbib.netty.http.common.TransportTuning;
+import org.xbib.netty.http.epoll.EpollTransportProvider;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The io_uring transport. If the kernel does not support io_uring, the epoll transport is used,
+ * and if epoll is not available either, the default NIO transport.
+ */
+public class IOUringTransportProvider implements TransportProvider {
+
+    private final TransportProvider fallback = new EpollTransportProvider();
+
+    @Override
+    public EventLoopGroup createEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        return IOUring.isAvailable() ? new IOUringEventLoopGroup(nThreads, threadFactory) :
+                fallback.createEventLoopGroup(nThreads, threadFactory);
+    }
+
+    @Override
+    public Class<? extends SocketChannel> createSocketChannelClass() {
+        return IOUring.isAvailable() ? IOUringSocketChannel.class : fallback.createSocketChannelClass();
+    }
+
+    @Override
+    public Class<? extends ServerSocketChannel> createServerSocketChannelClass() {
+        return IOUring.isAvailable() ? IOUringServerSocketChannel.class : fallback.createServerSocketChannelClass();
+    }
+
+    /**
+     * The io_uring transport has no unix domain sockets.
+     */
+    @Override
+    public Class<? extends Channel> createDomainSocketChannelClass() {
+        return IOUring.isAvailable() ? null : fallback.createDomainSocketChannelClass();
+    }
+
+    /**
+     * The io_uring transport has no unix domain sockets.
+     */
+    @Override
+    public Class<? extends ServerChannel> createServerDomainSocketChannelClass() {
+        return IOUring.isAvailable() ? null : fallback.createServerDomainSocketChannelClass();
+    }
+
+    @Override
+    public SocketAddress createDomainSocketAddress(Path path) {
+        return IOUring.isAvailable() ? null : fallback.createDomainSocketAddress(path);
+    }
+
+    /**
+     * The io_uring transport is incubating, so it has a lower priority than epoll and must be selected
+     * by name.
+     */
+    @Override
+    public int getPriority() {
+        return IOUring.isAvailable() ? 10 : 0;
+    }
+
+    /**
+     * The io_uring event loops have no I/O ratio, so it is only applied to the event loops of the fallback.
+     */
+    @Override
+    public void setIoRatio(EventLoopGroup eventLoopGroup, int ioRatio) {
+        if (!(eventLoopGroup instanceof IOUringEventLoopGroup)) {
+            fallback.setIoRatio(eventLoopGroup, ioRatio);
+        }
+    }
+
+    @Override
+    public ChannelOption<Boolean> getReusePortOption() {
+        return IOUring.isAvailable() ? IOUringChannelOption.SO_REUSEPORT : fallback.getReusePortOption();
+    }
+
+    /**
+     * Busy polling and the epoll mode do not apply to io_uring.
+     */
+    @Override
+    public void configure(ServerBootstrap bootstrap, TransportTuning transportTuning) {
+        if (!IOUring.isAvailable()) {
+            fallback.configure(bootstrap, transportTuning);
+            return;
+        }
+        if (transportTuning == null) {
+            return;
+        }
+        if (transportTuning.getTcpFastOpen() > 0) {
+            bootstrap.option(ChannelOption.TCP_FASTOPEN, transportTuning.getTcpFastOpen());
+        }
+        if (transportTuning.getTcpDeferAcceptSeconds() > 0) {
+            bootstrap.option(IOUringChannelOption.TCP_DEFER_ACCEPT, transportTuning.getTcpDeferAcceptSeconds());
+        }
+        if (transportTuning.isTcpQuickAck()) {
+            bootstrap.childOption(IOUringChannelOption.TCP_QUICKACK, true);
+        }
+        if (transportTuning.getTcpNotSentLowAt() > 0L) {
+            bootstrap.childOption(IOUringChannelOption.TCP_NOTSENT_LOWAT, transportTuning.getTcpNotSentLowAt());
+        }
+    }
+
+    /**
+     * Busy polling and the epoll mode do not apply to io_uring.
+     */
+    @Override
+    public void configure(Bootstrap bootstrap, TransportTuning transportTuning) {
+        if (!IOUring.isAvailable()) {
+            fallback.configure(bootstrap, transportTuning);
+            return;
+        }
+        if (transportTuning == null) {
+            return;
+        }
+        if (transportTuning.isTcpFastOpenConnect()) {
+            bootstrap.option(ChannelOption.TCP_FASTOPEN_CONNECT, true);
+        }
+        if (transportTuning.isTcpQuickAck()) {
+            bootstrap.option(IOUringChannelOption.TCP_QUICKACK, true);
+        }
+        if (transportTuning.getTcpNotSentLowAt() > 0L) {
+            bootstrap.option(IOUringChannelOption.TCP_NOTSENT_LOWAT, transportTuning.getTcpNotSentLowAt());
+        }
+    }
+}
@@ -26,4 +26,16 @@ public class KqueueTransportProvider implements TransportProvider {
     public Class<? extends ServerSocketChannel> createServerSocketChannelClass() {
         return KQueue.isAvailable() ? KQueueServerSocketChannel.class : null;
     }
+
+    @Override
+    public int getPriority() {
+        return KQueue.isAvailable() ? 20 : 0;
+    }
+
+    @Override
+    public void setIoRatio(EventLoopGroup eventLoopGroup, int ioRatio) {
+        if (eventLoopGroup instanceof KQueueEventLoopGroup) {
+            ((KQueueEventLoopGroup) eventLoopGroup).setIoRatio(ioRatio);
+        }
+    }
 }
@@ -2,6 +2,7 @@ package org.xbib.netty.http.server.api;
 
 import io.netty.handler.ssl.SslContext;
 import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpMethod;
 import java.io.IOException;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
@@ -18,6 +19,19 @@ public interface Domain<R extends EndpointResolver<?>> {
 
     Collection<? extends X509Certificate> getCertificateChain();
 
+    /**
+     * Find the endpoint for a request without handling the request. By default, a domain does not
+     * find endpoints in advance, and its requests are only resolved when they are handled.
+     *
+     * @param requestURI the request URI
+     * @param method the request method
+     * @param contentType the content type of the request, or null
+     * @return the endpoint, or null if no endpoint matches or the domain does not find endpoints in advance
+     */
+    default Endpoint<?> findEndpoint(String requestURI, HttpMethod method, String contentType) {
+        return null;
+    }
+
     void handle(ServerRequest.Builder serverRequestBuilder, ServerResponse.Builder serverResponseBuilder) throws IOException;
 
     void handleAfterError(ServerRequest.Builder serverRequestBuilder, ServerResponse.Builder serverResponseBuilder, Throwable throwable);
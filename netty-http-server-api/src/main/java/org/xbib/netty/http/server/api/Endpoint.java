@@ -1,5 +1,7 @@
 package org.xbib.netty.http.server.api;
 
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import java.io.IOException;
 
 public interface Endpoint<D extends EndpointDescriptor> {
@@ -10,6 +12,25 @@ public interface Endpoint<D extends EndpointDescriptor> {
 
     boolean matches(D descriptor);
 
+    /**
+     * The maximum request content length for this endpoint. By default, the server limit applies.
+     *
+     * @return the maximum content length, or 0 for the server default
+     */
+    default int getMaxContentLength() {
+        return 0;
+    }
+
+    /**
+     * Check a request head before the request body is received. By default, all requests are accepted.
+     *
+     * @param httpRequest the request head
+     * @return null if the request is accepted, or the status for rejecting the request
+     */
+    default HttpResponseStatus acceptHead(HttpRequest httpRequest) {
+        return null;
+    }
+
     ServerRequest resolveRequest(ServerRequest.Builder serverRequestBuilder,
                                  Domain<? extends EndpointResolver<? extends Endpoint<?>>> domain,
                                  EndpointResolver<? extends Endpoint<?>> endpointResolver);
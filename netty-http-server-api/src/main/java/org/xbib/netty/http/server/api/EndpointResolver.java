@@ -2,10 +2,20 @@ package org.xbib.netty.http.server.api;
 
 import org.xbib.netty.http.common.HttpMethod;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 public interface EndpointResolver<E extends Endpoint<?>> {
 
+    /**
+     * The endpoints of this resolver. By default, a resolver does not list its endpoints.
+     *
+     * @return the endpoints
+     */
+    default List<E> getEndpoints() {
+        return Collections.emptyList();
+    }
+
     List<E> matchingEndpointsFor(String path, HttpMethod method, String contentType);
 
     void handle(E matchingEndpoint,
@@ -0,0 +1,21 @@
+package org.xbib.netty.http.server.api;
+
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * A {@code HeaderFilter} inspects the head of a request before the request body is received.
+ * Header filters should be cheap and free of side effects, they may be evaluated more than once
+ * for a request.
+ */
+@FunctionalInterface
+public interface HeaderFilter {
+
+    /**
+     * Checks the request line and the headers of a request.
+     *
+     * @param httpRequest the request head, without content
+     * @return null if the request is accepted, or the status for rejecting the request
+     */
+    HttpResponseStatus handle(HttpRequest httpRequest);
+}
@@ -0,0 +1,17 @@
+package org.xbib.netty.http.server.api;
+
+/**
+ * What to do when the responses queued for a slow client exceed the response queue limit.
+ */
+public enum ResponseQueuePolicy {
+
+    /**
+     * Close the connection and discard the queued responses.
+     */
+    CLOSE,
+
+    /**
+     * Stop reading requests from the connection until the queued responses have been written.
+     */
+    PAUSE_READ
+}
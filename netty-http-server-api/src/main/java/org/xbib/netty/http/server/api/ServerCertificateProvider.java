@@ -1,6 +1,7 @@
 package org.xbib.netty.http.server.api;
 
 import java.io.InputStream;
+import java.util.List;
 
 public interface ServerCertificateProvider {
 
@@ -12,7 +13,18 @@ public interface ServerCertificateProvider {
     void prepare(String fqdn);
 
     /**
-     * Returns the generated RSA private key file in PEM format.
+     * Prepare one server certificate for several names. The first name is the subject of the certificate,
+     * all names are subject alternative names. Providers which do not support more names prepare
+     * a certificate for the first name.
+     *
+     * @param fqdns the full qualified domain names
+     */
+    default void prepare(List<String> fqdns) {
+        prepare(fqdns.get(0));
+    }
+
+    /**
+     * Returns the generated private key file in PEM format.
      * @return input stream of private key
      */
     InputStream getPrivateKey();
@@ -8,9 +8,14 @@ import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.CipherSuiteFilter;
 import io.netty.handler.ssl.OpenSsl;
 import io.netty.handler.ssl.SslProvider;
+import org.xbib.netty.http.common.CpuSet;
 import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.TlsRecordSizing;
+import org.xbib.netty.http.common.TransportTuning;
+import org.xbib.netty.http.common.TuningProfile;
 import org.xbib.netty.http.common.security.SecurityUtil;
 
+import java.nio.file.Path;
 import java.security.KeyStore;
 import java.security.Provider;
 import java.util.Collection;
@@ -32,8 +37,16 @@ public interface ServerConfig {
 
     int getBlockingQueueCount();
 
+    int getBlockingQueueHighWaterMark();
+
+    int getBlockingQueueLowWaterMark();
+
+    CpuSet getCpuSet();
+
     boolean isReuseAddr();
 
+    boolean isReusePort();
+
     boolean isTcpNodelay();
 
     int getTcpSendBufferSize();
@@ -48,6 +61,10 @@ public interface ServerConfig {
 
     int getIdleTimeoutMillis();
 
+    int getKeepAliveTimeoutMillis();
+
+    int getRequestTimeoutMillis();
+
     HttpAddress getAddress();
 
     int getMaxInitialLineLength();
@@ -58,12 +75,28 @@ public interface ServerConfig {
 
     int getMaxContentLength();
 
+    int getContentSpillThreshold();
+
+    Path getContentSpillDirectory();
+
     int getPipeliningCapacity();
 
     int getMaxCompositeBufferComponents();
 
     WriteBufferWaterMark getWriteBufferWaterMark();
 
+    TransportTuning getTransportTuning();
+
+    TlsRecordSizing getTlsRecordSizing();
+
+    boolean isKtls();
+
+    TuningProfile getTuningProfile();
+
+    int getResponseQueueLimit();
+
+    ResponseQueuePolicy getResponseQueuePolicy();
+
     boolean isCompressionEnabled();
 
     boolean isDecompressionEnabled();
@@ -88,6 +121,24 @@ public interface ServerConfig {
 
     CipherSuiteFilter getCipherSuiteFilter();
 
+    ServerKeyCertificateSource getKeyCertificateSource();
+
+    int getSslContextCacheSize();
+
+    long getSslContextIdleTimeoutMillis();
+
+    int getSessionCacheSize();
+
+    int getSessionTimeoutSeconds();
+
+    Path getSessionTicketKeyFile();
+
+    long getSessionTicketKeyRotationMillis();
+
+    long getEventLoopProbeIntervalMillis();
+
+    long getEventLoopStallThresholdMillis();
+
     boolean isAutoDomain();
 
     boolean isAcceptInvalidCertificates();
@@ -139,11 +190,31 @@ public interface ServerConfig {
          */
         int BLOCKING_QUEUE_COUNT = 0;
 
+        /**
+         * Reading from connections is not paused by the blocking thread pool queue.
+         */
+        int BLOCKING_QUEUE_HIGH_WATER_MARK = 0;
+
+        /**
+         * Resume reading from connections when the blocking thread pool queue is empty.
+         */
+        int BLOCKING_QUEUE_LOW_WATER_MARK = 0;
+
+        /**
+         * No CPU set, the threads are not bound to CPUs.
+         */
+        CpuSet CPU_SET = null;
+
         /**
          * Default for SO_REUSEADDR.
          */
         boolean SO_REUSEADDR = true;
 
+        /**
+         * Default for binding one server socket per parent thread with SO_REUSEPORT.
+         */
+        boolean SO_REUSEPORT = false;
+
         /**
          * Default for TCP_NODELAY.
          */
@@ -179,6 +250,16 @@ public interface ServerConfig {
          */
         int IDLE_TIMEOUT_MILLIS = 60000;
 
+        /**
+         * Default keep-alive timeout in milliseconds, for connections without requests in flight.
+         */
+        int KEEP_ALIVE_TIMEOUT_MILLIS = 15000;
+
+        /**
+         * Default request timeout in milliseconds. Disabled by default.
+         */
+        int REQUEST_TIMEOUT_MILLIS = 0;
+
         /**
          * Set HTTP chunk maximum size to 8k.
          * See {@link io.netty.handler.codec.http.HttpClientCodec}.
@@ -202,6 +283,17 @@ public interface ServerConfig {
          */
         int MAX_CONTENT_LENGTH = 256 * 1024 * 1024;
 
+        /**
+         * Request content larger than this threshold is written to a temporary file.
+         * Disabled by default, request content is kept in memory.
+         */
+        int CONTENT_SPILL_THRESHOLD = 0;
+
+        /**
+         * Directory for temporary request content files. Default is the system temporary directory.
+         */
+        Path CONTENT_SPILL_DIRECTORY = null;
+
         /**
          * HTTP/1 pipelining. Enabled by default.
          */
@@ -222,6 +314,21 @@ public interface ServerConfig {
          */
         WriteBufferWaterMark WRITE_BUFFER_WATER_MARK = WriteBufferWaterMark.DEFAULT;
 
+        /**
+         * Default tuning profile.
+         */
+        TuningProfile TUNING_PROFILE = TuningProfile.SAFE;
+
+        /**
+         * Responses of up to 4 MB per connection are queued while the connection is not writable.
+         */
+        int RESPONSE_QUEUE_LIMIT = 4 * 1024 * 1024;
+
+        /**
+         * Stop reading from a connection if the response queue limit is exceeded.
+         */
+        ResponseQueuePolicy RESPONSE_QUEUE_POLICY = ResponseQueuePolicy.PAUSE_READ;
+
         /**
          * Default for compression.
          */
@@ -270,5 +377,50 @@ public interface ServerConfig {
          */
         CipherSuiteFilter CIPHER_SUITE_FILTER = SecurityUtil.Defaults.DEFAULT_CIPHER_SUITE_FILTER;
 
+        /**
+         * At most 1024 SSL contexts of a key certificate source are kept.
+         */
+        int SSL_CONTEXT_CACHE_SIZE = 1024;
+
+        /**
+         * SSL contexts of a key certificate source are evicted after one hour without a handshake.
+         */
+        long SSL_CONTEXT_IDLE_TIMEOUT_MILLIS = 60L * 60L * 1000L;
+
+        /**
+         * The TLS session cache of an SSL context holds up to 20480 sessions.
+         */
+        int SESSION_CACHE_SIZE = 20480;
+
+        /**
+         * TLS sessions can be resumed for one hour.
+         */
+        int SESSION_TIMEOUT_SECONDS = 3600;
+
+        /**
+         * No session ticket key file, the SSL provider chooses the ticket keys.
+         */
+        Path SESSION_TICKET_KEY_FILE = null;
+
+        /**
+         * Session ticket keys are not rotated.
+         */
+        long SESSION_TICKET_KEY_ROTATION_MILLIS = 0L;
+
+        /**
+         * The event loops are not probed.
+         */
+        long EVENT_LOOP_PROBE_INTERVAL_MILLIS = 0L;
+
+        /**
+         * An event loop which does not run a probe within 100 milliseconds is stalled.
+         */
+        long EVENT_LOOP_STALL_THRESHOLD_MILLIS = 100L;
+
+        /**
+         * Do not request kernel TLS.
+         */
+        boolean KTLS = false;
+
     }
 }
@@ -0,0 +1,46 @@
+package org.xbib.netty.http.server.api;
+
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A source of private keys and certificate chains for server names which are not configured as domains.
+ * The server asks the source when a TLS client hello with an unknown server name arrives,
+ * and builds the SSL context from the result.
+ */
+@FunctionalInterface
+public interface ServerKeyCertificateSource {
+
+    /**
+     * Load the private key and the certificate chain for a server name. This method is never called
+     * from an event loop, it may block while keys are loaded.
+     *
+     * @param serverName the server name of the TLS client hello, in lower case
+     * @return the key and the certificate chain, or null if the server name is unknown to this source
+     * @throws Exception if loading fails
+     */
+    KeyCertificate load(String serverName) throws Exception;
+
+    class KeyCertificate {
+
+        private final PrivateKey privateKey;
+
+        private final Collection<X509Certificate> certificateChain;
+
+        public KeyCertificate(PrivateKey privateKey, Collection<? extends X509Certificate> certificateChain) {
+            this.privateKey = Objects.requireNonNull(privateKey);
+            this.certificateChain = new ArrayList<>(Objects.requireNonNull(certificateChain));
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        public Collection<X509Certificate> getCertificateChain() {
+            return certificateChain;
+        }
+    }
+}
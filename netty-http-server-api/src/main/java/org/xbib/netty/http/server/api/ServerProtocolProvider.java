@@ -1,12 +1,35 @@
 package org.xbib.netty.http.server.api;
 
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.Mapping;
+import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 
-public interface ServerProtocolProvider<C extends HttpChannelInitializer, T extends ServerTransport> {
+/**
+ * A protocol of the server. The provider creates the channel initializers of the listeners
+ * and the transport of each connection.
+ *
+ * @param <S> the server
+ */
+public interface ServerProtocolProvider<S> {
 
     boolean supportsMajorVersion(int majorVersion);
 
-    Class<C> initializerClass();
+    /**
+     * Create the channel initializer of a listener.
+     *
+     * @param server the server
+     * @param httpAddress the address of the listener
+     * @param domainNameMapping the SNI mapping of a secure listener, or null
+     * @return the channel initializer
+     */
+    HttpChannelInitializer createInitializer(S server, HttpAddress httpAddress, Mapping<String, SslContext> domainNameMapping);
 
-    Class<T> transportClass();
+    /**
+     * Create the transport of a connection.
+     *
+     * @param server the server
+     * @return the transport
+     */
+    ServerTransport createTransport(S server);
 }
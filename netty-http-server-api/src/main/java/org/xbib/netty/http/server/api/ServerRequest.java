@@ -7,8 +7,11 @@ import io.netty.handler.codec.http.HttpMethod;
 import org.xbib.net.URL;
 import org.xbib.netty.http.common.HttpParameters;
 import javax.net.ssl.SSLSession;
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -52,6 +55,22 @@ public interface ServerRequest {
 
     ByteBufInputStream getInputStream();
 
+    /**
+     * The temporary file holding the request content, if the content was written to disk
+     * because it exceeded the content spill threshold.
+     *
+     * @return the path of the file, or null if the content is held in memory
+     */
+    Path getContentPath();
+
+    /**
+     * Open a channel for reading the request content from the temporary file.
+     *
+     * @return a new file channel, or null if the content is held in memory
+     * @throws IOException if the file can not be opened
+     */
+    FileChannel getContentFileChannel() throws IOException;
+
     SSLSession getSession();
 
     URL getBaseURL();
@@ -6,8 +6,10 @@ import io.netty.handler.stream.ChunkedInput;
 import org.xbib.netty.http.common.cookie.Cookie;
 import java.io.Flushable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.util.concurrent.Flow;
 
 /**
  * HTTP server response.
@@ -24,6 +26,16 @@ public interface ServerResponse extends Flushable {
 
     ByteBufOutputStream newOutputStream();
 
+    /**
+     * Start a streaming response. The response head is written immediately, the content written
+     * to the stream is sent in chunks, and closing the stream ends the response. Writes block
+     * while the client does not keep up, so the stream must be written by a blocking executor,
+     * writes on the event loop fail with an {@link IOException}.
+     *
+     * @return the output stream
+     */
+    OutputStream newStreamingOutputStream();
+
     void flush() throws IOException;
 
     void write(String content);
@@ -38,6 +50,14 @@ public interface ServerResponse extends Flushable {
 
     void write(ChunkedInput<ByteBuf> chunkedInput);
 
+    /**
+     * Streaming response. Buffers are requested from the publisher only as fast as
+     * the channel can write them to the client.
+     *
+     * @param publisher the publisher of the response content
+     */
+    void write(Flow.Publisher<ByteBuf> publisher);
+
     interface Builder {
 
         Builder setStatus(int statusCode);
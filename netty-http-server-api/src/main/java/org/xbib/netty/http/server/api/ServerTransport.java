@@ -16,4 +16,14 @@ public interface ServerTransport extends Transport {
     void settingsReceived(ChannelHandlerContext ctx, Http2Settings http2Settings) throws Exception;
 
     void exceptionReceived(ChannelHandlerContext ctx, Throwable throwable) throws IOException;
+
+    /**
+     * Whether the records of this connection are encrypted by the kernel. Always false with Netty 4.1,
+     * which encrypts in the {@code SslHandler}, see {@code KernelTls}.
+     *
+     * @return true if the connection uses kernel TLS
+     */
+    default boolean isKtls() {
+        return false;
+    }
 }
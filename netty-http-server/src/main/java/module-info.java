@@ -5,7 +5,6 @@ import org.xbib.netty.http.server.protocol.http2.Http2;
 module org.xbib.netty.http.server {
     uses ServerCertificateProvider;
     uses org.xbib.netty.http.server.api.ServerProtocolProvider;
-    uses org.xbib.netty.http.common.TransportProvider;
     exports org.xbib.netty.http.server;
     exports org.xbib.netty.http.server.cookie;
     exports org.xbib.netty.http.server.endpoint;
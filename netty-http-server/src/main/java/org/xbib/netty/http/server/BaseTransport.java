@@ -6,6 +6,8 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpVersion;
 import org.xbib.netty.http.server.api.ServerTransport;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -25,6 +27,16 @@ public abstract class BaseTransport implements ServerTransport {
         logger.log(Level.WARNING, throwable.getMessage(), throwable);
     }
 
+    /**
+     * The internet address of a channel.
+     *
+     * @param socketAddress the socket address of the channel
+     * @return the internet address, or null for a unix domain socket
+     */
+    protected static InetSocketAddress inetSocketAddress(SocketAddress socketAddress) {
+        return socketAddress instanceof InetSocketAddress ? (InetSocketAddress) socketAddress : null;
+    }
+
     /**
      * Accepts a request, performing various validation checks
      * and required special header handling, possibly returning an
@@ -7,11 +7,18 @@ import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.CipherSuiteFilter;
 import io.netty.handler.ssl.SslProvider;
+import org.xbib.netty.http.common.CpuSet;
 import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.TlsRecordSizing;
+import org.xbib.netty.http.common.TransportTuning;
+import org.xbib.netty.http.common.TuningProfile;
 import org.xbib.netty.http.common.security.SecurityUtil;
 import org.xbib.netty.http.server.api.Domain;
 import org.xbib.netty.http.server.api.EndpointResolver;
+import org.xbib.netty.http.server.api.ResponseQueuePolicy;
+import org.xbib.netty.http.server.api.ServerKeyCertificateSource;
 import org.xbib.netty.http.server.api.ServerConfig;
+import java.nio.file.Path;
 import java.security.KeyStore;
 import java.security.Provider;
 import java.util.Collection;
@@ -34,12 +41,20 @@ public class DefaultServerConfig implements ServerConfig {
 
     private int childThreadCount = Defaults.CHILD_THREAD_COUNT;
 
+    private CpuSet cpuSet = Defaults.CPU_SET;
+
     private int blockingThreadCount = Defaults.BLOCKING_THREAD_COUNT;
 
     private int blockingQueueCount = Defaults.BLOCKING_QUEUE_COUNT;
 
+    private int blockingQueueHighWaterMark = Defaults.BLOCKING_QUEUE_HIGH_WATER_MARK;
+
+    private int blockingQueueLowWaterMark = Defaults.BLOCKING_QUEUE_LOW_WATER_MARK;
+
     private boolean reuseAddr = Defaults.SO_REUSEADDR;
 
+    private boolean reusePort = Defaults.SO_REUSEPORT;
+
     private boolean tcpNodelay = Defaults.TCP_NODELAY;
 
     private int tcpSendBufferSize = Defaults.TCP_SEND_BUFFER_SIZE;
@@ -56,6 +71,10 @@ public class DefaultServerConfig implements ServerConfig {
 
     private int maxContentLength = Defaults.MAX_CONTENT_LENGTH;
 
+    private int contentSpillThreshold = Defaults.CONTENT_SPILL_THRESHOLD;
+
+    private Path contentSpillDirectory = Defaults.CONTENT_SPILL_DIRECTORY;
+
     private boolean isPipeliningEnabled = Defaults.ENABLE_PIPELINING;
 
     private int pipeliningCapacity = Defaults.PIPELINING_CAPACITY;
@@ -68,8 +87,24 @@ public class DefaultServerConfig implements ServerConfig {
 
     private int idleTimeoutMillis = Defaults.IDLE_TIMEOUT_MILLIS;
 
+    private int keepAliveTimeoutMillis = Defaults.KEEP_ALIVE_TIMEOUT_MILLIS;
+
+    private int requestTimeoutMillis = Defaults.REQUEST_TIMEOUT_MILLIS;
+
     private WriteBufferWaterMark writeBufferWaterMark = Defaults.WRITE_BUFFER_WATER_MARK;
 
+    private TransportTuning transportTuning = new TransportTuning();
+
+    private TlsRecordSizing tlsRecordSizing = new TlsRecordSizing();
+
+    private boolean ktls = Defaults.KTLS;
+
+    private TuningProfile tuningProfile = Defaults.TUNING_PROFILE;
+
+    private int responseQueueLimit = Defaults.RESPONSE_QUEUE_LIMIT;
+
+    private ResponseQueuePolicy responseQueuePolicy = Defaults.RESPONSE_QUEUE_POLICY;
+
     private boolean enableCompression = Defaults.ENABLE_COMPRESSION;
 
     private boolean enableDecompression = Defaults.ENABLE_DECOMPRESSION;
@@ -90,6 +125,24 @@ public class DefaultServerConfig implements ServerConfig {
 
     private CipherSuiteFilter cipherSuiteFilter = Defaults.CIPHER_SUITE_FILTER;
 
+    private ServerKeyCertificateSource keyCertificateSource;
+
+    private int sslContextCacheSize = Defaults.SSL_CONTEXT_CACHE_SIZE;
+
+    private long sslContextIdleTimeoutMillis = Defaults.SSL_CONTEXT_IDLE_TIMEOUT_MILLIS;
+
+    private int sessionCacheSize = Defaults.SESSION_CACHE_SIZE;
+
+    private int sessionTimeoutSeconds = Defaults.SESSION_TIMEOUT_SECONDS;
+
+    private Path sessionTicketKeyFile = Defaults.SESSION_TICKET_KEY_FILE;
+
+    private long sessionTicketKeyRotationMillis = Defaults.SESSION_TICKET_KEY_ROTATION_MILLIS;
+
+    private long eventLoopProbeIntervalMillis = Defaults.EVENT_LOOP_PROBE_INTERVAL_MILLIS;
+
+    private long eventLoopStallThresholdMillis = Defaults.EVENT_LOOP_STALL_THRESHOLD_MILLIS;
+
     private TrustManagerFactory trustManagerFactory = SecurityUtil.Defaults.DEFAULT_TRUST_MANAGER_FACTORY;
 
     private KeyStore trustManagerKeyStore = null;
@@ -150,6 +203,15 @@ public class DefaultServerConfig implements ServerConfig {
         return childThreadCount;
     }
 
+    public ServerConfig setCpuSet(CpuSet cpuSet) {
+        this.cpuSet = cpuSet;
+        return this;
+    }
+
+    public CpuSet getCpuSet() {
+        return cpuSet;
+    }
+
     public ServerConfig setBlockingThreadCount(int blockingThreadCount) {
         this.blockingThreadCount = blockingThreadCount;
         return this;
@@ -168,6 +230,24 @@ public class DefaultServerConfig implements ServerConfig {
         return blockingQueueCount;
     }
 
+    public ServerConfig setBlockingQueueHighWaterMark(int blockingQueueHighWaterMark) {
+        this.blockingQueueHighWaterMark = blockingQueueHighWaterMark;
+        return this;
+    }
+
+    public int getBlockingQueueHighWaterMark() {
+        return blockingQueueHighWaterMark;
+    }
+
+    public ServerConfig setBlockingQueueLowWaterMark(int blockingQueueLowWaterMark) {
+        this.blockingQueueLowWaterMark = blockingQueueLowWaterMark;
+        return this;
+    }
+
+    public int getBlockingQueueLowWaterMark() {
+        return blockingQueueLowWaterMark;
+    }
+
     public ServerConfig setReuseAddr(boolean reuseAddr) {
         this.reuseAddr = reuseAddr;
         return this;
@@ -177,6 +257,15 @@ public class DefaultServerConfig implements ServerConfig {
         return reuseAddr;
     }
 
+    public ServerConfig setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+        return this;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
     public ServerConfig setTcpNodelay(boolean tcpNodelay) {
         this.tcpNodelay = tcpNodelay;
         return this;
@@ -240,6 +329,24 @@ public class DefaultServerConfig implements ServerConfig {
         return idleTimeoutMillis;
     }
 
+    public ServerConfig setKeepAliveTimeoutMillis(int keepAliveTimeoutMillis) {
+        this.keepAliveTimeoutMillis = keepAliveTimeoutMillis;
+        return this;
+    }
+
+    public int getKeepAliveTimeoutMillis() {
+        return keepAliveTimeoutMillis;
+    }
+
+    public ServerConfig setRequestTimeoutMillis(int requestTimeoutMillis) {
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        return this;
+    }
+
+    public int getRequestTimeoutMillis() {
+        return requestTimeoutMillis;
+    }
+
     public ServerConfig setAddress(HttpAddress httpAddress) {
         this.httpAddress = httpAddress;
         return this;
@@ -285,6 +392,24 @@ public class DefaultServerConfig implements ServerConfig {
         return maxContentLength;
     }
 
+    public ServerConfig setContentSpillThreshold(int contentSpillThreshold) {
+        this.contentSpillThreshold = contentSpillThreshold;
+        return this;
+    }
+
+    public int getContentSpillThreshold() {
+        return contentSpillThreshold;
+    }
+
+    public ServerConfig setContentSpillDirectory(Path contentSpillDirectory) {
+        this.contentSpillDirectory = contentSpillDirectory;
+        return this;
+    }
+
+    public Path getContentSpillDirectory() {
+        return contentSpillDirectory;
+    }
+
     public ServerConfig setPipelining(boolean isPipeliningEnabled) {
         this.isPipeliningEnabled = isPipeliningEnabled;
         return this;
@@ -321,6 +446,60 @@ public class DefaultServerConfig implements ServerConfig {
         return writeBufferWaterMark;
     }
 
+    public ServerConfig setTransportTuning(TransportTuning transportTuning) {
+        this.transportTuning = transportTuning;
+        return this;
+    }
+
+    public TransportTuning getTransportTuning() {
+        return transportTuning;
+    }
+
+    public ServerConfig setTlsRecordSizing(TlsRecordSizing tlsRecordSizing) {
+        this.tlsRecordSizing = tlsRecordSizing;
+        return this;
+    }
+
+    public TlsRecordSizing getTlsRecordSizing() {
+        return tlsRecordSizing;
+    }
+
+    public ServerConfig setKtls(boolean ktls) {
+        this.ktls = ktls;
+        return this;
+    }
+
+    public boolean isKtls() {
+        return ktls;
+    }
+
+    public ServerConfig setTuningProfile(TuningProfile tuningProfile) {
+        this.tuningProfile = tuningProfile;
+        return this;
+    }
+
+    public TuningProfile getTuningProfile() {
+        return tuningProfile;
+    }
+
+    public ServerConfig setResponseQueueLimit(int responseQueueLimit) {
+        this.responseQueueLimit = responseQueueLimit;
+        return this;
+    }
+
+    public int getResponseQueueLimit() {
+        return responseQueueLimit;
+    }
+
+    public ServerConfig setResponseQueuePolicy(ResponseQueuePolicy responseQueuePolicy) {
+        this.responseQueuePolicy = responseQueuePolicy;
+        return this;
+    }
+
+    public ResponseQueuePolicy getResponseQueuePolicy() {
+        return responseQueuePolicy;
+    }
+
     public ServerConfig setCompression(boolean enabled) {
         this.enableCompression = enabled;
         return this;
@@ -430,6 +609,87 @@ public class DefaultServerConfig implements ServerConfig {
         return cipherSuiteFilter;
     }
 
+    public ServerConfig setKeyCertificateSource(ServerKeyCertificateSource keyCertificateSource) {
+        this.keyCertificateSource = keyCertificateSource;
+        return this;
+    }
+
+    public ServerKeyCertificateSource getKeyCertificateSource() {
+        return keyCertificateSource;
+    }
+
+    public ServerConfig setSslContextCacheSize(int sslContextCacheSize) {
+        this.sslContextCacheSize = sslContextCacheSize;
+        return this;
+    }
+
+    public int getSslContextCacheSize() {
+        return sslContextCacheSize;
+    }
+
+    public ServerConfig setSslContextIdleTimeoutMillis(long sslContextIdleTimeoutMillis) {
+        this.sslContextIdleTimeoutMillis = sslContextIdleTimeoutMillis;
+        return this;
+    }
+
+    public long getSslContextIdleTimeoutMillis() {
+        return sslContextIdleTimeoutMillis;
+    }
+
+    public ServerConfig setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+        return this;
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public ServerConfig setSessionTimeoutSeconds(int sessionTimeoutSeconds) {
+        this.sessionTimeoutSeconds = sessionTimeoutSeconds;
+        return this;
+    }
+
+    public int getSessionTimeoutSeconds() {
+        return sessionTimeoutSeconds;
+    }
+
+    public ServerConfig setSessionTicketKeyFile(Path sessionTicketKeyFile) {
+        this.sessionTicketKeyFile = sessionTicketKeyFile;
+        return this;
+    }
+
+    public Path getSessionTicketKeyFile() {
+        return sessionTicketKeyFile;
+    }
+
+    public ServerConfig setSessionTicketKeyRotationMillis(long sessionTicketKeyRotationMillis) {
+        this.sessionTicketKeyRotationMillis = sessionTicketKeyRotationMillis;
+        return this;
+    }
+
+    public long getSessionTicketKeyRotationMillis() {
+        return sessionTicketKeyRotationMillis;
+    }
+
+    public ServerConfig setEventLoopProbeIntervalMillis(long eventLoopProbeIntervalMillis) {
+        this.eventLoopProbeIntervalMillis = eventLoopProbeIntervalMillis;
+        return this;
+    }
+
+    public long getEventLoopProbeIntervalMillis() {
+        return eventLoopProbeIntervalMillis;
+    }
+
+    public ServerConfig setEventLoopStallThresholdMillis(long eventLoopStallThresholdMillis) {
+        this.eventLoopStallThresholdMillis = eventLoopStallThresholdMillis;
+        return this;
+    }
+
+    public long getEventLoopStallThresholdMillis() {
+        return eventLoopStallThresholdMillis;
+    }
+
     public ServerConfig setAutoDomain(boolean autoDomain) {
         this.autoDomain = autoDomain;
         return this;
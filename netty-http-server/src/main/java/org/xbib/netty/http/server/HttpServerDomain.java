@@ -26,6 +26,7 @@ import javax.crypto.NoSuchPaddingException;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.KeyException;
 import java.security.KeyStore;
@@ -38,9 +39,11 @@ import java.security.spec.InvalidKeySpecException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,11 +58,15 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
 
     private final HttpAddress httpAddress;
 
-    private final SslContext sslContext;
-
     private final Collection<HttpEndpointResolver> httpEndpointResolvers;
 
-    private final Collection<? extends X509Certificate> certificates;
+    /**
+     * The SSL context and the certificates, shared with the domains of the subject alternative names.
+     * Reloading replaces both at once.
+     */
+    private final AtomicReference<SslState> sslState;
+
+    private final SslContextFactory sslContextFactory;
 
     /**
      * Constructs a {@code NamedServer} with the given name.
@@ -67,18 +74,19 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
      * @param name the name, or null if it is the default server
      * @param httpAddress HTTP address, used for determining if named server is secure or not
      * @param httpEndpointResolvers the endpoint resolvers
-     * @param sslContext SSL context or null
+     * @param sslState SSL context and certificates
+     * @param sslContextFactory the factory for reloading the SSL context from keys and certificates, or null
      */
     private HttpServerDomain(String name,
                              HttpAddress httpAddress,
                              Collection<HttpEndpointResolver> httpEndpointResolvers,
-                             SslContext sslContext,
-                             Collection<? extends X509Certificate> certificates) {
+                             AtomicReference<SslState> sslState,
+                             SslContextFactory sslContextFactory) {
         this.name = name;
         this.httpAddress = httpAddress;
         this.httpEndpointResolvers = httpEndpointResolvers;
-        this.sslContext = sslContext;
-        this.certificates = certificates;
+        this.sslState = sslState;
+        this.sslContextFactory = sslContextFactory;
     }
 
     public static Builder builder(HttpAddress httpAddress) {
@@ -119,12 +127,13 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
     }
 
     /**
-     * Returns SSL context.
+     * Returns SSL context. A domain built from a key and a certificate chain builds its SSL context
+     * on the first call.
      * @return the SSL context
      */
     @Override
     public SslContext getSslContext() {
-        return sslContext;
+        return sslState.get().getSslContext();
     }
 
     /**
@@ -133,7 +142,84 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
      */
     @Override
     public Collection<? extends X509Certificate> getCertificateChain() {
-        return certificates;
+        return sslState.get().certificates;
+    }
+
+    /**
+     * Reload the private key and the certificate chain of this domain. New TLS handshakes use the new
+     * certificate, established connections are not affected. The SSL context is built with the settings
+     * of the domain builder.
+     *
+     * @param keyCertChainInputStream the certificate chain in PEM format
+     * @param keyInputStream the private key in PEM format
+     * @param keyPassword the key password or null
+     * @throws IOException if the key or the certificates can not be read
+     * @throws GeneralSecurityException if the key or the certificates are not valid
+     */
+    public void reload(InputStream keyCertChainInputStream, InputStream keyInputStream, String keyPassword)
+            throws IOException, GeneralSecurityException {
+        Objects.requireNonNull(keyCertChainInputStream);
+        Objects.requireNonNull(keyInputStream);
+        Collection<? extends X509Certificate> keyCertChain = CertificateUtils.toCertificate(keyCertChainInputStream);
+        reload(PrivateKeyUtils.toPrivateKey(keyInputStream, keyPassword), keyCertChain);
+    }
+
+    /**
+     * Reload the private key and the certificate chain of this domain. New TLS handshakes use the new
+     * certificate, established connections are not affected. The SSL context is built with the settings
+     * of the domain builder.
+     *
+     * @param privateKey the private key
+     * @param keyCertChain the certificate chain
+     * @throws IOException if the SSL context can not be built
+     * @throws GeneralSecurityException if the certificates are not valid
+     */
+    public void reload(PrivateKey privateKey, Collection<? extends X509Certificate> keyCertChain)
+            throws IOException, GeneralSecurityException {
+        Objects.requireNonNull(privateKey);
+        Objects.requireNonNull(keyCertChain);
+        if (sslContextFactory == null) {
+            throw new IllegalStateException("domain " + this + " was not built from a key and a certificate chain");
+        }
+        for (X509Certificate certificate : keyCertChain) {
+            certificate.checkValidity();
+        }
+        reload(sslContextFactory.create(privateKey, keyCertChain), keyCertChain);
+    }
+
+    /**
+     * Replace the SSL context of this domain. New TLS handshakes use the new SSL context,
+     * established connections are not affected.
+     *
+     * @param sslContext the SSL context
+     * @param keyCertChain the certificate chain of the SSL context
+     */
+    public void reload(SslContext sslContext, Collection<? extends X509Certificate> keyCertChain) {
+        Objects.requireNonNull(sslContext);
+        if (!httpAddress.isSecure()) {
+            throw new IllegalStateException("domain " + this + " is not secure");
+        }
+        sslState.set(new SslState(sslContext, keyCertChain));
+        logger.log(Level.INFO, () -> "reloaded SSL context of " + this);
+    }
+
+    /**
+     * Find the endpoint for a request without handling the request.
+     * @param requestURI the request URI
+     * @param method the request method
+     * @param contentType the content type of the request, or null
+     * @return the endpoint or null if no endpoint matches
+     */
+    @Override
+    public HttpEndpoint findEndpoint(String requestURI, HttpMethod method, String contentType) {
+        String path = extractPath(requestURI);
+        for (HttpEndpointResolver endpointResolver : httpEndpointResolvers) {
+            List<HttpEndpoint> matchingEndpoints = endpointResolver.matchingEndpointsFor(path, method, contentType);
+            if (!matchingEndpoints.isEmpty()) {
+                return matchingEndpoints.get(0);
+            }
+        }
+        return null;
     }
 
     /**
@@ -223,6 +309,10 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
 
         private PrivateKey privateKey;
 
+        private AtomicReference<SslState> sslState;
+
+        private SslContextFactory sslContextFactory;
+
         private Builder(HttpAddress httpAddress) {
             Objects.requireNonNull(httpAddress);
             this.httpAddress = httpAddress;
@@ -237,8 +327,14 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
         private Builder(Domain<? extends EndpointResolver<?>> domain) {
             this.httpAddress = domain.getHttpAddress();
             this.httpEndpointResolvers = new ArrayList<>((List<HttpEndpointResolver>) domain.getHttpEndpointResolvers());
-            this.sslContext = domain.getSslContext();
             this.keyCertChain = domain.getCertificateChain();
+            if (domain instanceof HttpServerDomain) {
+                // reloading the domain also reloads the copies
+                this.sslState = ((HttpServerDomain) domain).sslState;
+                this.sslContextFactory = ((HttpServerDomain) domain).sslContextFactory;
+            } else {
+                this.sslContext = domain.getSslContext();
+            }
         }
 
         public Builder setServerName(String serverName) {
@@ -250,6 +346,7 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
 
         public Builder setSslContext(SslContext sslContext) {
             this.sslContext = sslContext;
+            this.sslState = null;
             return this;
         }
 
@@ -305,6 +402,7 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
                 throws CertificateException {
             Objects.requireNonNull(keyCertChainInputStream);
             this.keyCertChain = CertificateUtils.toCertificate(keyCertChainInputStream);
+            this.sslState = null;
             return this;
         }
 
@@ -313,17 +411,40 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
                 KeyException, InvalidAlgorithmParameterException, InvalidKeySpecException {
             Objects.requireNonNull(keyInputStream);
             this.privateKey = PrivateKeyUtils.toPrivateKey(keyInputStream, keyPassword);
+            this.sslState = null;
             return this;
         }
 
         public Builder setSelfCert() throws CertificateException, NoSuchPaddingException,
                 NoSuchAlgorithmException, IOException, KeyException, InvalidAlgorithmParameterException,
                 InvalidKeySpecException {
+            return setSelfCert(Collections.emptyList());
+        }
+
+        /**
+         * Set a self-signed certificate for the server name of this domain and more names. One certificate
+         * is generated, with all names as subject alternative names. Domains built from this domain
+         * by {@link HttpServerDomain#builder(Domain)} share the certificate.
+         *
+         * @param alternativeServerNames the more names
+         * @return this builder
+         */
+        public Builder setSelfCert(Collection<String> alternativeServerNames) throws CertificateException,
+                NoSuchPaddingException, NoSuchAlgorithmException, IOException, KeyException,
+                InvalidAlgorithmParameterException, InvalidKeySpecException {
+            List<String> serverNames = new ArrayList<>();
+            if (serverName != null) {
+                serverNames.add(serverName);
+            }
+            serverNames.addAll(alternativeServerNames);
+            if (serverNames.isEmpty()) {
+                throw new CertificateException("no server name for self certificate");
+            }
             ServiceLoader<ServerCertificateProvider> serverCertificateProviders =
                     ServiceLoader.load(ServerCertificateProvider.class);
             for (ServerCertificateProvider serverCertificateProvider : serverCertificateProviders) {
                 if ("org.xbib.netty.http.bouncycastle.BouncyCastleSelfSignedCertificateProvider".equals(serverCertificateProvider.getClass().getName())) {
-                    serverCertificateProvider.prepare(serverName);
+                    serverCertificateProvider.prepare(serverNames);
                     setKeyCertChain(serverCertificateProvider.getCertificateChain());
                     setKey(serverCertificateProvider.getPrivateKey(), serverCertificateProvider.getKeyPassword());
                 }
@@ -388,35 +509,54 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
                 throw new IllegalArgumentException("domain must have at least one endpoint resolver");
             }
             if (httpAddress.isSecure() ) {
-                try {
+                AtomicReference<SslState> state = sslState;
+                if (state == null) {
                     if (sslContext == null && privateKey != null && keyCertChain != null) {
-                        trustManagerFactory.init(trustManagerKeyStore);
-                        SslContextBuilder sslContextBuilder = SslContextBuilder
-                                .forServer(privateKey, keyCertChain)
-                                .trustManager(trustManagerFactory)
-                                .sslProvider(sslProvider)
-                                .ciphers(ciphers, cipherSuiteFilter);
-                        if (sslContextProvider != null) {
-                            sslContextBuilder.sslContextProvider(sslContextProvider);
-                        }
-                        if (httpAddress.getVersion().majorVersion() == 2) {
-                            sslContextBuilder.applicationProtocolConfig(newApplicationProtocolConfig());
-                        }
-                        this.sslContext = sslContextBuilder.build();
+                        // the SSL context is built on first use
+                        this.sslContextFactory = newSslContextFactory();
+                        state = new AtomicReference<>(new SslState(sslContextFactory, privateKey, keyCertChain));
+                    } else {
+                        state = new AtomicReference<>(new SslState(sslContext, keyCertChain));
                     }
-                    return new HttpServerDomain(serverName,
-                            httpAddress, httpEndpointResolvers,
-                            sslContext, keyCertChain);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
                 }
+                return new HttpServerDomain(serverName,
+                        httpAddress, httpEndpointResolvers,
+                        state, sslContextFactory);
             } else {
                 return new HttpServerDomain(serverName,
                         httpAddress, httpEndpointResolvers,
-                        null, null);
+                        new AtomicReference<>(new SslState(null, null)), null);
             }
         }
 
+        /**
+         * Capture the SSL settings of this builder, for building the SSL context again when the domain is reloaded.
+         */
+        private SslContextFactory newSslContextFactory() {
+            TrustManagerFactory trustManagerFactory = this.trustManagerFactory;
+            KeyStore trustManagerKeyStore = this.trustManagerKeyStore;
+            SslProvider sslProvider = this.sslProvider;
+            Iterable<String> ciphers = this.ciphers;
+            CipherSuiteFilter cipherSuiteFilter = this.cipherSuiteFilter;
+            Provider sslContextProvider = this.sslContextProvider;
+            boolean alpn = httpAddress.getVersion().majorVersion() == 2;
+            return (privateKey, keyCertChain) -> {
+                trustManagerFactory.init(trustManagerKeyStore);
+                SslContextBuilder sslContextBuilder = SslContextBuilder
+                        .forServer(privateKey, keyCertChain)
+                        .trustManager(trustManagerFactory)
+                        .sslProvider(sslProvider)
+                        .ciphers(ciphers, cipherSuiteFilter);
+                if (sslContextProvider != null) {
+                    sslContextBuilder.sslContextProvider(sslContextProvider);
+                }
+                if (alpn) {
+                    sslContextBuilder.applicationProtocolConfig(newApplicationProtocolConfig());
+                }
+                return sslContextBuilder.build();
+            };
+        }
+
         private static ApplicationProtocolConfig newApplicationProtocolConfig() {
             return new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
                     ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
@@ -425,4 +565,54 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
                     ApplicationProtocolNames.HTTP_1_1);
         }
     }
+
+    private static class SslState {
+
+        private final SslContextFactory sslContextFactory;
+
+        private final PrivateKey privateKey;
+
+        private final Collection<? extends X509Certificate> certificates;
+
+        private volatile SslContext sslContext;
+
+        SslState(SslContext sslContext, Collection<? extends X509Certificate> certificates) {
+            this.sslContextFactory = null;
+            this.privateKey = null;
+            this.sslContext = sslContext;
+            this.certificates = certificates;
+        }
+
+        SslState(SslContextFactory sslContextFactory, PrivateKey privateKey,
+                 Collection<? extends X509Certificate> certificates) {
+            this.sslContextFactory = sslContextFactory;
+            this.privateKey = privateKey;
+            this.certificates = certificates;
+        }
+
+        SslContext getSslContext() {
+            SslContext context = sslContext;
+            if (context == null && sslContextFactory != null) {
+                synchronized (this) {
+                    context = sslContext;
+                    if (context == null) {
+                        try {
+                            context = sslContextFactory.create(privateKey, certificates);
+                        } catch (IOException | GeneralSecurityException e) {
+                            throw new IllegalStateException("unable to build SSL context", e);
+                        }
+                        sslContext = context;
+                    }
+                }
+            }
+            return context;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SslContextFactory {
+
+        SslContext create(PrivateKey privateKey, Collection<? extends X509Certificate> keyCertChain)
+                throws IOException, GeneralSecurityException;
+    }
 }
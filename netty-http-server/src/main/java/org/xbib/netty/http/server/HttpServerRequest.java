@@ -6,6 +6,7 @@ import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import org.xbib.datastructures.common.Pair;
 import org.xbib.net.Parameter;
@@ -17,11 +18,16 @@ import org.xbib.netty.http.server.api.Domain;
 import org.xbib.netty.http.server.api.Endpoint;
 import org.xbib.netty.http.server.api.EndpointResolver;
 import org.xbib.netty.http.server.api.ServerRequest;
+import org.xbib.netty.http.server.handler.SpilledFullHttpRequest;
 import javax.net.ssl.SSLSession;
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +81,8 @@ public class HttpServerRequest implements ServerRequest {
 
     private final Endpoint<?> endpoint;
 
+    private final Endpoint<?> acceptedEndpoint;
+
     private HttpServerRequest(Builder builder) {
         this.builder = builder;
         this.localAddress = builder.localAddress;
@@ -95,6 +103,7 @@ public class HttpServerRequest implements ServerRequest {
         this.domain = builder.domain;
         this.endpointResolver = builder.endpointResolver;
         this.endpoint = builder.endpoint;
+        this.acceptedEndpoint = builder.acceptedEndpoint;
     }
 
     public Builder getBuilder() {
@@ -150,6 +159,17 @@ public class HttpServerRequest implements ServerRequest {
         return new ByteBufInputStream(httpRequest.content(), true);
     }
 
+    @Override
+    public Path getContentPath() {
+        return httpRequest instanceof SpilledFullHttpRequest ? ((SpilledFullHttpRequest) httpRequest).getPath() : null;
+    }
+
+    @Override
+    public FileChannel getContentFileChannel() throws IOException {
+        Path path = getContentPath();
+        return path != null ? FileChannel.open(path, StandardOpenOption.READ) : null;
+    }
+
     @Override
     public URL getBaseURL() {
         return baseURL;
@@ -205,6 +225,17 @@ public class HttpServerRequest implements ServerRequest {
         return parameters;
     }
 
+    /**
+     * Check the head of this request by an endpoint, unless the endpoint already accepted the head
+     * before the request content was received.
+     *
+     * @param endpoint the endpoint
+     * @return null if the request is accepted, or the status for rejecting the request
+     */
+    public HttpResponseStatus acceptHead(Endpoint<?> endpoint) {
+        return endpoint == acceptedEndpoint ? null : endpoint.acceptHead(httpRequest);
+    }
+
     @Override
     public Integer getSequenceId() {
         return sequenceId;
@@ -260,6 +291,8 @@ public class HttpServerRequest implements ServerRequest {
 
         private Endpoint<?> endpoint;
 
+        private Endpoint<?> acceptedEndpoint;
+
         private Integer sequenceId;
 
         private Integer streamId;
@@ -360,6 +393,17 @@ public class HttpServerRequest implements ServerRequest {
             return this;
         }
 
+        /**
+         * Set the endpoint which accepted the request head before the request content was received.
+         *
+         * @param acceptedEndpoint the endpoint, or null
+         * @return this builder
+         */
+        public Builder setAcceptedEndpoint(Endpoint<?> acceptedEndpoint) {
+            this.acceptedEndpoint = acceptedEndpoint;
+            return this;
+        }
+
         public ServerRequest build() {
             // build URL and parameters
             Charset charset = HttpUtil.getCharset(fullHttpRequest, StandardCharsets.UTF_8);
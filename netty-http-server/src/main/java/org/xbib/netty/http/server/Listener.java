@@ -0,0 +1,92 @@
+package org.xbib.netty.http.server;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.api.Domain;
+import org.xbib.netty.http.server.api.EndpointResolver;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A listener of a server, with the address to bind to and the domains which are served on this address.
+ * All listeners of a server share the event loops, the blocking executor, and the byte buffer allocator.
+ */
+public class Listener {
+
+    /**
+     * The listener which accepted a connection, set on the channel of the connection.
+     */
+    public static final AttributeKey<Listener> LISTENER_ATTRIBUTE_KEY = AttributeKey.valueOf("listener");
+
+    private final HttpAddress httpAddress;
+
+    private final List<Domain<? extends EndpointResolver<?>>> domains;
+
+    /**
+     * Create a listener.
+     *
+     * @param httpAddress the address to bind to
+     * @param domains the domains, the first domain is the default domain unless there is a wildcard domain
+     */
+    public Listener(HttpAddress httpAddress, Collection<? extends Domain<? extends EndpointResolver<?>>> domains) {
+        this.httpAddress = httpAddress;
+        this.domains = new ArrayList<>(domains);
+        if (this.domains.isEmpty()) {
+            throw new IllegalArgumentException("no domain for listener " + httpAddress);
+        }
+    }
+
+    public HttpAddress getHttpAddress() {
+        return httpAddress;
+    }
+
+    public List<Domain<? extends EndpointResolver<?>>> getDomains() {
+        return Collections.unmodifiableList(domains);
+    }
+
+    /**
+     * Returns the domain for the given host name.
+     *
+     * @param name the name of the virtual host with optional port, or null for the default domain
+     * @return the virtual host with the given name or the default domain
+     */
+    public Domain<? extends EndpointResolver<?>> getDomain(String name) {
+        for (Domain<? extends EndpointResolver<?>> domain : domains) {
+            if (domain.getName().equals(name)) {
+                return domain;
+            }
+        }
+        return domains.get(0);
+    }
+
+    /**
+     * Returns the listener which accepted a connection.
+     *
+     * @param channel the channel of the connection, or of a HTTP/2 stream of the connection
+     * @return the listener, or null if the channel was not accepted by a listener
+     */
+    public static Listener of(Channel channel) {
+        Listener listener = channel.attr(LISTENER_ATTRIBUTE_KEY).get();
+        if (listener == null && channel.parent() != null) {
+            listener = channel.parent().attr(LISTENER_ATTRIBUTE_KEY).get();
+        }
+        return listener;
+    }
+
+    public Domain<? extends EndpointResolver<?>> getDefaultDomain() {
+        for (Domain<? extends EndpointResolver<?>> domain : domains) {
+            if (domain.getName().equals("*")) {
+                return domain;
+            }
+        }
+        return domains.get(0);
+    }
+
+    @Override
+    public String toString() {
+        return httpAddress + " " + domains;
+    }
+}
@@ -2,53 +2,92 @@ package org.xbib.netty.http.server;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.DomainWildcardMappingBuilder;
 import io.netty.util.Mapping;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.GlobalEventExecutor;
 import org.xbib.net.URL;
 import org.xbib.net.URLBuilder;
+import org.xbib.netty.http.common.AffinityThreadFactory;
+import org.xbib.netty.http.common.CpuSet;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.HttpChannelInitializer;
+import org.xbib.netty.http.common.KernelTls;
 import org.xbib.netty.http.common.TransportProvider;
+import org.xbib.netty.http.common.TransportProviders;
+import org.xbib.netty.http.common.TlsRecordSizing;
+import org.xbib.netty.http.common.TransportTuning;
+import org.xbib.netty.http.common.TuningProfile;
 import org.xbib.netty.http.server.api.Domain;
+import org.xbib.netty.http.server.api.Endpoint;
 import org.xbib.netty.http.server.api.EndpointResolver;
+import org.xbib.netty.http.server.api.ResponseQueuePolicy;
 import org.xbib.netty.http.server.api.ServerConfig;
+import org.xbib.netty.http.server.api.ServerKeyCertificateSource;
 import org.xbib.netty.http.server.api.ServerProtocolProvider;
 import org.xbib.netty.http.server.api.ServerRequest;
 import org.xbib.netty.http.server.api.ServerResponse;
 import org.xbib.netty.http.server.api.ServerTransport;
 import org.xbib.netty.http.server.endpoint.HttpEndpointResolver;
+import org.xbib.netty.http.server.handler.ConnectionTimeouts;
+import org.xbib.netty.http.server.handler.DrainEvent;
+import org.xbib.netty.http.server.handler.EventLoopMonitor;
+import org.xbib.netty.http.server.handler.LazySslContextMapping;
+import org.xbib.netty.http.server.handler.ReadBackpressure;
+import org.xbib.netty.http.server.handler.ResponseQueueHandler;
+import org.xbib.netty.http.server.handler.SslSessionResumption;
+import org.xbib.netty.http.server.handler.TimeoutHandler;
 import org.xbib.netty.http.server.security.CertificateUtils;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.net.BindException;
+import java.net.SocketAddress;
+import java.nio.file.Path;
 import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
 import java.security.cert.CertificateParsingException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.ServiceLoader;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -62,12 +101,7 @@ public final class Server implements AutoCloseable {
 
     static {
         // change Netty defaults to safer ones, but still allow override from arg line
-        if (System.getProperty("io.netty.noUnsafe") == null) {
-            System.setProperty("io.netty.noUnsafe", Boolean.toString(true));
-        }
-        if (System.getProperty("io.netty.noKeySetOptimization") == null) {
-            System.setProperty("io.netty.noKeySetOptimization", Boolean.toString(true));
-        }
+        TuningProfile.configureSystemProperties();
     }
 
     private final ServerConfig serverConfig;
@@ -82,16 +116,57 @@ public final class Server implements AutoCloseable {
      */
     private final BlockingThreadPoolExecutor executor;
 
-    private final ServerBootstrap bootstrap;
+    private final List<Listener> listeners;
+
+    private final Map<Listener, ServerBootstrap> bootstraps;
+
+    private final TransportProvider transportProvider;
+
+    private final Class<? extends ServerSocketChannel> socketChannelClass;
 
-    private ChannelFuture channelFuture;
+    /**
+     * The largest request content length accepted by any endpoint.
+     */
+    private final int maxContentLength;
+
+    private final List<ChannelFuture> channelFutures;
 
-    private final List<ServerProtocolProvider<HttpChannelInitializer, ServerTransport>> protocolProviders;
+    private final ChannelOption<Boolean> reusePortOption;
+
+    private final List<ServerProtocolProvider<Server>> protocolProviders;
 
     private static final AtomicLong requestCounter = new AtomicLong();
 
     private static final AtomicLong responseCounter = new AtomicLong();
 
+    private final AtomicLong queuedResponseBytes = new AtomicLong();
+
+    private final ConnectionTimeouts connectionTimeouts;
+
+    private final SslSessionResumption sslSessionResumption;
+
+    private final EventLoopMonitor eventLoopMonitor;
+
+    private final ReadBackpressure readBackpressure;
+
+    private final ChannelGroup channels;
+
+    private final AtomicLong inFlightRequests = new AtomicLong();
+
+    /**
+     * The executor for building SSL contexts of the key certificate source, or null.
+     */
+    private final ExecutorService sslContextExecutor;
+
+    private final List<LazySslContextMapping> lazySslContextMappings;
+
+    /**
+     * The executor for writing spilled request content to files, or null.
+     */
+    private final ExecutorService fileExecutor;
+
+    private volatile boolean draining;
+
     /**
      * Create a new HTTP server.
      *
@@ -101,6 +176,7 @@ public final class Server implements AutoCloseable {
      * @param childEventLoopGroup child event loop group
      * @param socketChannelClass socket channel class
      * @param executor an extra blocking thread pool executor or null
+     * @param additionalListeners the listeners besides the listener of the server address
      */
     @SuppressWarnings("unchecked")
     private Server(ServerConfig serverConfig,
@@ -108,60 +184,85 @@ public final class Server implements AutoCloseable {
                    EventLoopGroup parentEventLoopGroup,
                    EventLoopGroup childEventLoopGroup,
                    Class<? extends ServerSocketChannel> socketChannelClass,
-                   BlockingThreadPoolExecutor executor) {
+                   BlockingThreadPoolExecutor executor,
+                   List<Listener> additionalListeners) {
         Objects.requireNonNull(serverConfig);
         this.serverConfig = serverConfig;
-        ByteBufAllocator byteBufAllocator1 = byteBufAllocator != null ? byteBufAllocator : ByteBufAllocator.DEFAULT;
-        this.parentEventLoopGroup = createParentEventLoopGroup(serverConfig, parentEventLoopGroup);
-        this.childEventLoopGroup = createChildEventLoopGroup(serverConfig, childEventLoopGroup);
-        Class<? extends ServerSocketChannel> socketChannelClass1 = createSocketChannelClass(serverConfig, socketChannelClass);
+        TuningProfile tuningProfile = serverConfig.getTuningProfile();
+        TransportProvider namedTransportProvider = TransportProviders.find(serverConfig.getTransportProviderName());
+        this.parentEventLoopGroup = createParentEventLoopGroup(serverConfig, parentEventLoopGroup, namedTransportProvider);
+        this.childEventLoopGroup = createChildEventLoopGroup(serverConfig, childEventLoopGroup, namedTransportProvider);
+        Class<? extends ServerSocketChannel> socketChannelClass1 =
+                createSocketChannelClass(socketChannelClass, namedTransportProvider);
         this.executor = executor;
-        this.protocolProviders =new ArrayList<>();
-        for (ServerProtocolProvider<HttpChannelInitializer, ServerTransport> provider : ServiceLoader.load(ServerProtocolProvider.class)) {
-            protocolProviders.add(provider);
-            if (logger.isLoggable(Level.FINEST)) {
-                logger.log(Level.FINEST, "protocol provider up: " + provider.transportClass());
-            }
+        this.connectionTimeouts = new ConnectionTimeouts(serverConfig);
+        this.sslSessionResumption = new SslSessionResumption(serverConfig);
+        if (serverConfig.isKtls() && !KernelTls.isAvailable()) {
+            logger.log(Level.WARNING, "kernel TLS is not available, falling back to the SSL handler: " +
+                    KernelTls.unavailabilityCause());
+        }
+        this.eventLoopMonitor = new EventLoopMonitor(serverConfig, this.childEventLoopGroup);
+        this.readBackpressure = new ReadBackpressure(serverConfig, executor != null ? executor.getQueue() : null);
+        this.channels = new DefaultChannelGroup("server-connections", GlobalEventExecutor.INSTANCE);
+        this.channelFutures = new ArrayList<>();
+        this.socketChannelClass = socketChannelClass1;
+        this.transportProvider = findTransportProvider(serverConfig, socketChannelClass1);
+        this.reusePortOption = serverConfig.isReusePort() && transportProvider != null ?
+                transportProvider.getReusePortOption() : null;
+        if (serverConfig.isReusePort() && reusePortOption == null) {
+            logger.log(Level.WARNING, "SO_REUSEPORT is not supported by " + socketChannelClass1.getName() +
+                    ", binding a single server socket");
+        }
+        this.protocolProviders = ProtocolProviders.protocolProviders;
+        if (serverConfig.getDefaultDomain() == null) {
+            throw new IllegalStateException("no default domain configured, unable to continue");
         }
-        this.bootstrap = new ServerBootstrap()
+        this.listeners = new ArrayList<>();
+        listeners.add(new Listener(serverConfig.getAddress(), serverConfig.getDomains()));
+        listeners.addAll(additionalListeners);
+        this.maxContentLength = findMaxContentLength(serverConfig, listeners);
+        this.sslContextExecutor = serverConfig.getKeyCertificateSource() != null ?
+                Executors.newFixedThreadPool(2, new SslContextThreadFactory()) : null;
+        this.lazySslContextMappings = new ArrayList<>();
+        this.fileExecutor = serverConfig.getContentSpillThreshold() > 0 ?
+                Executors.newFixedThreadPool(2, new FileThreadFactory()) : null;
+        // the options of all listeners
+        ServerBootstrap bootstrap = new ServerBootstrap()
                 .group(this.parentEventLoopGroup, this.childEventLoopGroup)
-                .channel(socketChannelClass1)
-                .option(ChannelOption.ALLOCATOR, byteBufAllocator1)
+                .option(ChannelOption.ALLOCATOR, byteBufAllocator)
                 .option(ChannelOption.SO_REUSEADDR, serverConfig.isReuseAddr())
                 .option(ChannelOption.SO_RCVBUF, serverConfig.getTcpReceiveBufferSize())
                 .option(ChannelOption.SO_BACKLOG, serverConfig.getBackLogSize())
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, serverConfig.getConnectTimeoutMillis())
-                .childOption(ChannelOption.ALLOCATOR, byteBufAllocator1)
-                .childOption(ChannelOption.SO_REUSEADDR, serverConfig.isReuseAddr())
-                .childOption(ChannelOption.TCP_NODELAY, serverConfig.isTcpNodelay())
+                .childOption(ChannelOption.ALLOCATOR, byteBufAllocator)
                 .childOption(ChannelOption.SO_SNDBUF, serverConfig.getTcpSendBufferSize())
                 .childOption(ChannelOption.SO_RCVBUF, serverConfig.getTcpReceiveBufferSize())
                 .childOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, serverConfig.getConnectTimeoutMillis())
                 .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, serverConfig.getWriteBufferWaterMark());
-        if (serverConfig.isDebug()) {
-            bootstrap.handler(new LoggingHandler("bootstrap-server", serverConfig.getTrafficDebugLogLevel()));
-        }
-        if (serverConfig.getDefaultDomain() == null) {
-            throw new IllegalStateException("no default domain configured, unable to continue");
-        }
-        // translate domains into Netty mapping
-        Mapping<String, SslContext> domainNameMapping = null;
-        Domain<? extends EndpointResolver<?>> defaultDomain = serverConfig.getDefaultDomain();
-        if (serverConfig.getAddress().isSecure() &&
-                defaultDomain != null &&
-                defaultDomain.getSslContext() != null) {
-            DomainWildcardMappingBuilder<SslContext> mappingBuilder =
-                    new DomainWildcardMappingBuilder<>(defaultDomain.getSslContext());
-            for (Domain<? extends EndpointResolver<?>> domain : serverConfig.getDomains()) {
-                if (!domain.getName().equals(defaultDomain.getName())) {
-                    mappingBuilder.add(domain.getName(), domain.getSslContext());
+        RecvByteBufAllocator recvByteBufAllocator = tuningProfile.newRecvByteBufAllocator();
+        if (recvByteBufAllocator != null) {
+            bootstrap.childOption(ChannelOption.RCVBUF_ALLOCATOR, recvByteBufAllocator);
+        }
+        bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel channel) {
+                if (serverConfig.isDebug()) {
+                    channel.pipeline().addLast(new LoggingHandler("bootstrap-server", serverConfig.getTrafficDebugLogLevel()));
                 }
+                channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        // keep track of accepted connections for draining
+                        channels.add((Channel) msg);
+                        ctx.fireChannelRead(msg);
+                    }
+                });
             }
-            domainNameMapping = mappingBuilder.build();
-            logger.log(Level.INFO, "domain name mapping: " + domainNameMapping);
+        });
+        this.bootstraps = new LinkedHashMap<>();
+        for (Listener listener : listeners) {
+            bootstraps.put(listener, createBootstrap(bootstrap.clone(), listener));
         }
-        bootstrap.childHandler(findChannelInitializer(serverConfig.getAddress().getVersion().majorVersion(),
-                serverConfig.getAddress(), domainNameMapping));
     }
 
     public void loop() throws IOException, InterruptedException {
@@ -186,30 +287,47 @@ public final class Server implements AutoCloseable {
     }
 
     /**
-     * Start accepting incoming connections.
-     * @return the channel future
+     * The listeners of this server. The first listener is the listener of the server address.
+     *
+     * @return the listeners
+     */
+    public List<Listener> getListeners() {
+        return Collections.unmodifiableList(listeners);
+    }
+
+    /**
+     * Start accepting incoming connections on all listeners. With SO_REUSEPORT, one server socket is
+     * bound for each parent event loop, and the kernel balances incoming connections across the server sockets.
+     *
+     * @return the channel future of the first server socket
      * @throws BindException if socket bind did not succeed
      */
     public ChannelFuture accept() throws BindException {
         try {
-            HttpAddress httpAddress = serverConfig.getAddress();
-            logger.log(Level.INFO, () -> "trying to bind to " + httpAddress);
-            try {
-                this.channelFuture = bootstrap.bind(httpAddress.getInetSocketAddress()).await().sync();
-            } catch (InterruptedException e) {
-                throw new BindException(e.getMessage());
+            for (Map.Entry<Listener, ServerBootstrap> entry : bootstraps.entrySet()) {
+                bind(entry.getKey().getHttpAddress(), entry.getValue());
             }
-            logger.log(Level.INFO, () -> ServerName.getServerName() + " ready, listening on " + httpAddress);
-            return channelFuture;
+            return channelFutures.get(0);
         } catch (Exception e) {
             if (e instanceof BindException) {
-                throw e;
+                throw (BindException) e;
             } else {
                 throw new BindException(e.getMessage());
             }
         }
     }
 
+    /**
+     * The maximum content length for request aggregation. This is the largest of the configured
+     * maximum content length and the maximum content lengths of all endpoints. The limit of each
+     * single endpoint is enforced before request aggregation.
+     *
+     * @return the maximum content length
+     */
+    public int getMaxContentLength() {
+        return maxContentLength;
+    }
+
     public AtomicLong getRequestCounter() {
         return requestCounter;
     }
@@ -218,6 +336,60 @@ public final class Server implements AutoCloseable {
         return responseCounter;
     }
 
+    /**
+     * The number of response bytes queued on all connections because the connections are not writable.
+     *
+     * @return the queued response bytes
+     */
+    public AtomicLong getQueuedResponseBytes() {
+        return queuedResponseBytes;
+    }
+
+    /**
+     * The connection timeouts of this server, with the numbers of connections closed by each timeout.
+     *
+     * @return the connection timeouts
+     */
+    public ConnectionTimeouts getConnectionTimeouts() {
+        return connectionTimeouts;
+    }
+
+    /**
+     * The TLS session resumption of this server, with the numbers of resumed and full handshakes.
+     *
+     * @return the TLS session resumption
+     */
+    public SslSessionResumption getSslSessionResumption() {
+        return sslSessionResumption;
+    }
+
+    /**
+     * The health monitor of the child event loops, with the number of stalls and the maximum scheduling lag.
+     *
+     * @return the event loop monitor
+     */
+    public EventLoopMonitor getEventLoopMonitor() {
+        return eventLoopMonitor;
+    }
+
+    /**
+     * The back pressure from the blocking thread pool queue to the connections, with the number of pauses.
+     *
+     * @return the read back pressure
+     */
+    public ReadBackpressure getReadBackpressure() {
+        return readBackpressure;
+    }
+
+    /**
+     * The executor for the file operations of spilled request content, so they do not block the event loops.
+     *
+     * @return the file executor, or null if request content is never spilled
+     */
+    public ExecutorService getFileExecutor() {
+        return fileExecutor;
+    }
+
     public URL getBaseURL(HttpHeaders headers) {
         String scheme;
         String host;
@@ -250,14 +422,37 @@ public final class Server implements AutoCloseable {
     }
 
     /**
-     * Returns the domain of the given URL.
+     * Returns the domain of the given URL. The listener is selected by the port of the URL, so this is only
+     * for requests without a connection, requests of a connection use {@link #getDomain(Channel, URL)}.
      * @param url the URL
      * @return the domain
      */
     public Domain<? extends EndpointResolver<?>> getDomain(URL url) {
+        if (url != null && url.getPort() != null && listeners.size() > 1) {
+            // the virtual hosts of the listener on the port
+            for (Listener listener : listeners) {
+                HttpAddress httpAddress = listener.getHttpAddress();
+                if (httpAddress.getDomainSocketPath() == null && url.getPort().equals(httpAddress.base().getPort())) {
+                    return listener.getDomain(hostAndPort(url));
+                }
+            }
+        }
         return getDomain(hostAndPort(url));
     }
 
+    /**
+     * Returns the domain of a request of a connection. The domain is one of the domains of the listener which
+     * accepted the connection, the host header can not select the domains of another listener.
+     *
+     * @param channel the channel of the connection, or of a HTTP/2 stream of the connection
+     * @param url the base URL of the request
+     * @return the domain
+     */
+    public Domain<? extends EndpointResolver<?>> getDomain(Channel channel, URL url) {
+        Listener listener = channel != null ? Listener.of(channel) : null;
+        return listener != null ? listener.getDomain(hostAndPort(url)) : getDomain(url);
+    }
+
     /**
      * Returns the domain for the given host name.
      *
@@ -269,54 +464,133 @@ public final class Server implements AutoCloseable {
         return serverConfig.getDomain(name);
     }
 
+    /**
+     * Evict the SSL context which was built from the key certificate source for a server name,
+     * so the next TLS handshake for the name loads the renewed key and certificates.
+     * Domains are reloaded with {@link HttpServerDomain#reload(java.security.PrivateKey, java.util.Collection)}.
+     *
+     * @param serverName the server name
+     */
+    public void invalidateSslContext(String serverName) {
+        for (LazySslContextMapping lazySslContextMapping : lazySslContextMappings) {
+            lazySslContextMapping.invalidate(serverName);
+        }
+    }
+
+    /**
+     * Whether the server is shutting down and drains its connections.
+     *
+     * @return true if the server is draining
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
     public void handle(ServerRequest.Builder serverRequestBuilder,
                        ServerResponse.Builder serverResponseBuilder) {
+        handle(null, serverRequestBuilder, serverResponseBuilder);
+    }
+
+    /**
+     * Handle a request of a connection. With a blocking thread pool, the request is queued, and reading from
+     * the connection is paused if the queue is above the high water mark.
+     *
+     * @param channel the channel of the connection, or null
+     * @param serverRequestBuilder the request
+     * @param serverResponseBuilder the response
+     */
+    public void handle(Channel channel,
+                       ServerRequest.Builder serverRequestBuilder,
+                       ServerResponse.Builder serverResponseBuilder) {
         URL baseURL = getBaseURL(serverRequestBuilder.getHeaders());
         serverRequestBuilder.setBaseURL(baseURL);
-        Domain<? extends EndpointResolver<?>> domain = getDomain(baseURL);
+        Domain<? extends EndpointResolver<?>> domain = getDomain(channel, baseURL);
+        inFlightRequests.incrementAndGet();
         if (executor != null) {
-            executor.submit(() -> {
+            readBackpressure.requestQueued(channel);
+            try {
+                executor.submit(() -> {
+                    try {
+                        domain.handle(serverRequestBuilder, serverResponseBuilder);
+                    } catch (Throwable t) {
+                        executor.afterExecute(null, t);
+                        domain.handleAfterError(serverRequestBuilder, serverResponseBuilder, t);
+                    } finally {
+                        serverRequestBuilder.release();
+                        inFlightRequests.decrementAndGet();
+                        readBackpressure.requestDone();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the task never runs, so clean up here
+                logger.log(Level.WARNING, "request rejected by blocking executor: " + e.getMessage());
                 try {
-                    domain.handle(serverRequestBuilder, serverResponseBuilder);
-                } catch (Throwable t) {
-                    executor.afterExecute(null, t);
-                    domain.handleAfterError(serverRequestBuilder, serverResponseBuilder, t);
+                    serverResponseBuilder.setStatus(HttpResponseStatus.SERVICE_UNAVAILABLE.code())
+                            .setContentType("text/plain;charset=utf-8")
+                            .build().write(HttpResponseStatus.SERVICE_UNAVAILABLE.reasonPhrase());
                 } finally {
                     serverRequestBuilder.release();
+                    inFlightRequests.decrementAndGet();
+                    readBackpressure.requestDone();
                 }
-            });
+            }
         } else {
+            if (eventLoopMonitor.isEnabled()) {
+                eventLoopMonitor.enter(domain + " " + serverRequestBuilder.getMethod() + " " +
+                        serverRequestBuilder.getRequestURI());
+            }
             try {
                 domain.handle(serverRequestBuilder, serverResponseBuilder);
             } catch (Throwable t) {
                 domain.handleAfterError(serverRequestBuilder, serverResponseBuilder, t);
             } finally {
+                eventLoopMonitor.exit();
                 serverRequestBuilder.release();
+                inFlightRequests.decrementAndGet();
             }
         }
     }
 
+    /**
+     * Create the transport of a connection. The channel initializers create one transport per connection,
+     * which is used for all requests and streams of the connection.
+     *
+     * @param httpVersion the HTTP version of the connection
+     * @return the transport
+     */
     public ServerTransport newTransport(HttpVersion httpVersion) {
-        for (ServerProtocolProvider<HttpChannelInitializer, ServerTransport> protocolProvider : protocolProviders) {
+        for (ServerProtocolProvider<Server> protocolProvider : protocolProviders) {
             if (protocolProvider.supportsMajorVersion(httpVersion.majorVersion())) {
-                try {
-                    return protocolProvider.transportClass()
-                            .getConstructor(Server.class)
-                            .newInstance(this);
-                } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    throw new IllegalStateException();
-                }
+                return protocolProvider.createTransport(this);
             }
         }
-        throw new IllegalStateException("no channel initializer found for major version " + httpVersion.majorVersion());
+        throw new IllegalStateException("no transport found for major version " + httpVersion.majorVersion());
     }
 
     public void shutdownGracefully() throws IOException {
         shutdownGracefully(30L, TimeUnit.SECONDS);
     }
 
+    /**
+     * Shut down the server. The server stops accepting connections, HTTP/2 connections receive GOAWAY,
+     * HTTP/1 connections are closed after the requests in flight have been answered. Then the
+     * server waits for all requests in flight, and for the connections until they are closed or
+     * have written all streamed and queued responses. Connections which remain at the deadline are
+     * closed, and at last, the event loops are shut down.
+     *
+     * @param amount the maximum time to wait for requests in flight and for the event loops
+     * @param timeUnit the time unit
+     * @throws IOException if shutdown fails
+     */
     public void shutdownGracefully(long amount, TimeUnit timeUnit) throws IOException {
         logger.log(Level.FINE, "shutting down");
+        drain(System.nanoTime() + timeUnit.toNanos(amount));
+        connectionTimeouts.close();
+        sslSessionResumption.close();
+        eventLoopMonitor.close();
+        for (LazySslContextMapping lazySslContextMapping : lazySslContextMappings) {
+            lazySslContextMapping.close();
+        }
         // first, shut down threads, then server socket
         childEventLoopGroup.shutdownGracefully(1L, amount, timeUnit);
         try {
@@ -331,7 +605,7 @@ public final class Server implements AutoCloseable {
             throw new IOException(e);
         }
         try {
-            if (channelFuture != null) {
+            for (ChannelFuture channelFuture : channelFutures) {
                 // close channel and wait for unbind
                 channelFuture.channel().closeFuture().sync();
             }
@@ -340,6 +614,89 @@ public final class Server implements AutoCloseable {
         }
     }
 
+    private void drain(long deadline) throws IOException {
+        draining = true;
+        for (ChannelFuture channelFuture : channelFutures) {
+            // stop accepting connections
+            channelFuture.channel().close().awaitUninterruptibly();
+        }
+        for (Channel channel : channels) {
+            channel.pipeline().fireUserEventTriggered(DrainEvent.INSTANCE);
+        }
+        try {
+            while (inFlightRequests.get() > 0L && System.nanoTime() < deadline) {
+                Thread.sleep(10L);
+            }
+            // the handlers are done, but streamed and queued responses may still be written
+            while (!isQuiet() && System.nanoTime() < deadline) {
+                Thread.sleep(10L);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        if (inFlightRequests.get() > 0L) {
+            logger.log(Level.WARNING, "requests still in flight after drain timeout: " + inFlightRequests.get());
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (sslContextExecutor != null) {
+            sslContextExecutor.shutdown();
+        }
+        if (!channels.isEmpty()) {
+            logger.log(Level.FINE, () -> "closing remaining connections: " + channels.size());
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        channels.close().awaitUninterruptibly(Math.max(0L, remaining));
+        if (fileExecutor != null) {
+            // after the connections are closed, so their spill files are deleted
+            fileExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Whether all connections are closed or have written all their responses.
+     *
+     * @return true if no connection has a response to write
+     * @throws InterruptedException if interrupted
+     */
+    private boolean isQuiet() throws InterruptedException {
+        for (Channel channel : channels) {
+            Future<Boolean> future = channel.eventLoop().submit(() -> isQuiet(channel));
+            try {
+                if (!future.get(10L, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+            } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether a connection is closed or has written all its responses. Must be called from the event loop
+     * of the channel.
+     *
+     * @param channel the channel of the connection
+     * @return true if the connection has no response to write
+     */
+    private static boolean isQuiet(Channel channel) {
+        if (!channel.isActive()) {
+            return true;
+        }
+        if (TimeoutHandler.isBusy(channel)) {
+            return false;
+        }
+        ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+        if (outboundBuffer != null && !outboundBuffer.isEmpty()) {
+            return false;
+        }
+        ResponseQueueHandler responseQueueHandler = channel.pipeline().get(ResponseQueueHandler.class);
+        return responseQueueHandler == null || responseQueueHandler.getQueuedBytes() == 0L;
+    }
+
     private static String stripPort(String hostMaybePort) {
         if (hostMaybePort == null) {
             return null;
@@ -360,34 +717,124 @@ public final class Server implements AutoCloseable {
         return url == null ? null : url.getPort() != null && url.getPort() != -1 ? url.getHost() + ":" + url.getPort() : url.getHost();
     }
 
+    private void bind(HttpAddress httpAddress, ServerBootstrap bootstrap) throws BindException, InterruptedException {
+        SocketAddress socketAddress;
+        int acceptors = 1;
+        if (httpAddress.getDomainSocketPath() != null) {
+            socketAddress = transportProvider.createDomainSocketAddress(httpAddress.getDomainSocketPath());
+        } else {
+            socketAddress = httpAddress.getInetSocketAddress();
+            if (reusePortOption != null) {
+                acceptors = 0;
+                for (EventExecutor ignored : parentEventLoopGroup) {
+                    acceptors++;
+                }
+            }
+        }
+        int n = acceptors;
+        logger.log(Level.INFO, () -> "trying to bind to " + httpAddress + (n > 1 ? " with " + n + " acceptors" : ""));
+        // the parent event loops are assigned round robin, so each server socket has its own loop
+        for (int i = 0; i < acceptors; i++) {
+            channelFutures.add(bootstrap.bind(socketAddress).await().sync());
+        }
+        logger.log(Level.INFO, () -> ServerName.getServerName() + " ready, listening on " + httpAddress);
+    }
+
+    private ServerBootstrap createBootstrap(ServerBootstrap bootstrap, Listener listener) {
+        HttpAddress httpAddress = listener.getHttpAddress();
+        if (httpAddress.getDomainSocketPath() != null) {
+            Class<? extends ServerChannel> serverChannelClass = transportProvider != null ?
+                    transportProvider.createServerDomainSocketChannelClass() : null;
+            if (serverChannelClass == null) {
+                throw new IllegalStateException("unix domain sockets are not supported by " + socketChannelClass.getName());
+            }
+            bootstrap.channel(serverChannelClass);
+        } else {
+            bootstrap.channel(socketChannelClass)
+                    .childOption(ChannelOption.SO_REUSEADDR, serverConfig.isReuseAddr())
+                    .childOption(ChannelOption.TCP_NODELAY, serverConfig.isTcpNodelay());
+            if (transportProvider != null) {
+                transportProvider.configure(bootstrap, serverConfig.getTransportTuning());
+            }
+            if (reusePortOption != null) {
+                bootstrap.option(reusePortOption, true);
+            }
+        }
+        // the domains of a connection are the domains of the listener which accepted it
+        bootstrap.childAttr(Listener.LISTENER_ATTRIBUTE_KEY, listener);
+        bootstrap.childHandler(findChannelInitializer(httpAddress.getVersion().majorVersion(),
+                httpAddress, createDomainNameMapping(listener)));
+        return bootstrap;
+    }
+
+    /**
+     * Translate the domains of a secure listener into a Netty mapping for SNI. The SSL context of a domain
+     * is looked up for each handshake, so a reloaded domain is used by new connections at once.
+     * With a key certificate source, the SSL contexts of other server names are built when they are requested.
+     */
+    private Mapping<String, SslContext> createDomainNameMapping(Listener listener) {
+        Domain<? extends EndpointResolver<?>> defaultDomain = listener.getDefaultDomain();
+        if (!listener.getHttpAddress().isSecure() || defaultDomain.getSslContext() == null) {
+            return null;
+        }
+        DomainWildcardMappingBuilder<Domain<? extends EndpointResolver<?>>> mappingBuilder =
+                new DomainWildcardMappingBuilder<>(defaultDomain);
+        for (Domain<? extends EndpointResolver<?>> domain : listener.getDomains()) {
+            if (!domain.getName().equals(defaultDomain.getName())) {
+                mappingBuilder.add(domain.getName(), domain);
+            }
+        }
+        Mapping<String, Domain<? extends EndpointResolver<?>>> domainMapping = mappingBuilder.build();
+        logger.log(Level.INFO, "domain name mapping: " + domainMapping);
+        Mapping<String, SslContext> domainNameMapping = input -> {
+            SslContext sslContext = domainMapping.map(input).getSslContext();
+            if (sslContext == null) {
+                sslContext = defaultDomain.getSslContext();
+            }
+            sslSessionResumption.configure(sslContext);
+            return sslContext;
+        };
+        if (serverConfig.getKeyCertificateSource() != null) {
+            LazySslContextMapping lazySslContextMapping = new LazySslContextMapping(serverConfig.getKeyCertificateSource(),
+                    domainNameMapping, serverConfig, listener.getHttpAddress(), sslContextExecutor, sslSessionResumption);
+            lazySslContextMappings.add(lazySslContextMapping);
+            domainNameMapping = lazySslContextMapping;
+        }
+        return domainNameMapping;
+    }
+
     private HttpChannelInitializer findChannelInitializer(int majorVersion,
                                                           HttpAddress httpAddress,
                                                           Mapping<String, SslContext> domainNameMapping) {
-        for (ServerProtocolProvider<HttpChannelInitializer, ServerTransport> protocolProvider : protocolProviders) {
+        for (ServerProtocolProvider<Server> protocolProvider : protocolProviders) {
             if (protocolProvider.supportsMajorVersion(majorVersion)) {
-                try {
-                    return protocolProvider.initializerClass()
-                            .getConstructor(Server.class, HttpAddress.class, Mapping.class)
-                            .newInstance(this, httpAddress, domainNameMapping);
-                } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                    throw new IllegalStateException();
-                }
+                return protocolProvider.createInitializer(this, httpAddress, domainNameMapping);
             }
         }
         throw new IllegalStateException("no channel initializer found for major version " + majorVersion);
     }
 
-    private static EventLoopGroup createParentEventLoopGroup(ServerConfig serverConfig,
-                                                             EventLoopGroup parentEventLoopGroup ) {
-        EventLoopGroup eventLoopGroup = parentEventLoopGroup;
-        if (eventLoopGroup == null) {
-            ServiceLoader<TransportProvider> transportProviders = ServiceLoader.load(TransportProvider.class);
-            for (TransportProvider transportProvider : transportProviders) {
-                if (serverConfig.getTransportProviderName() == null || serverConfig.getTransportProviderName().equals(transportProvider.getClass().getName())) {
-                    eventLoopGroup = transportProvider.createEventLoopGroup(serverConfig.getParentThreadCount(), new HttpServerParentThreadFactory());
+    private static int findMaxContentLength(ServerConfig serverConfig, List<Listener> listeners) {
+        int max = serverConfig.getMaxContentLength();
+        for (Listener listener : listeners) {
+            for (Domain<? extends EndpointResolver<?>> domain : listener.getDomains()) {
+                for (EndpointResolver<?> endpointResolver : domain.getHttpEndpointResolvers()) {
+                    for (Endpoint<?> endpoint : endpointResolver.getEndpoints()) {
+                        max = Math.max(max, endpoint.getMaxContentLength());
+                    }
                 }
             }
         }
+        return max;
+    }
+
+    private static EventLoopGroup createParentEventLoopGroup(ServerConfig serverConfig,
+                                                             EventLoopGroup parentEventLoopGroup,
+                                                             TransportProvider transportProvider) {
+        EventLoopGroup eventLoopGroup = parentEventLoopGroup;
+        if (eventLoopGroup == null && transportProvider != null) {
+            eventLoopGroup = transportProvider.createEventLoopGroup(serverConfig.getParentThreadCount(), new HttpServerParentThreadFactory());
+        }
         if (eventLoopGroup == null) {
             eventLoopGroup = new NioEventLoopGroup(serverConfig.getParentThreadCount(), new HttpServerParentThreadFactory());
         }
@@ -396,34 +843,47 @@ public final class Server implements AutoCloseable {
     }
 
     private static EventLoopGroup createChildEventLoopGroup(ServerConfig serverConfig,
-                                                            EventLoopGroup childEventLoopGroup ) {
+                                                            EventLoopGroup childEventLoopGroup,
+                                                            TransportProvider transportProvider) {
         EventLoopGroup eventLoopGroup = childEventLoopGroup;
-        if (eventLoopGroup == null) {
-            ServiceLoader<TransportProvider> transportProviders = ServiceLoader.load(TransportProvider.class);
-            for (TransportProvider transportProvider : transportProviders) {
-                if (serverConfig.getTransportProviderName() == null || serverConfig.getTransportProviderName().equals(transportProvider.getClass().getName())) {
-                    eventLoopGroup = transportProvider.createEventLoopGroup(serverConfig.getChildThreadCount(), new HttpServerChildThreadFactory());
-                }
+        CpuSet cpuSet = serverConfig.getCpuSet();
+        // in thread-per-core mode, one child event loop for each CPU of the set
+        int threadCount = cpuSet != null && serverConfig.getChildThreadCount() == 0 ?
+                cpuSet.size() : serverConfig.getChildThreadCount();
+        ThreadFactory threadFactory = cpuSet != null ?
+                new AffinityThreadFactory("org-xbib-netty-http-server-child-", cpuSet) : new HttpServerChildThreadFactory();
+        if (eventLoopGroup == null && transportProvider != null) {
+            eventLoopGroup = transportProvider.createEventLoopGroup(threadCount, threadFactory);
+            if (eventLoopGroup != null) {
+                transportProvider.setIoRatio(eventLoopGroup, serverConfig.getTuningProfile().getIoRatio());
             }
         }
         if (eventLoopGroup == null) {
-            eventLoopGroup = new NioEventLoopGroup(serverConfig.getChildThreadCount(), new HttpServerChildThreadFactory());
+            NioEventLoopGroup nioEventLoopGroup = new NioEventLoopGroup(threadCount, threadFactory);
+            nioEventLoopGroup.setIoRatio(serverConfig.getTuningProfile().getIoRatio());
+            eventLoopGroup = nioEventLoopGroup;
         }
         logger.log(Level.INFO, "child event loop group = " + eventLoopGroup);
         return eventLoopGroup;
     }
 
-    private static Class<? extends ServerSocketChannel> createSocketChannelClass(ServerConfig serverConfig,
-                                                                                 Class<? extends ServerSocketChannel> socketChannelClass) {
-        Class<? extends ServerSocketChannel> channelClass = socketChannelClass;
-        if (channelClass == null) {
-            ServiceLoader<TransportProvider> transportProviders = ServiceLoader.load(TransportProvider.class);
-            for (TransportProvider transportProvider : transportProviders) {
-                if (serverConfig.getTransportProviderName() == null || serverConfig.getTransportProviderName().equals(transportProvider.getClass().getName())) {
-                    channelClass = transportProvider.createServerSocketChannelClass();
-                }
+    private static TransportProvider findTransportProvider(ServerConfig serverConfig,
+                                                           Class<? extends ServerSocketChannel> socketChannelClass) {
+        for (TransportProvider transportProvider : TransportProviders.getTransportProviders()) {
+            if ((serverConfig.getTransportProviderName() == null || serverConfig.getTransportProviderName().equals(transportProvider.getClass().getName())) &&
+                    socketChannelClass.equals(transportProvider.createServerSocketChannelClass())) {
+                return transportProvider;
             }
         }
+        return null;
+    }
+
+    private static Class<? extends ServerSocketChannel> createSocketChannelClass(Class<? extends ServerSocketChannel> socketChannelClass,
+                                                                                 TransportProvider transportProvider) {
+        Class<? extends ServerSocketChannel> channelClass = socketChannelClass;
+        if (channelClass == null && transportProvider != null) {
+            channelClass = transportProvider.createServerSocketChannelClass();
+        }
         if (channelClass == null) {
             channelClass = NioServerSocketChannel.class;
         }
@@ -431,6 +891,29 @@ public final class Server implements AutoCloseable {
         return channelClass;
     }
 
+    /**
+     * The protocol providers, loaded once per JVM.
+     */
+    private static class ProtocolProviders {
+
+        private static final List<ServerProtocolProvider<Server>> protocolProviders =
+                load();
+
+        private static List<ServerProtocolProvider<Server>> load() {
+            List<ServerProtocolProvider<Server>> list = new ArrayList<>();
+            for (ServerProtocolProvider<?> provider : ServiceLoader.load(ServerProtocolProvider.class)) {
+                // the service loader can not express the type argument, the providers are written for this server
+                @SuppressWarnings("unchecked")
+                ServerProtocolProvider<Server> serverProtocolProvider = (ServerProtocolProvider<Server>) provider;
+                list.add(serverProtocolProvider);
+                if (logger.isLoggable(Level.FINEST)) {
+                    logger.log(Level.FINEST, "protocol provider up: " + provider.getClass().getName());
+                }
+            }
+            return Collections.unmodifiableList(list);
+        }
+    }
+
     static class HttpServerParentThreadFactory implements ThreadFactory {
 
         private long number = 0;
@@ -455,6 +938,30 @@ public final class Server implements AutoCloseable {
         }
     }
 
+    static class FileThreadFactory implements ThreadFactory {
+
+        private long number = 0;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "org-xbib-netty-http-server-file-" + (number++));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    static class SslContextThreadFactory implements ThreadFactory {
+
+        private long number = 0;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "org-xbib-netty-http-server-ssl-" + (number++));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     static class BlockingThreadFactory implements ThreadFactory {
 
         private long number = 0;
@@ -522,7 +1029,10 @@ public final class Server implements AutoCloseable {
 
         private final DefaultServerConfig serverConfig;
 
+        private final List<Listener> listeners;
+
         private Builder(HttpServerDomain httpServerDomain) {
+            this.listeners = new ArrayList<>();
             this.serverConfig = new DefaultServerConfig();
             this.serverConfig.setAddress(httpServerDomain.getHttpAddress());
             addDomain(httpServerDomain);
@@ -578,6 +1088,29 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Set the time after which a connection without requests in flight is closed
+         * if no new request arrives.
+         *
+         * @param keepAliveTimeoutMillis the keep-alive timeout in milliseconds, or 0 for no timeout
+         * @return this builder
+         */
+        public Builder setKeepAliveTimeoutMillis(int keepAliveTimeoutMillis) {
+            this.serverConfig.setKeepAliveTimeoutMillis(keepAliveTimeoutMillis);
+            return this;
+        }
+
+        /**
+         * Set the time after which a connection is closed if a request is not answered.
+         *
+         * @param requestTimeoutMillis the request timeout in milliseconds, or 0 for no timeout
+         * @return this builder
+         */
+        public Builder setRequestTimeoutMillis(int requestTimeoutMillis) {
+            this.serverConfig.setRequestTimeoutMillis(requestTimeoutMillis);
+            return this;
+        }
+
         public Builder setParentThreadCount(int parentThreadCount) {
             this.serverConfig.setParentThreadCount(parentThreadCount);
             return this;
@@ -588,6 +1121,20 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Enable the thread-per-core mode. The child event loops and the blocking worker threads are bound
+         * to the CPUs of the set, the n-th worker thread to the CPU of the n-th event loop. Without an explicit
+         * child thread count, there is one child event loop for each CPU of the set.
+         *
+         * @param cpuSet the CPU set, for example {@code CpuSet.parse("0-15")} or {@code CpuSet.ofNumaNode(0)},
+         *               or null to disable the thread-per-core mode
+         * @return this builder
+         */
+        public Builder setCpuSet(CpuSet cpuSet) {
+            this.serverConfig.setCpuSet(cpuSet);
+            return this;
+        }
+
         public Builder setBlockingThreadCount(int blockingThreadCount) {
             this.serverConfig.setBlockingThreadCount(blockingThreadCount);
             return this;
@@ -598,6 +1145,20 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Set the water marks of the blocking thread pool queue. If the queue reaches the high water mark,
+         * reading is paused on the connections which queue requests, until the queue falls to the low water mark.
+         *
+         * @param blockingQueueHighWaterMark the high water mark, or 0 for no pausing
+         * @param blockingQueueLowWaterMark the low water mark, below the high water mark
+         * @return this builder
+         */
+        public Builder setBlockingQueueWaterMarks(int blockingQueueHighWaterMark, int blockingQueueLowWaterMark) {
+            this.serverConfig.setBlockingQueueHighWaterMark(blockingQueueHighWaterMark);
+            this.serverConfig.setBlockingQueueLowWaterMark(blockingQueueLowWaterMark);
+            return this;
+        }
+
         public Builder setTcpSendBufferSize(int tcpSendBufferSize) {
             this.serverConfig.setTcpSendBufferSize(tcpSendBufferSize);
             return this;
@@ -618,6 +1179,19 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Bind one server socket per parent thread to the same address with SO_REUSEPORT, so the kernel
+         * balances incoming connections across the parent threads. This requires a transport provider
+         * which supports SO_REUSEPORT, otherwise a single server socket is bound.
+         *
+         * @param reusePort true for one server socket per parent thread
+         * @return this builder
+         */
+        public Builder setReusePort(boolean reusePort) {
+            this.serverConfig.setReusePort(reusePort);
+            return this;
+        }
+
         public Builder setBacklogSize(int backlogSize) {
             this.serverConfig.setBackLogSize(backlogSize);
             return this;
@@ -643,6 +1217,23 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Write request content larger than the given threshold to a temporary file
+         * instead of holding it in memory.
+         *
+         * @param contentSpillThreshold the threshold in bytes, or 0 for keeping all request content in memory
+         * @return this builder
+         */
+        public Builder setContentSpillThreshold(int contentSpillThreshold) {
+            this.serverConfig.setContentSpillThreshold(contentSpillThreshold);
+            return this;
+        }
+
+        public Builder setContentSpillDirectory(Path contentSpillDirectory) {
+            this.serverConfig.setContentSpillDirectory(contentSpillDirectory);
+            return this;
+        }
+
         public Builder setMaxCompositeBufferComponents(int maxCompositeBufferComponents) {
             this.serverConfig.setMaxCompositeBufferComponents(maxCompositeBufferComponents);
             return this;
@@ -653,6 +1244,72 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Set socket options which are specific to the native transport, like TCP_FASTOPEN or
+         * TCP_DEFER_ACCEPT. The transport provider applies the options it supports.
+         *
+         * @param transportTuning the transport tuning
+         * @return this builder
+         */
+        public Builder setTransportTuning(TransportTuning transportTuning) {
+            this.serverConfig.setTransportTuning(transportTuning);
+            return this;
+        }
+
+        /**
+         * Set the dynamic sizing of TLS records. Small records for the first bytes after a handshake
+         * or an idle period reduce the time to the first byte, large records are used for bulk transfer.
+         *
+         * @param tlsRecordSizing the TLS record sizing
+         * @return this builder
+         */
+        public Builder setTlsRecordSizing(TlsRecordSizing tlsRecordSizing) {
+            this.serverConfig.setTlsRecordSizing(tlsRecordSizing);
+            return this;
+        }
+
+        /**
+         * Request kernel TLS for the epoll transport, so file regions are encrypted by the kernel.
+         * If {@link KernelTls} is not available, the server logs the reason and falls back to
+         * the {@code SslHandler}, see {@link ServerTransport#isKtls()}.
+         *
+         * @param ktls true to request kernel TLS
+         * @return this builder
+         */
+        public Builder setKtls(boolean ktls) {
+            this.serverConfig.setKtls(ktls);
+            return this;
+        }
+
+        /**
+         * Set the tuning profile for the buffer allocator, the receive buffers and the event loops of this server.
+         * A buffer allocator set by {@link #setByteBufAllocator(ByteBufAllocator)} takes precedence.
+         *
+         * @param tuningProfile the tuning profile
+         * @return this builder
+         */
+        public Builder setTuningProfile(TuningProfile tuningProfile) {
+            this.serverConfig.setTuningProfile(tuningProfile);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of response bytes which are queued per connection
+         * while the connection is not writable.
+         *
+         * @param responseQueueLimit the limit in bytes
+         * @return this builder
+         */
+        public Builder setResponseQueueLimit(int responseQueueLimit) {
+            this.serverConfig.setResponseQueueLimit(responseQueueLimit);
+            return this;
+        }
+
+        public Builder setResponseQueuePolicy(ResponseQueuePolicy responseQueuePolicy) {
+            this.serverConfig.setResponseQueuePolicy(responseQueuePolicy);
+            return this;
+        }
+
         public Builder enableCompression(boolean enableCompression) {
             this.serverConfig.setCompression(enableCompression);
             return this;
@@ -693,6 +1350,112 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Set a source of keys and certificates for server names which are not configured as domains.
+         * The SSL context of a server name is built on the first TLS client hello for the name,
+         * off the event loops, and cached.
+         *
+         * @param keyCertificateSource the key certificate source
+         * @return this builder
+         */
+        public Builder setKeyCertificateSource(ServerKeyCertificateSource keyCertificateSource) {
+            this.serverConfig.setKeyCertificateSource(keyCertificateSource);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of SSL contexts of the key certificate source which are cached.
+         * The least recently used context is evicted first.
+         *
+         * @param sslContextCacheSize the maximum number of cached SSL contexts
+         * @return this builder
+         */
+        public Builder setSslContextCacheSize(int sslContextCacheSize) {
+            this.serverConfig.setSslContextCacheSize(sslContextCacheSize);
+            return this;
+        }
+
+        /**
+         * Set the time after which an unused SSL context of the key certificate source is evicted.
+         *
+         * @param sslContextIdleTimeoutMillis the idle timeout in milliseconds, or 0 for no idle eviction
+         * @return this builder
+         */
+        public Builder setSslContextIdleTimeoutMillis(long sslContextIdleTimeoutMillis) {
+            this.serverConfig.setSslContextIdleTimeoutMillis(sslContextIdleTimeoutMillis);
+            return this;
+        }
+
+        /**
+         * Set the size of the TLS session cache of each SSL context.
+         *
+         * @param sessionCacheSize the maximum number of cached sessions
+         * @return this builder
+         */
+        public Builder setSessionCacheSize(int sessionCacheSize) {
+            this.serverConfig.setSessionCacheSize(sessionCacheSize);
+            return this;
+        }
+
+        /**
+         * Set the time for which TLS sessions can be resumed.
+         *
+         * @param sessionTimeoutSeconds the session timeout in seconds
+         * @return this builder
+         */
+        public Builder setSessionTimeoutSeconds(int sessionTimeoutSeconds) {
+            this.serverConfig.setSessionTimeoutSeconds(sessionTimeoutSeconds);
+            return this;
+        }
+
+        /**
+         * Set a file with session ticket keys, so the nodes of a cluster can resume the TLS sessions
+         * of each other. The file holds keys of 48 bytes, the first key encrypts new tickets.
+         * Ticket keys are supported by OpenSSL only.
+         *
+         * @param sessionTicketKeyFile the session ticket key file
+         * @return this builder
+         */
+        public Builder setSessionTicketKeyFile(Path sessionTicketKeyFile) {
+            this.serverConfig.setSessionTicketKeyFile(sessionTicketKeyFile);
+            return this;
+        }
+
+        /**
+         * Set the interval for rotating session ticket keys. With a key file, the file is read again,
+         * otherwise a new random key is generated and the previous key still decrypts tickets.
+         *
+         * @param sessionTicketKeyRotationMillis the rotation interval in milliseconds, or 0 for no rotation
+         * @return this builder
+         */
+        public Builder setSessionTicketKeyRotationMillis(long sessionTicketKeyRotationMillis) {
+            this.serverConfig.setSessionTicketKeyRotationMillis(sessionTicketKeyRotationMillis);
+            return this;
+        }
+
+        /**
+         * Set the interval for probing the child event loops. A probe which waits longer than the stall threshold
+         * is reported with the stack of the event loop thread and the request which blocks the event loop.
+         *
+         * @param eventLoopProbeIntervalMillis the probe interval in milliseconds, or 0 for no probes
+         * @return this builder
+         */
+        public Builder setEventLoopProbeIntervalMillis(long eventLoopProbeIntervalMillis) {
+            this.serverConfig.setEventLoopProbeIntervalMillis(eventLoopProbeIntervalMillis);
+            return this;
+        }
+
+        /**
+         * Set the scheduling lag after which a child event loop is stalled.
+         *
+         * @param eventLoopStallThresholdMillis the stall threshold in milliseconds
+         * @return this builder
+         */
+        public Builder setEventLoopStallThresholdMillis(long eventLoopStallThresholdMillis) {
+            this.serverConfig.setEventLoopStallThresholdMillis(eventLoopStallThresholdMillis);
+            return this;
+        }
+
         public Builder addDomain(Domain<HttpEndpointResolver> domain) {
             this.serverConfig.addDomain(domain);
             return this;
@@ -703,14 +1466,36 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Add a listener on the address of the given domain. The listener has its own protocol,
+         * transport layer security and domains, but shares the event loops, the blocking executor
+         * and the byte buffer allocator with the other listeners of the server.
+         *
+         * @param httpServerDomain the default domain of the listener
+         * @param httpServerDomains more domains of the listener, on the same address
+         * @return this builder
+         */
+        public Builder addListener(HttpServerDomain httpServerDomain, HttpServerDomain... httpServerDomains) {
+            List<Domain<? extends EndpointResolver<?>>> domains = new ArrayList<>();
+            domains.add(httpServerDomain);
+            domains.addAll(Arrays.asList(httpServerDomains));
+            listeners.add(new Listener(httpServerDomain.getHttpAddress(), domains));
+            return this;
+        }
+
         public Server build() {
             int maxThreads = serverConfig.getBlockingThreadCount();
             int maxQueue = serverConfig.getBlockingQueueCount();
             BlockingThreadPoolExecutor executor = null;
             if (maxThreads > 0 && maxQueue > 0) {
-                executor = new BlockingThreadPoolExecutor(maxThreads, maxQueue, new BlockingThreadFactory());
-                executor.setRejectedExecutionHandler((runnable, threadPoolExecutor) ->
-                        logger.log(Level.SEVERE, "rejected: " + runnable));
+                // in thread-per-core mode, the n-th worker thread shares the CPU of the n-th child event loop
+                ThreadFactory threadFactory = serverConfig.getCpuSet() != null ?
+                        new AffinityThreadFactory("org-xbib-netty-http-server-pool-", serverConfig.getCpuSet()) :
+                        new BlockingThreadFactory();
+                executor = new BlockingThreadPoolExecutor(maxThreads, maxQueue, threadFactory);
+                executor.setRejectedExecutionHandler((runnable, threadPoolExecutor) -> {
+                    throw new RejectedExecutionException("rejected: " + runnable);
+                });
             }
             if (serverConfig.isAutoDomain()) {
                 // unpack subject alternative names into separate domains
@@ -735,7 +1520,11 @@ public final class Server implements AutoCloseable {
                     }
                 }
             }
-            for (Domain<? extends EndpointResolver<?>> domain : serverConfig.getDomains()) {
+            List<Domain<? extends EndpointResolver<?>>> allDomains = new ArrayList<>(serverConfig.getDomains());
+            for (Listener listener : listeners) {
+                allDomains.addAll(listener.getDomains());
+            }
+            for (Domain<? extends EndpointResolver<?>> domain : allDomains) {
                 if (domain.getCertificateChain() != null) {
                     for (X509Certificate certificate : domain.getCertificateChain()) {
                         try {
@@ -751,8 +1540,11 @@ public final class Server implements AutoCloseable {
                 }
             }
             logger.log(Level.INFO, "configured domains: " + serverConfig.getDomains());
-            return new Server(serverConfig, byteBufAllocator, parentEventLoopGroup, childEventLoopGroup,
-                    socketChannelClass, executor);
+            // each server has an allocator of its own, so its arenas are not shared with other servers
+            ByteBufAllocator allocator = byteBufAllocator != null ? byteBufAllocator :
+                    serverConfig.getTuningProfile().newByteBufAllocator();
+            return new Server(serverConfig, allocator, parentEventLoopGroup, childEventLoopGroup,
+                    socketChannelClass, executor, listeners);
         }
     }
 }
@@ -1,5 +1,7 @@
 package org.xbib.netty.http.server.endpoint;
 
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import org.xbib.datastructures.common.Pair;
 import org.xbib.net.Parameter;
 import org.xbib.net.PathNormalizer;
@@ -10,6 +12,7 @@ import org.xbib.netty.http.common.HttpMethod;
 import org.xbib.netty.http.server.api.Domain;
 import org.xbib.netty.http.server.api.Endpoint;
 import org.xbib.netty.http.server.api.EndpointResolver;
+import org.xbib.netty.http.server.api.HeaderFilter;
 import org.xbib.netty.http.server.api.ServerRequest;
 import org.xbib.netty.http.server.api.ServerResponse;
 import org.xbib.netty.http.server.api.Filter;
@@ -36,6 +39,10 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
 
     private final List<String> contentTypes;
 
+    private final int maxContentLength;
+
+    private final List<HeaderFilter> headerFilters;
+
     private final List<Filter> beforeFilters;
 
     private final List<Filter> afterFilters;
@@ -44,12 +51,16 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
                          String path,
                          EnumSet<HttpMethod> methods,
                          List<String> contentTypes,
+                         int maxContentLength,
+                         List<HeaderFilter> headerFilters,
                          List<Filter> beforeFilters,
                          List<Filter> afterFilters) {
         this.prefix = PathNormalizer.normalize(prefix);
         this.path = PathNormalizer.normalize(path);
         this.methods = methods;
         this.contentTypes = contentTypes;
+        this.maxContentLength = maxContentLength;
+        this.headerFilters = headerFilters;
         this.beforeFilters = beforeFilters;
         this.afterFilters = afterFilters;
     }
@@ -64,6 +75,8 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
                 .setPath(endpoint.path)
                 .setMethods(endpoint.methods)
                 .setContentTypes(endpoint.contentTypes)
+                .setMaxContentLength(endpoint.maxContentLength)
+                .setHeaderFilters(endpoint.headerFilters)
                 .setBefore(endpoint.beforeFilters)
                 .setAfter(endpoint.afterFilters);
     }
@@ -86,6 +99,22 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
                 contentTypes.stream().anyMatch(httpEndpointDescriptor.getContentType()::startsWith));
     }
 
+    @Override
+    public int getMaxContentLength() {
+        return maxContentLength;
+    }
+
+    @Override
+    public HttpResponseStatus acceptHead(HttpRequest httpRequest) {
+        for (HeaderFilter headerFilter : headerFilters) {
+            HttpResponseStatus status = headerFilter.handle(httpRequest);
+            if (status != null) {
+                return status;
+            }
+        }
+        return null;
+    }
+
     @Override
     public ServerRequest resolveRequest(ServerRequest.Builder serverRequestBuilder,
                                         Domain<? extends EndpointResolver<? extends Endpoint<?>>> domain,
@@ -129,6 +158,8 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
         return "Endpoint[prefix=" + prefix + ",path=" + path +
                 ",methods=" + methods +
                 ",contentTypes=" + contentTypes +
+                ",maxContentLength=" + maxContentLength +
+                ",headerFilters=" + headerFilters +
                 ",before=" + beforeFilters +
                 ",after=" + afterFilters +
                 "]";
@@ -158,6 +189,10 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
 
         private List<String> contentTypes;
 
+        private int maxContentLength;
+
+        private List<HeaderFilter> headerFilters;
+
         private List<Filter> beforeFilters;
 
         private List<Filter> afterFilters;
@@ -167,6 +202,8 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
             this.path = "/**";
             this.methods = DEFAULT_METHODS;
             this.contentTypes = new ArrayList<>();
+            this.maxContentLength = 0;
+            this.headerFilters = new ArrayList<>();
             this.beforeFilters = new ArrayList<>();
             this.afterFilters = new ArrayList<>();
         }
@@ -209,6 +246,30 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
             return this;
         }
 
+        /**
+         * Set the maximum request content length for this endpoint. Requests announcing or sending
+         * more content are rejected before the content is aggregated.
+         *
+         * @param maxContentLength the maximum content length, or 0 for the server default
+         * @return this builder
+         */
+        public Builder setMaxContentLength(int maxContentLength) {
+            this.maxContentLength = maxContentLength;
+            return this;
+        }
+
+        public Builder setHeaderFilters(List<HeaderFilter> headerFilters) {
+            Objects.requireNonNull(headerFilters);
+            this.headerFilters = headerFilters;
+            return this;
+        }
+
+        public Builder addHeaderFilter(HeaderFilter headerFilter) {
+            Objects.requireNonNull(headerFilter);
+            this.headerFilters.add(headerFilter);
+            return this;
+        }
+
         public Builder setBefore(List<Filter> filters) {
             Objects.requireNonNull(filters);
             this.beforeFilters = filters;
@@ -223,7 +284,7 @@ public class HttpEndpoint implements Endpoint<HttpEndpointDescriptor> {
 
         public HttpEndpoint build() {
             return new HttpEndpoint(prefix, path, methods, contentTypes,
-                    beforeFilters, afterFilters);
+                    maxContentLength, headerFilters, beforeFilters, afterFilters);
         }
     }
 }
@@ -1,7 +1,11 @@
 package org.xbib.netty.http.server.endpoint;
 
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
 import org.xbib.netty.http.common.HttpMethod;
 import org.xbib.netty.http.common.util.LimitedConcurrentHashMap;
+import org.xbib.netty.http.server.HttpServerRequest;
 import org.xbib.netty.http.server.api.EndpointResolver;
 import org.xbib.netty.http.server.api.Filter;
 import org.xbib.netty.http.server.api.ServerRequest;
@@ -31,6 +35,11 @@ public class HttpEndpointResolver implements EndpointResolver<HttpEndpoint> {
         this.endpointDescriptors = new LimitedConcurrentHashMap<>(limit != null ? limit : DEFAULT_LIMIT);
     }
 
+    @Override
+    public List<HttpEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
     /**
      * Find matching endpoints for a server request.
      * @return a sorted list of matching endpoints
@@ -49,6 +58,16 @@ public class HttpEndpointResolver implements EndpointResolver<HttpEndpoint> {
     public void handle(HttpEndpoint endpoint,
                        ServerRequest serverRequest,
                        ServerResponse serverResponse) throws IOException {
+        HttpResponseStatus status = serverRequest instanceof HttpServerRequest ?
+                ((HttpServerRequest) serverRequest).acceptHead(endpoint) :
+                endpoint.acceptHead(new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                        serverRequest.getMethod(), serverRequest.getRequestURI(), serverRequest.getHeaders()));
+        if (status != null) {
+            serverResponse.getBuilder().setStatus(status.code())
+                    .setContentType("text/plain;charset=utf-8")
+                    .build().write(status.reasonPhrase());
+            return;
+        }
         endpoint.before(serverRequest, serverResponse);
         dispatcher.handle(serverRequest, serverResponse);
         endpoint.after(serverRequest, serverResponse);
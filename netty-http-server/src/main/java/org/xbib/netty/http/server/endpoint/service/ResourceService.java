@@ -328,7 +328,9 @@ public abstract class ResourceService implements Filter {
                     .build().flush();
         } else {
             MappedByteBuffer mappedByteBuffer = null;
-            try {
+            // the mapping stays valid after the file channel is closed. The mapped buffer is a direct buffer,
+            // so with TLS, the SSL engine encrypts from the page cache without copying the file to the heap
+            try (fileChannel) {
                 mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, size);
             } catch (IOException e) {
                 // resource is not a file that can be mapped
@@ -0,0 +1,276 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.xbib.netty.http.server.api.ServerConfig;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connection timeouts of a server. Instead of scheduling timeout tasks per channel, each event loop
+ * runs a single hashed timing wheel. Channels only record the time of their last activity,
+ * the wheel checks the deadlines of a channel when its slot comes up and either closes the channel
+ * or puts it back into the slot of its next deadline.
+ *
+ * All state of a connection is accessed from the event loop of the connection only.
+ */
+public class ConnectionTimeouts {
+
+    private static final Logger logger = Logger.getLogger(ConnectionTimeouts.class.getName());
+
+    private static final long TICK_MILLIS = 100L;
+
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * The timeouts.
+     */
+    public enum Kind {
+
+        /**
+         * No content was read for a request which is being received.
+         */
+        READ,
+
+        /**
+         * Nothing was read or written.
+         */
+        IDLE,
+
+        /**
+         * No request was read on a connection without requests in flight.
+         */
+        KEEP_ALIVE,
+
+        /**
+         * A request was not answered in time.
+         */
+        REQUEST
+    }
+
+    private final long readTimeoutNanos;
+
+    private final long idleTimeoutNanos;
+
+    private final long keepAliveTimeoutNanos;
+
+    private final long requestTimeoutNanos;
+
+    private final Map<EventExecutor, Wheel> wheels;
+
+    private final Map<Kind, LongAdder> closed;
+
+    public ConnectionTimeouts(ServerConfig serverConfig) {
+        this.readTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(serverConfig.getReadTimeoutMillis());
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(serverConfig.getIdleTimeoutMillis());
+        this.keepAliveTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(serverConfig.getKeepAliveTimeoutMillis());
+        this.requestTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(serverConfig.getRequestTimeoutMillis());
+        this.wheels = new ConcurrentHashMap<>();
+        this.closed = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            closed.put(kind, new LongAdder());
+        }
+    }
+
+    /**
+     * The number of connections which were closed by a timeout.
+     *
+     * @param kind the timeout
+     * @return the number of closed connections
+     */
+    public long getClosedConnections(Kind kind) {
+        return closed.get(kind).sum();
+    }
+
+    /**
+     * Stop all timing wheels.
+     */
+    public void close() {
+        for (Wheel wheel : wheels.values()) {
+            wheel.cancel();
+        }
+        wheels.clear();
+    }
+
+    /**
+     * Register a channel. Must be called from the event loop of the channel.
+     *
+     * @param channel the channel
+     * @return the activity of the channel
+     */
+    Activity register(Channel channel) {
+        Wheel wheel = wheels.computeIfAbsent(channel.eventLoop(), Wheel::new);
+        Activity activity = new Activity(channel, wheel);
+        wheel.add(activity);
+        return activity;
+    }
+
+    /**
+     * The activity of a connection.
+     */
+    class Activity {
+
+        private final Channel channel;
+
+        private final Wheel wheel;
+
+        private long lastRead;
+
+        private long lastWrite;
+
+        private long requestStart;
+
+        private int inFlight;
+
+        private boolean receiving;
+
+        private boolean unregistered;
+
+        Activity(Channel channel, Wheel wheel) {
+            this.channel = channel;
+            this.wheel = wheel;
+            this.lastRead = wheel.now;
+            this.lastWrite = wheel.now;
+        }
+
+        void read() {
+            lastRead = wheel.now;
+        }
+
+        void write() {
+            lastWrite = wheel.now;
+        }
+
+        void requestStarted() {
+            if (inFlight++ == 0) {
+                requestStart = wheel.now;
+            }
+            receiving = true;
+        }
+
+        void requestReceived() {
+            receiving = false;
+        }
+
+        void responseCompleted() {
+            if (inFlight > 0 && --inFlight > 0) {
+                // the next pipelined request is measured from now on
+                requestStart = wheel.now;
+            }
+        }
+
+        boolean isBusy() {
+            return inFlight > 0;
+        }
+
+        void unregister() {
+            unregistered = true;
+        }
+
+        private Kind expired(long now) {
+            if (receiving && readTimeoutNanos > 0 && now - lastRead >= readTimeoutNanos) {
+                return Kind.READ;
+            }
+            if (inFlight > 0 && requestTimeoutNanos > 0 && now - requestStart >= requestTimeoutNanos) {
+                return Kind.REQUEST;
+            }
+            if (inFlight == 0 && keepAliveTimeoutNanos > 0 && now - lastRead >= keepAliveTimeoutNanos) {
+                return Kind.KEEP_ALIVE;
+            }
+            if (idleTimeoutNanos > 0 && now - Math.max(lastRead, lastWrite) >= idleTimeoutNanos) {
+                return Kind.IDLE;
+            }
+            return null;
+        }
+
+        private long nextDeadline(long now) {
+            long deadline = Long.MAX_VALUE;
+            if (receiving && readTimeoutNanos > 0) {
+                deadline = Math.min(deadline, lastRead + readTimeoutNanos);
+            }
+            if (inFlight > 0 && requestTimeoutNanos > 0) {
+                deadline = Math.min(deadline, requestStart + requestTimeoutNanos);
+            }
+            if (inFlight == 0 && keepAliveTimeoutNanos > 0) {
+                deadline = Math.min(deadline, lastRead + keepAliveTimeoutNanos);
+            }
+            if (idleTimeoutNanos > 0) {
+                deadline = Math.min(deadline, Math.max(lastRead, lastWrite) + idleTimeoutNanos);
+            }
+            return deadline == Long.MAX_VALUE ? now + wheel.revolutionNanos : deadline;
+        }
+    }
+
+    /**
+     * A timing wheel driven by a periodic task of an event loop. Connections with deadlines beyond
+     * one revolution are checked once per revolution and put back.
+     */
+    private class Wheel implements Runnable {
+
+        private final List<List<Activity>> slots;
+
+        private final long tickNanos;
+
+        private final long revolutionNanos;
+
+        private final ScheduledFuture<?> future;
+
+        private int cursor;
+
+        private long now;
+
+        Wheel(EventExecutor executor) {
+            this.slots = new ArrayList<>(WHEEL_SIZE);
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                slots.add(new ArrayList<>());
+            }
+            this.tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+            this.revolutionNanos = tickNanos * (WHEEL_SIZE - 1);
+            this.now = System.nanoTime();
+            this.future = executor.scheduleAtFixedRate(this, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        void add(Activity activity) {
+            long delay = activity.nextDeadline(now) - now;
+            long ticks = Math.max(1L, Math.min((delay + tickNanos - 1) / tickNanos, WHEEL_SIZE - 1));
+            slots.get((int) ((cursor + ticks) % WHEEL_SIZE)).add(activity);
+        }
+
+        void cancel() {
+            future.cancel(false);
+        }
+
+        @Override
+        public void run() {
+            now = System.nanoTime();
+            cursor = (cursor + 1) % WHEEL_SIZE;
+            List<Activity> slot = slots.get(cursor);
+            if (slot.isEmpty()) {
+                return;
+            }
+            slots.set(cursor, new ArrayList<>());
+            for (Activity activity : slot) {
+                if (activity.unregistered || !activity.channel.isActive()) {
+                    continue;
+                }
+                Kind kind = activity.expired(now);
+                if (kind != null) {
+                    logger.log(Level.FINE, () -> activity.channel + " closing connection, timeout: " + kind);
+                    closed.get(kind).increment();
+                    activity.unregistered = true;
+                    activity.channel.close();
+                } else {
+                    add(activity);
+                }
+            }
+        }
+    }
+}
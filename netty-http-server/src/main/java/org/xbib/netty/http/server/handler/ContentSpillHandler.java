@@ -0,0 +1,354 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Aggregates request content which may exceed a threshold. Content up to the threshold is collected
+ * in memory, larger content is streamed into a temporary file and passed on as
+ * {@link SpilledFullHttpRequest}. Requests which announce a content length below the threshold
+ * are passed on unchanged to the HTTP object aggregator.
+ *
+ * The temporary file is created, written and closed by the file executor, never on the event loop.
+ * Reading from the connection is paused while more than the threshold is waiting to be written, and
+ * while a spilled request is completed. Messages which arrive in the meantime are held back and passed
+ * on after the spilled request, so the order of requests is kept.
+ *
+ * This handler must be placed in front of the HTTP object aggregator, the maximum content length
+ * must be enforced by a handler in front of this handler.
+ */
+public class ContentSpillHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = Logger.getLogger(ContentSpillHandler.class.getName());
+
+    private final int threshold;
+
+    private final Path directory;
+
+    private final int maxCompositeBufferComponents;
+
+    private final Executor fileExecutor;
+
+    private final ArrayDeque<Object> heldMessages;
+
+    private HttpRequest httpRequest;
+
+    private CompositeByteBuf buffer;
+
+    private Spill spill;
+
+    private Spill completingSpill;
+
+    private long length;
+
+    private long pendingBytes;
+
+    public ContentSpillHandler(int threshold, Path directory, int maxCompositeBufferComponents,
+                               Executor fileExecutor) {
+        this.threshold = threshold;
+        this.directory = directory;
+        this.maxCompositeBufferComponents = maxCompositeBufferComponents;
+        this.fileExecutor = fileExecutor;
+        this.heldMessages = new ArrayDeque<>();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (completingSpill != null) {
+            heldMessages.add(msg);
+            return;
+        }
+        if (msg instanceof HttpRequest) {
+            discard();
+            HttpRequest request = (HttpRequest) msg;
+            if (request instanceof FullHttpRequest || !mayExceedThreshold(request)) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            this.httpRequest = request;
+            this.buffer = ctx.alloc().compositeBuffer(maxCompositeBufferComponents);
+            this.length = 0L;
+            if (HttpUtil.is100ContinueExpected(request)) {
+                // the aggregator never sees this request head, so we have to answer the expectation
+                ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                        HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+                request.headers().remove(HttpHeaderNames.EXPECT);
+            }
+        } else if (msg instanceof HttpContent && httpRequest != null) {
+            HttpContent httpContent = (HttpContent) msg;
+            try {
+                append(ctx, httpContent.content());
+                if (httpContent instanceof LastHttpContent) {
+                    complete(ctx, ((LastHttpContent) httpContent).trailingHeaders());
+                }
+            } finally {
+                httpContent.release();
+            }
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reset();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        reset();
+    }
+
+    private boolean mayExceedThreshold(HttpRequest request) {
+        return HttpUtil.isTransferEncodingChunked(request) ||
+                HttpUtil.getContentLength(request, 0L) > threshold;
+    }
+
+    private void append(ChannelHandlerContext ctx, ByteBuf byteBuf) {
+        length += byteBuf.readableBytes();
+        if (spill == null && length > threshold) {
+            spill = new Spill(directory, fileExecutor);
+            write(ctx, buffer);
+            buffer = null;
+        }
+        if (spill != null) {
+            write(ctx, byteBuf.retain());
+        } else {
+            buffer.addComponent(true, byteBuf.retain());
+        }
+    }
+
+    private void write(ChannelHandlerContext ctx, ByteBuf byteBuf) {
+        int n = byteBuf.readableBytes();
+        pendingBytes += n;
+        updateReadPause(ctx);
+        spill.write(byteBuf).whenComplete((v, t) -> executeOnLoop(ctx, () -> {
+            pendingBytes -= n;
+            updateReadPause(ctx);
+        }, null));
+    }
+
+    private void complete(ChannelHandlerContext ctx, HttpHeaders trailingHeaders) {
+        HttpHeaders headers = httpRequest.headers();
+        headers.remove(HttpHeaderNames.TRANSFER_ENCODING);
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, length);
+        if (spill == null) {
+            FullHttpRequest fullHttpRequest = new DefaultFullHttpRequest(httpRequest.protocolVersion(),
+                    httpRequest.method(), httpRequest.uri(), buffer, headers, trailingHeaders.copy());
+            fullHttpRequest.setDecoderResult(httpRequest.decoderResult());
+            buffer = null;
+            httpRequest = null;
+            ctx.fireChannelRead(fullHttpRequest);
+            return;
+        }
+        Spill s = spill;
+        completingSpill = s;
+        spill = null;
+        updateReadPause(ctx);
+        s.complete(httpRequest, trailingHeaders.copy(), length).whenComplete((fullHttpRequest, t) ->
+                executeOnLoop(ctx, () -> completed(ctx, s, fullHttpRequest, t), fullHttpRequest));
+        httpRequest = null;
+    }
+
+    private void completed(ChannelHandlerContext ctx, Spill s, FullHttpRequest fullHttpRequest, Throwable t) {
+        if (completingSpill != s) {
+            // the connection was closed in the meantime
+            ReferenceCountUtil.release(fullHttpRequest);
+            return;
+        }
+        completingSpill = null;
+        updateReadPause(ctx);
+        if (t != null) {
+            ctx.fireExceptionCaught(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+        } else {
+            ctx.fireChannelRead(fullHttpRequest);
+        }
+        Object msg;
+        while (completingSpill == null && (msg = heldMessages.poll()) != null) {
+            channelRead(ctx, msg);
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    private void updateReadPause(ChannelHandlerContext ctx) {
+        if (completingSpill != null || pendingBytes > threshold) {
+            ReadPause.pause(ctx.channel(), ReadPause.CONTENT_SPILL);
+        } else if (ReadPause.isPaused(ctx.channel(), ReadPause.CONTENT_SPILL)) {
+            ReadPause.resume(ctx.channel(), ReadPause.CONTENT_SPILL);
+        }
+    }
+
+    private static void executeOnLoop(ChannelHandlerContext ctx, Runnable runnable, Object msg) {
+        try {
+            ctx.executor().execute(runnable);
+        } catch (RejectedExecutionException e) {
+            // the event loop is shut down
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private void discard() {
+        httpRequest = null;
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+        if (spill != null) {
+            spill.discard();
+            spill = null;
+        }
+    }
+
+    private void reset() {
+        discard();
+        completingSpill = null;
+        Object msg;
+        while ((msg = heldMessages.poll()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /**
+     * The temporary file of the content of a request. The file operations are chained on the file executor,
+     * so they run one after the other, and the file is only accessed by the file executor.
+     */
+    private static class Spill {
+
+        private final Path directory;
+
+        private final Executor executor;
+
+        private CompletableFuture<Void> tail;
+
+        private volatile Path path;
+
+        private volatile FileChannel fileChannel;
+
+        private volatile Exception failure;
+
+        Spill(Path directory, Executor executor) {
+            this.directory = directory;
+            this.executor = executor;
+            this.tail = CompletableFuture.completedFuture(null);
+        }
+
+        /**
+         * Append content to the file. Takes over the reference of the content.
+         */
+        CompletableFuture<Void> write(ByteBuf byteBuf) {
+            tail = tail.thenRunAsync(() -> {
+                try {
+                    if (failure == null) {
+                        open();
+                        while (byteBuf.isReadable()) {
+                            byteBuf.readBytes(fileChannel, byteBuf.readableBytes());
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure = e;
+                } finally {
+                    byteBuf.release();
+                }
+            }, executor).exceptionally(t -> {
+                // the executor is shut down
+                failure = new IOException(t);
+                byteBuf.release();
+                return null;
+            });
+            return tail;
+        }
+
+        /**
+         * Close the file and create the request with the file as content.
+         */
+        CompletableFuture<FullHttpRequest> complete(HttpRequest httpRequest, HttpHeaders trailingHeaders,
+                                                    long length) {
+            CompletableFuture<FullHttpRequest> future = tail.thenApplyAsync(v -> {
+                try {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    fileChannel.close();
+                    fileChannel = null;
+                    FullHttpRequest fullHttpRequest = SpilledFullHttpRequest.of(httpRequest.protocolVersion(),
+                            httpRequest.method(), httpRequest.uri(), httpRequest.headers(), trailingHeaders,
+                            path, length);
+                    fullHttpRequest.setDecoderResult(httpRequest.decoderResult());
+                    path = null;
+                    return fullHttpRequest;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+            return future.whenComplete((fullHttpRequest, t) -> {
+                if (t != null) {
+                    closeAndDelete();
+                }
+            });
+        }
+
+        void discard() {
+            tail.thenRunAsync(this::closeAndDelete, executor).exceptionally(t -> {
+                closeAndDelete();
+                return null;
+            });
+        }
+
+        private void open() throws IOException {
+            if (fileChannel == null) {
+                path = directory != null ?
+                        Files.createTempFile(directory, "netty-http-content-", ".tmp") :
+                        Files.createTempFile("netty-http-content-", ".tmp");
+                logger.log(Level.FINE, () -> "writing request content to " + path);
+                fileChannel = FileChannel.open(path, StandardOpenOption.WRITE);
+            }
+        }
+
+        private void closeAndDelete() {
+            if (fileChannel != null) {
+                try {
+                    fileChannel.close();
+                } catch (IOException e) {
+                    logger.log(Level.FINE, e.getMessage(), e);
+                }
+                fileChannel = null;
+            }
+            if (path != null) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "unable to delete " + path + ": " + e.getMessage(), e);
+                }
+                path = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.xbib.netty.http.server.handler;
+
+/**
+ * User event fired on every connection when the server shuts down gracefully. Connections
+ * finish their requests in flight and do not accept new ones.
+ */
+public final class DrainEvent {
+
+    public static final DrainEvent INSTANCE = new DrainEvent();
+
+    private DrainEvent() {
+    }
+
+    @Override
+    public String toString() {
+        return "DrainEvent";
+    }
+}
@@ -0,0 +1,226 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.xbib.netty.http.server.api.ServerConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Health monitor of the child event loops of a server. At a fixed interval, a probe task is submitted
+ * to each event loop, and the time until the event loop runs the probe is the scheduling lag.
+ * If a probe is still waiting after the stall threshold, the event loop is stalled, for example by
+ * a handler which blocks. Then the stack of the event loop thread is sampled, and the stall is logged
+ * with the first application frame of the stack and the request which the event loop handles, if any.
+ *
+ * Requests are only tracked while they are handled on an event loop, not on the blocking executor.
+ */
+public class EventLoopMonitor {
+
+    private static final Logger logger = Logger.getLogger(EventLoopMonitor.class.getName());
+
+    private final long stallThresholdNanos;
+
+    private final List<Probe> probes;
+
+    /**
+     * The requests which are handled by event loop threads.
+     */
+    private final Map<Thread, String> requests;
+
+    private final LongAdder stalls;
+
+    private final LongAccumulator maxLagNanos;
+
+    private final ScheduledFuture<?> future;
+
+    public EventLoopMonitor(ServerConfig serverConfig, EventLoopGroup eventLoopGroup) {
+        long intervalMillis = serverConfig.getEventLoopProbeIntervalMillis();
+        this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(serverConfig.getEventLoopStallThresholdMillis());
+        this.probes = new ArrayList<>();
+        this.requests = new ConcurrentHashMap<>();
+        this.stalls = new LongAdder();
+        this.maxLagNanos = new LongAccumulator(Math::max, 0L);
+        if (intervalMillis > 0L) {
+            for (EventExecutor eventExecutor : eventLoopGroup) {
+                probes.add(new Probe(eventExecutor));
+            }
+            this.future = GlobalEventExecutor.INSTANCE.scheduleAtFixedRate(this::check,
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.future = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return future != null;
+    }
+
+    /**
+     * Mark the begin of a request which is handled by the current thread.
+     *
+     * @param request a description of the request
+     */
+    public void enter(String request) {
+        if (future != null) {
+            requests.put(Thread.currentThread(), request);
+        }
+    }
+
+    /**
+     * Mark the end of the request which is handled by the current thread.
+     */
+    public void exit() {
+        if (future != null) {
+            requests.remove(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Returns the number of stalls of the event loops.
+     *
+     * @return the number of stalls
+     */
+    public long getStalls() {
+        return stalls.sum();
+    }
+
+    /**
+     * Returns the maximum scheduling lag of the event loops since the server started.
+     *
+     * @return the maximum scheduling lag in nanoseconds
+     */
+    public long getMaxLagNanos() {
+        return maxLagNanos.get();
+    }
+
+    /**
+     * Returns the number of tasks which wait in the queues of the event loops.
+     *
+     * @return the number of pending tasks, or -1 if the event loops do not report their queues
+     */
+    public int getPendingTasks() {
+        int pendingTasks = 0;
+        for (Probe probe : probes) {
+            int n = probe.pendingTasks();
+            if (n < 0) {
+                return -1;
+            }
+            pendingTasks += n;
+        }
+        return pendingTasks;
+    }
+
+    public void close() {
+        if (future != null) {
+            future.cancel(false);
+        }
+        requests.clear();
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        for (Probe probe : probes) {
+            if (probe.eventExecutor.isShuttingDown()) {
+                continue;
+            }
+            long submitted = probe.submitted;
+            if (submitted == 0L) {
+                probe.reported = false;
+                probe.submitted = now;
+                try {
+                    probe.eventExecutor.execute(probe);
+                } catch (RejectedExecutionException e) {
+                    probe.submitted = 0L;
+                }
+            } else if (!probe.reported && now - submitted > stallThresholdNanos) {
+                probe.reported = true;
+                stalls.increment();
+                report(probe, now - submitted);
+            }
+        }
+    }
+
+    private void report(Probe probe, long lagNanos) {
+        Thread thread = probe.thread;
+        StackTraceElement[] stackTrace = thread != null ? thread.getStackTrace() : new StackTraceElement[0];
+        String request = thread != null ? requests.get(thread) : null;
+        StackTraceElement frame = findApplicationFrame(stackTrace);
+        logger.log(Level.WARNING, "event loop " + (thread != null ? thread.getName() : probe.eventExecutor) +
+                " stalled for " + TimeUnit.NANOSECONDS.toMillis(lagNanos) + " ms" +
+                ", pending tasks = " + probe.pendingTasks() +
+                ", handler = " + (frame != null ? frame : "<unknown>") +
+                ", request = " + (request != null ? request : "<none>"));
+        if (logger.isLoggable(Level.FINE)) {
+            StringBuilder sb = new StringBuilder("stack of stalled event loop:");
+            for (StackTraceElement element : stackTrace) {
+                sb.append("\n\tat ").append(element);
+            }
+            logger.log(Level.FINE, sb.toString());
+        }
+    }
+
+    private static StackTraceElement findApplicationFrame(StackTraceElement[] stackTrace) {
+        for (StackTraceElement element : stackTrace) {
+            String className = element.getClassName();
+            if (!className.startsWith("java.") && !className.startsWith("jdk.") &&
+                    !className.startsWith("sun.") && !className.startsWith("io.netty.")) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private class Probe implements Runnable {
+
+        private final EventExecutor eventExecutor;
+
+        /**
+         * The time when the pending probe was submitted, or 0 if no probe is pending.
+         */
+        private volatile long submitted;
+
+        private volatile Thread thread;
+
+        private boolean reported;
+
+        Probe(EventExecutor eventExecutor) {
+            this.eventExecutor = eventExecutor;
+            // the thread is captured up front, so even a stall before the first probe has a stack to sample
+            Callable<Thread> currentThread = Thread::currentThread;
+            try {
+                eventExecutor.submit(currentThread).addListener((Future<Thread> f) -> {
+                    if (f.isSuccess()) {
+                        thread = f.getNow();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.log(Level.FINE, () -> "event loop " + eventExecutor + " is shut down");
+            }
+        }
+
+        @Override
+        public void run() {
+            maxLagNanos.accumulate(System.nanoTime() - submitted);
+            submitted = 0L;
+        }
+
+        int pendingTasks() {
+            return eventExecutor instanceof SingleThreadEventExecutor ?
+                    ((SingleThreadEventExecutor) eventExecutor).pendingTasks() : -1;
+        }
+    }
+}
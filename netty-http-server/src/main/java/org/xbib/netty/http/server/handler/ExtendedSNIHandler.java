@@ -1,11 +1,15 @@
 package org.xbib.netty.http.server.handler;
 
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.ssl.SniHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AsyncMapping;
 import io.netty.util.Mapping;
+import io.netty.util.ReferenceCountUtil;
 import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.TlsRecordSizingHandler;
 import org.xbib.netty.http.server.api.ServerConfig;
 import java.net.InetSocketAddress;
 import java.util.Arrays;
@@ -22,16 +26,71 @@ public class ExtendedSNIHandler extends SniHandler {
 
     private final HttpAddress httpAddress;
 
+    private final SslSessionResumption sslSessionResumption;
+
     public ExtendedSNIHandler(Mapping<? super String, ? extends SslContext> mapping,
                               ServerConfig serverConfig, HttpAddress httpAddress) {
-        super(mapping);
+        this(mapping, serverConfig, httpAddress, null);
+    }
+
+    public ExtendedSNIHandler(Mapping<? super String, ? extends SslContext> mapping,
+                              ServerConfig serverConfig, HttpAddress httpAddress,
+                              SslSessionResumption sslSessionResumption) {
+        super(toAsyncMapping(mapping));
         this.serverConfig = serverConfig;
         this.httpAddress = httpAddress;
+        this.sslSessionResumption = sslSessionResumption;
+    }
+
+    /**
+     * Mappings which are also asynchronous, like {@link LazySslContextMapping}, are looked up without
+     * blocking the event loop. The looked up context is retained, like the contexts of
+     * {@link LazySslContextMapping}, and released in {@link #replaceHandler}.
+     */
+    @SuppressWarnings("unchecked")
+    private static AsyncMapping<? super String, ? extends SslContext> toAsyncMapping(Mapping<? super String, ? extends SslContext> mapping) {
+        if (mapping instanceof AsyncMapping) {
+            return (AsyncMapping<? super String, ? extends SslContext>) mapping;
+        }
+        return (input, promise) -> {
+            SslContext sslContext;
+            try {
+                sslContext = mapping.map(input);
+            } catch (Throwable t) {
+                return promise.setFailure(t);
+            }
+            return promise.setSuccess(ReferenceCountUtil.retain(sslContext));
+        };
     }
 
     @Override
     protected SslHandler newSslHandler(SslContext context, ByteBufAllocator allocator) {
-        return newSslHandler(context, serverConfig, allocator, httpAddress);
+        SslHandler sslHandler = newSslHandler(context, serverConfig, allocator, httpAddress);
+        if (sslSessionResumption != null) {
+            sslHandler.handshakeFuture().addListener(future -> {
+                if (future.isSuccess()) {
+                    sslSessionResumption.handshakeCompleted(sslHandler.engine());
+                }
+            });
+        }
+        return sslHandler;
+    }
+
+    @Override
+    protected void replaceHandler(ChannelHandlerContext ctx, String hostname, SslContext sslContext) throws Exception {
+        try {
+            super.replaceHandler(ctx, hostname, sslContext);
+        } finally {
+            // the SSL engine holds its own reference to the context
+            ReferenceCountUtil.release(sslContext);
+        }
+        if (serverConfig.getTlsRecordSizing().isEnabled()) {
+            SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
+            if (sslHandler != null) {
+                ctx.pipeline().addAfter(SslHandler.class.getName(), "tls-record-sizing",
+                        new TlsRecordSizingHandler(sslHandler, serverConfig.getTlsRecordSizing()));
+            }
+        }
     }
 
     private static SslHandler newSslHandler(SslContext sslContext,
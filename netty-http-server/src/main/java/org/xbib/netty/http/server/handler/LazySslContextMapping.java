@@ -0,0 +1,326 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.AsyncMapping;
+import io.netty.util.Mapping;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.api.ServerConfig;
+import org.xbib.netty.http.server.api.ServerKeyCertificateSource;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A mapping of server names to SSL contexts which are built on the first TLS client hello for a name.
+ * The keys and certificates are loaded from a {@link ServerKeyCertificateSource} on an executor,
+ * so the event loops never block. Built contexts are kept in a cache which is bounded in size,
+ * and contexts are evicted when they were not used for the idle timeout.
+ * Server names which are unknown to the source are mapped by the configured domains.
+ *
+ * The asynchronous mapping completes the promise with a retained context, which the caller must
+ * release after it has created the SSL engine, so an eviction can not release the context while
+ * a handshake is waiting for it.
+ */
+public class LazySslContextMapping implements Mapping<String, SslContext>, AsyncMapping<String, SslContext> {
+
+    private static final Logger logger = Logger.getLogger(LazySslContextMapping.class.getName());
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    private final ServerKeyCertificateSource keyCertificateSource;
+
+    private final Mapping<String, SslContext> domainNameMapping;
+
+    private final ServerConfig serverConfig;
+
+    private final HttpAddress httpAddress;
+
+    private final Executor executor;
+
+    private final SslSessionResumption sslSessionResumption;
+
+    private final int cacheSize;
+
+    private final long idleTimeoutNanos;
+
+    /**
+     * The cache entries in access order, guarded by this mapping.
+     */
+    private final EntryMap entries;
+
+    private long lastSweepNanos;
+
+    /**
+     * Create a lazy SSL context mapping.
+     *
+     * @param keyCertificateSource the source of keys and certificates
+     * @param domainNameMapping the mapping of the configured domains, for names unknown to the source
+     * @param serverConfig the server configuration with the SSL provider, the ciphers, and the cache settings
+     * @param httpAddress the address of the listener, the protocol version selects ALPN
+     * @param executor the executor for loading keys and building contexts
+     * @param sslSessionResumption the TLS session resumption which configures the built contexts
+     */
+    public LazySslContextMapping(ServerKeyCertificateSource keyCertificateSource,
+                                 Mapping<String, SslContext> domainNameMapping,
+                                 ServerConfig serverConfig,
+                                 HttpAddress httpAddress,
+                                 Executor executor,
+                                 SslSessionResumption sslSessionResumption) {
+        this.keyCertificateSource = keyCertificateSource;
+        this.domainNameMapping = domainNameMapping;
+        this.serverConfig = serverConfig;
+        this.httpAddress = httpAddress;
+        this.executor = executor;
+        this.sslSessionResumption = sslSessionResumption;
+        this.cacheSize = serverConfig.getSslContextCacheSize();
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(serverConfig.getSslContextIdleTimeoutMillis());
+        this.entries = new EntryMap(cacheSize);
+        this.lastSweepNanos = System.nanoTime();
+    }
+
+    /**
+     * Map a server name without waiting. Contexts which are not built yet are not loaded.
+     *
+     * @param input the server name
+     * @return the cached SSL context or the SSL context of the configured domains
+     */
+    @Override
+    public SslContext map(String input) {
+        CompletableFuture<SslContext> future = null;
+        if (input != null) {
+            synchronized (this) {
+                Entry entry = entries.get(input);
+                if (entry != null) {
+                    entry.lastAccessNanos = System.nanoTime();
+                    future = entry.future;
+                }
+            }
+        }
+        SslContext sslContext = future != null ? future.getNow(null) : null;
+        return sslContext != null ? sslContext : domainNameMapping.map(input);
+    }
+
+    @Override
+    public Future<SslContext> map(String input, Promise<SslContext> promise) {
+        if (input == null) {
+            return completeRetained(promise, domainNameMapping.map(null));
+        }
+        CompletableFuture<SslContext> future;
+        synchronized (this) {
+            long now = System.nanoTime();
+            sweep(now);
+            Entry entry = entries.get(input);
+            if (entry == null) {
+                entry = new Entry(CompletableFuture.supplyAsync(() -> load(input), executor));
+                entries.put(input, entry);
+            }
+            entry.lastAccessNanos = now;
+            future = entry.future;
+        }
+        future.whenComplete((sslContext, throwable) -> {
+            if (throwable != null) {
+                remove(input, future);
+                logger.log(Level.WARNING, "unable to build SSL context for " + input, throwable);
+                promise.tryFailure(throwable instanceof CompletionException && throwable.getCause() != null ?
+                        throwable.getCause() : throwable);
+            } else if (sslContext == null) {
+                // unknown to the source, do not keep the name
+                remove(input, future);
+                completeRetained(promise, domainNameMapping.map(input));
+            } else if (retain(input, future, sslContext)) {
+                if (!promise.trySuccess(sslContext)) {
+                    ReferenceCountUtil.release(sslContext);
+                }
+            } else {
+                // evicted before it could be handed out, so it may be released already, load it again
+                map(input, promise);
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * Returns the number of cached server names, including the names which are still loading.
+     *
+     * @return the cache size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Evict the SSL context of a server name, so the next handshake for the name loads the key
+     * and the certificates again. Established connections are not affected.
+     *
+     * @param serverName the server name
+     */
+    public void invalidate(String serverName) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(serverName);
+        }
+        if (entry != null) {
+            release(serverName, entry);
+        }
+    }
+
+    /**
+     * Evict all SSL contexts.
+     */
+    public void close() {
+        Map<String, Entry> map;
+        synchronized (this) {
+            map = new HashMap<>(entries);
+            entries.clear();
+        }
+        map.forEach(LazySslContextMapping::release);
+    }
+
+    private SslContext load(String serverName) {
+        try {
+            ServerKeyCertificateSource.KeyCertificate keyCertificate = keyCertificateSource.load(serverName);
+            if (keyCertificate == null) {
+                return null;
+            }
+            SslContextBuilder sslContextBuilder = SslContextBuilder
+                    .forServer(keyCertificate.getPrivateKey(), keyCertificate.getCertificateChain())
+                    .sslProvider(serverConfig.getSslProvider())
+                    .ciphers(serverConfig.getCiphers(), serverConfig.getCipherSuiteFilter());
+            if (serverConfig.getSslContextProvider() != null) {
+                sslContextBuilder.sslContextProvider(serverConfig.getSslContextProvider());
+            }
+            if (httpAddress.getVersion().majorVersion() == 2) {
+                sslContextBuilder.applicationProtocolConfig(newApplicationProtocolConfig());
+            }
+            SslContext sslContext = sslContextBuilder.build();
+            sslSessionResumption.configure(sslContext);
+            logger.log(Level.FINE, () -> "built SSL context for " + serverName);
+            return sslContext;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Retain a built context for the caller, if it is still cached. All evictions remove the entry
+     * under the lock before they release the context, so a cached context is not released yet.
+     */
+    private synchronized boolean retain(String serverName, CompletableFuture<SslContext> future, SslContext sslContext) {
+        Entry entry = entries.get(serverName);
+        if (entry == null || entry.future != future) {
+            return false;
+        }
+        ReferenceCountUtil.retain(sslContext);
+        return true;
+    }
+
+    private static Promise<SslContext> completeRetained(Promise<SslContext> promise, SslContext sslContext) {
+        ReferenceCountUtil.retain(sslContext);
+        if (!promise.trySuccess(sslContext)) {
+            ReferenceCountUtil.release(sslContext);
+        }
+        return promise;
+    }
+
+    private synchronized void remove(String serverName, CompletableFuture<SslContext> future) {
+        Entry entry = entries.get(serverName);
+        if (entry != null && entry.future == future) {
+            entries.remove(serverName);
+        }
+    }
+
+    /**
+     * Evict the entries which were idle for longer than the idle timeout. The entries are in access order,
+     * so the sweep stops at the first entry which is not idle.
+     */
+    private void sweep(long now) {
+        if (idleTimeoutNanos <= 0L || now - lastSweepNanos < SWEEP_INTERVAL_NANOS) {
+            return;
+        }
+        lastSweepNanos = now;
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (now - entry.getValue().lastAccessNanos < idleTimeoutNanos) {
+                break;
+            }
+            iterator.remove();
+            release(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Release an evicted context. Open connections are not affected, because each SSL engine
+     * holds a reference to its context.
+     */
+    private static void release(String serverName, Entry entry) {
+        entry.future.thenAccept(sslContext -> {
+            if (sslContext != null) {
+                logger.log(Level.FINE, () -> "evicting SSL context for " + serverName);
+                ReferenceCountUtil.release(sslContext);
+            }
+        });
+    }
+
+    private static ApplicationProtocolConfig newApplicationProtocolConfig() {
+        return new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
+                ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                ApplicationProtocolNames.HTTP_2,
+                ApplicationProtocolNames.HTTP_1_1);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LazySslContextMapping[size=" + entries.size() + ",cacheSize=" + cacheSize + "]";
+    }
+
+    private static class Entry {
+
+        private final CompletableFuture<SslContext> future;
+
+        private long lastAccessNanos;
+
+        Entry(CompletableFuture<SslContext> future) {
+            this.future = future;
+        }
+    }
+
+    /**
+     * The cache entries in access order, the least recently used entry is released when the cache exceeds
+     * its size.
+     */
+    private static class EntryMap extends LinkedHashMap<String, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int cacheSize;
+
+        EntryMap(int cacheSize) {
+            super(16, 0.75f, true);
+            this.cacheSize = cacheSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > cacheSize) {
+                release(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    }
+}
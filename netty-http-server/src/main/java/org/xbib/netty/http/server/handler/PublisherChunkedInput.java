@@ -0,0 +1,164 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.concurrent.EventExecutor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+
+/**
+ * A chunked input which subscribes to a publisher of byte buffers.
+ *
+ * The {@link ChunkedWriteHandler} reads chunks only while the channel is writable and resumes
+ * on {@code channelWritabilityChanged}. This input requests the next buffer from the publisher
+ * only when the previous one has been read by the handler, so a producer can never get ahead
+ * of the client by more than one buffer.
+ *
+ * A publisher which ignores the demand is cancelled when more than {@link #MAX_QUEUED_BUFFERS}
+ * buffers are queued. A publisher which emits synchronously in {@code request()} does not
+ * re-enter the flush of the handler, the transfer is resumed by a task on the event loop.
+ */
+public class PublisherChunkedInput implements ChunkedInput<ByteBuf>, Flow.Subscriber<ByteBuf> {
+
+    public static final int MAX_QUEUED_BUFFERS = 16;
+
+    private final ChunkedWriteHandler chunkedWriteHandler;
+
+    private final EventExecutor executor;
+
+    private final Queue<ByteBuf> queue;
+
+    private volatile Flow.Subscription subscription;
+
+    private volatile boolean completed;
+
+    private volatile Throwable throwable;
+
+    private volatile boolean closed;
+
+    private long progress;
+
+    /**
+     * Whether the event loop is in {@link #readChunk(ByteBufAllocator)}.
+     */
+    private boolean reading;
+
+    public PublisherChunkedInput(ChannelHandlerContext ctx) {
+        this.chunkedWriteHandler = ctx.pipeline().get(ChunkedWriteHandler.class);
+        this.executor = ctx.executor();
+        this.queue = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null || closed) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(1L);
+    }
+
+    @Override
+    public void onNext(ByteBuf byteBuf) {
+        if (closed) {
+            byteBuf.release();
+            return;
+        }
+        if (queue.size() >= MAX_QUEUED_BUFFERS) {
+            byteBuf.release();
+            if (throwable == null) {
+                throwable = new IllegalStateException("publisher does not respect the demand, more than " +
+                        MAX_QUEUED_BUFFERS + " buffers queued");
+                subscription.cancel();
+                resume();
+            }
+            return;
+        }
+        queue.add(byteBuf);
+        resume();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        this.throwable = throwable;
+        resume();
+    }
+
+    @Override
+    public void onComplete() {
+        this.completed = true;
+        resume();
+    }
+
+    @Override
+    public boolean isEndOfInput() throws Exception {
+        if (throwable != null) {
+            throw new Exception(throwable);
+        }
+        return completed && queue.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (subscription != null && !completed) {
+            subscription.cancel();
+        }
+        ByteBuf byteBuf;
+        while ((byteBuf = queue.poll()) != null) {
+            byteBuf.release();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        if (throwable != null) {
+            throw new Exception(throwable);
+        }
+        ByteBuf byteBuf = queue.poll();
+        if (byteBuf != null) {
+            progress += byteBuf.readableBytes();
+            if (!completed) {
+                reading = true;
+                try {
+                    subscription.request(1L);
+                } finally {
+                    reading = false;
+                }
+            }
+        }
+        return byteBuf;
+    }
+
+    @Override
+    public long length() {
+        return -1L;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+
+    private void resume() {
+        if (chunkedWriteHandler == null) {
+            return;
+        }
+        if (reading && executor.inEventLoop()) {
+            executor.execute(chunkedWriteHandler::resumeTransfer);
+        } else {
+            chunkedWriteHandler.resumeTransfer();
+        }
+    }
+}
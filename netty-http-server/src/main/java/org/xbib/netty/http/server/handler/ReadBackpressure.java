@@ -0,0 +1,138 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.channel.Channel;
+import org.xbib.netty.http.server.api.ServerConfig;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Back pressure from the queue of the blocking executor to the connections. If the queue reaches the
+ * high water mark, reading is paused on each connection which queues a request, until the queue falls
+ * to the low water mark. Then reading is resumed on all paused connections. So an overloaded server
+ * leaves new requests in the TCP receive buffers, where the TCP flow control slows down the clients,
+ * instead of aggregating them on the heap.
+ *
+ * The pause is one of the {@link ReadPause} reasons of a connection, so a connection which is also
+ * paused by its response queue is resumed only when its response queue is drained, too.
+ */
+public class ReadBackpressure {
+
+    private static final Logger logger = Logger.getLogger(ReadBackpressure.class.getName());
+
+    private final Queue<Runnable> queue;
+
+    private final int highWaterMark;
+
+    private final int lowWaterMark;
+
+    /**
+     * The paused connections, guarded by this object.
+     */
+    private final Set<Channel> pausedChannels;
+
+    private final LongAdder pauses;
+
+    private volatile boolean paused;
+
+    /**
+     * Create the back pressure for the queue of a blocking executor.
+     *
+     * @param serverConfig the server configuration with the water marks
+     * @param queue the queue of the blocking executor, or null if there is no blocking executor
+     * @throws IllegalArgumentException if the low water mark is not below the high water mark
+     */
+    public ReadBackpressure(ServerConfig serverConfig, Queue<Runnable> queue) {
+        this.queue = queue;
+        this.highWaterMark = serverConfig.getBlockingQueueHighWaterMark();
+        this.lowWaterMark = serverConfig.getBlockingQueueLowWaterMark();
+        if (highWaterMark > 0 && (lowWaterMark < 0 || lowWaterMark >= highWaterMark)) {
+            throw new IllegalArgumentException("the low water mark " + lowWaterMark +
+                    " must be below the high water mark " + highWaterMark);
+        }
+        this.pausedChannels = new LinkedHashSet<>();
+        this.pauses = new LongAdder();
+    }
+
+    public boolean isEnabled() {
+        return queue != null && highWaterMark > 0;
+    }
+
+    /**
+     * Whether the queue is above the low water mark after it reached the high water mark.
+     *
+     * @return true if the connections are paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Returns the number of connections which were paused.
+     *
+     * @return the number of paused connections
+     */
+    public long getPauses() {
+        return pauses.sum();
+    }
+
+    /**
+     * Called by the event loop of a connection before a request of the connection is queued. The request must
+     * call {@link #requestDone()} after it is executed, or after it is rejected by the executor, so the
+     * connection is not paused forever.
+     *
+     * @param channel the channel of the connection
+     */
+    public void requestQueued(Channel channel) {
+        if (!isEnabled() || channel == null) {
+            return;
+        }
+        if (paused || queue.size() >= highWaterMark) {
+            synchronized (this) {
+                if (!paused) {
+                    logger.log(Level.FINE, () -> "blocking queue reached high water mark " + highWaterMark +
+                            ", pause reading");
+                    paused = true;
+                }
+                if (!pausedChannels.add(channel)) {
+                    return;
+                }
+            }
+            pauses.increment();
+            ReadPause.pause(channel, ReadPause.BLOCKING_QUEUE);
+            channel.closeFuture().addListener(future -> remove(channel));
+        }
+    }
+
+    /**
+     * Called after a queued request is executed or rejected.
+     */
+    public void requestDone() {
+        if (!paused || queue.size() > lowWaterMark) {
+            return;
+        }
+        List<Channel> channels;
+        synchronized (this) {
+            if (!paused) {
+                return;
+            }
+            paused = false;
+            channels = new ArrayList<>(pausedChannels);
+            pausedChannels.clear();
+        }
+        logger.log(Level.FINE, () -> "blocking queue fell to low water mark " + lowWaterMark +
+                ", resume reading on " + channels.size() + " connections");
+        for (Channel channel : channels) {
+            ReadPause.resume(channel, ReadPause.BLOCKING_QUEUE);
+        }
+    }
+
+    private synchronized void remove(Channel channel) {
+        pausedChannels.remove(channel);
+    }
+}
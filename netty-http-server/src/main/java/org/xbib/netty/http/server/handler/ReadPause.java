@@ -0,0 +1,98 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The reasons why reading from a connection is paused. Each reason pauses and resumes reading
+ * independently, and auto read of the channel is enabled only when no reason is left, so one
+ * reason does not undo the pause of another.
+ *
+ * Auto read is always set on the event loop of the channel from the current reasons, so a pause
+ * and a resume from different threads can not be applied in the wrong order.
+ */
+public final class ReadPause {
+
+    /**
+     * The response queue of the connection exceeds its limit.
+     */
+    public static final int RESPONSE_QUEUE = 1;
+
+    /**
+     * The queue of the blocking executor is above the high water mark.
+     */
+    public static final int BLOCKING_QUEUE = 2;
+
+    /**
+     * The content of a request is still being written to a temporary file.
+     */
+    public static final int CONTENT_SPILL = 4;
+
+    private static final AttributeKey<AtomicInteger> REASONS_KEY =
+            AttributeKey.valueOf(ReadPause.class, "reasons");
+
+    private ReadPause() {
+    }
+
+    /**
+     * Pause reading from a connection for a reason.
+     *
+     * @param channel the channel of the connection
+     * @param reason the reason
+     */
+    public static void pause(Channel channel, int reason) {
+        AtomicInteger reasons = reasons(channel);
+        int previous = reasons.getAndUpdate(r -> r | reason);
+        if (previous == 0) {
+            apply(channel, reasons);
+        }
+    }
+
+    /**
+     * Resume reading from a connection for a reason. Reading is resumed only if there is no other reason
+     * for the pause.
+     *
+     * @param channel the channel of the connection
+     * @param reason the reason
+     */
+    public static void resume(Channel channel, int reason) {
+        AtomicInteger reasons = reasons(channel);
+        int current = reasons.updateAndGet(r -> r & ~reason);
+        if (current == 0) {
+            apply(channel, reasons);
+        }
+    }
+
+    /**
+     * Whether reading from a connection is paused for a reason.
+     *
+     * @param channel the channel of the connection
+     * @param reason the reason
+     * @return true if reading is paused for the reason
+     */
+    public static boolean isPaused(Channel channel, int reason) {
+        AtomicInteger reasons = channel.attr(REASONS_KEY).get();
+        return reasons != null && (reasons.get() & reason) != 0;
+    }
+
+    private static AtomicInteger reasons(Channel channel) {
+        AtomicInteger reasons = channel.attr(REASONS_KEY).get();
+        if (reasons == null) {
+            AtomicInteger newReasons = new AtomicInteger();
+            reasons = channel.attr(REASONS_KEY).setIfAbsent(newReasons);
+            if (reasons == null) {
+                reasons = newReasons;
+            }
+        }
+        return reasons;
+    }
+
+    private static void apply(Channel channel, AtomicInteger reasons) {
+        if (channel.eventLoop().inEventLoop()) {
+            channel.config().setAutoRead(reasons.get() == 0);
+        } else {
+            channel.eventLoop().execute(() -> channel.config().setAutoRead(reasons.get() == 0));
+        }
+    }
+}
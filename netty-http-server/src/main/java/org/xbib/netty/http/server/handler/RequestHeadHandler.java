@@ -0,0 +1,251 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.xbib.net.URL;
+import org.xbib.netty.http.common.HttpMethod;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.api.Domain;
+import org.xbib.netty.http.server.api.Endpoint;
+import org.xbib.netty.http.server.api.EndpointResolver;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the endpoint of a request as soon as the request head arrives, before the request body
+ * is aggregated. Requests with a body that will be rejected anyway, because there is no endpoint,
+ * the method is unknown, a header filter of the endpoint refuses the request, or the body exceeds
+ * the maximum content length of the endpoint, are answered immediately with a final status.
+ * The body is skipped and the connection (or the HTTP/2 stream) is closed, so the body is never
+ * buffered. This also answers {@code Expect: 100-continue} with a final status instead of
+ * {@code 100 Continue}.
+ *
+ * On a HTTP/1 connection, the rejection is held back until the responses to all earlier requests
+ * are written, so pipelined responses keep their order and are not cut off by the close. Requests
+ * after the rejected request are discarded.
+ *
+ * Requests without a body are passed through, they are rejected in the regular request handling,
+ * which keeps the order of pipelined responses. The endpoint which accepted the head of a request
+ * is set to the channel attribute {@link #ACCEPTED_ENDPOINT_KEY}, so the regular request handling
+ * does not check the head again.
+ */
+public class RequestHeadHandler extends ChannelDuplexHandler {
+
+    private static final Logger logger = Logger.getLogger(RequestHeadHandler.class.getName());
+
+    /**
+     * The endpoint which accepted the head of the request being received on the channel, or null.
+     */
+    public static final AttributeKey<Endpoint<?>> ACCEPTED_ENDPOINT_KEY =
+            AttributeKey.valueOf(RequestHeadHandler.class, "acceptedEndpoint");
+
+    private final Server server;
+
+    private final boolean http2;
+
+    private long maxContentLength;
+
+    private long contentLength;
+
+    private boolean discarding;
+
+    /**
+     * The number of requests passed on, for which the response is not yet written.
+     */
+    private int pendingResponses;
+
+    /**
+     * The rejection which waits for the responses to the earlier requests, or null.
+     */
+    private FullHttpResponse pendingRejection;
+
+    /**
+     * True after a request on a HTTP/1 connection is rejected, which closes the connection.
+     */
+    private boolean rejected;
+
+    public RequestHeadHandler(Server server, boolean http2) {
+        this.server = server;
+        this.http2 = http2;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (rejected) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        if (msg instanceof HttpRequest) {
+            HttpRequest httpRequest = (HttpRequest) msg;
+            discarding = false;
+            contentLength = 0L;
+            maxContentLength = server.getServerConfig().getMaxContentLength();
+            ctx.channel().attr(ACCEPTED_ENDPOINT_KEY).set(null);
+            if (httpRequest instanceof FullHttpRequest || !hasContent(httpRequest) || !isResolvable(httpRequest)) {
+                pendingResponses++;
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            HttpMethod method;
+            try {
+                method = HttpMethod.valueOf(httpRequest.method().name());
+            } catch (IllegalArgumentException e) {
+                reject(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED, "method not allowed");
+                return;
+            }
+            URL baseURL = server.getBaseURL(httpRequest.headers());
+            Domain<? extends EndpointResolver<?>> domain = server.getDomain(ctx.channel(), baseURL);
+            Endpoint<?> endpoint = domain.findEndpoint(httpRequest.uri(), method,
+                    httpRequest.headers().get(HttpHeaderNames.CONTENT_TYPE));
+            if (endpoint == null && domain instanceof HttpServerDomain) {
+                reject(ctx, HttpResponseStatus.NOT_FOUND, "no endpoint found to match request");
+                return;
+            }
+            // other domains may not find endpoints in advance, their requests are resolved when handled
+            if (endpoint != null) {
+                HttpResponseStatus status = endpoint.acceptHead(httpRequest);
+                if (status != null) {
+                    reject(ctx, status, status.reasonPhrase());
+                    return;
+                }
+                if (endpoint.getMaxContentLength() > 0) {
+                    maxContentLength = endpoint.getMaxContentLength();
+                }
+            }
+            if (HttpUtil.getContentLength(httpRequest, -1L) > maxContentLength) {
+                reject(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, "request content too large");
+                return;
+            }
+            ctx.channel().attr(ACCEPTED_ENDPOINT_KEY).set(endpoint);
+            pendingResponses++;
+            ctx.fireChannelRead(msg);
+        } else if (msg instanceof HttpContent) {
+            HttpContent httpContent = (HttpContent) msg;
+            if (discarding) {
+                httpContent.release();
+                if (msg instanceof LastHttpContent) {
+                    discarding = false;
+                }
+                return;
+            }
+            contentLength += httpContent.content().readableBytes();
+            if (contentLength > maxContentLength) {
+                httpContent.release();
+                // the head is already passed on, the aggregator does not complete this request
+                pendingResponses--;
+                reject(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, "request content too large");
+                discarding = !(msg instanceof LastHttpContent);
+                return;
+            }
+            ctx.fireChannelRead(msg);
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (!http2 && isLastResponsePart(msg)) {
+            ChannelPromise channelPromise = promise.unvoid();
+            channelPromise.addListener(future -> responseWritten(ctx));
+            ctx.write(msg, channelPromise);
+        } else {
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        // a response which is ended by closing the connection is final, and the rejection can not be sent
+        if (pendingRejection != null) {
+            logger.log(Level.FINE, () -> ctx.channel() + " connection closed, dropping waiting rejection");
+            pendingRejection.release();
+            pendingRejection = null;
+        }
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        if (pendingRejection != null) {
+            pendingRejection.release();
+            pendingRejection = null;
+        }
+    }
+
+    private void responseWritten(ChannelHandlerContext ctx) {
+        pendingResponses--;
+        if (pendingResponses <= 0 && pendingRejection != null) {
+            FullHttpResponse response = pendingRejection;
+            pendingRejection = null;
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    /**
+     * Whether a message ends a response. A full response or the last content ends a response, and a
+     * chunked input writes the last content at its end. A response head alone does not end a response,
+     * unless the connection is closed after it, see {@link #close(ChannelHandlerContext, ChannelPromise)}.
+     */
+    private static boolean isLastResponsePart(Object msg) {
+        if (msg instanceof HttpResponse &&
+                ((HttpResponse) msg).status().codeClass() == HttpStatusClass.INFORMATIONAL) {
+            return false;
+        }
+        return msg instanceof FullHttpResponse || msg instanceof LastHttpContent || msg instanceof HttpChunkedInput;
+    }
+
+    private boolean hasContent(HttpRequest httpRequest) {
+        // a HTTP/2 request head which is not a full request is followed by data frames
+        return http2 || HttpUtil.isTransferEncodingChunked(httpRequest) ||
+                HttpUtil.getContentLength(httpRequest, 0L) > 0L;
+    }
+
+    private static boolean isResolvable(HttpRequest httpRequest) {
+        // leave missing host headers and protocol upgrades to the transports
+        return httpRequest.headers().contains(HttpHeaderNames.HOST) &&
+                !httpRequest.headers().contains(HttpHeaderNames.UPGRADE);
+    }
+
+    private void reject(ChannelHandlerContext ctx, HttpResponseStatus status, String message) {
+        logger.log(Level.FINE, () -> ctx.channel() + " rejecting request before content: " + status);
+        discarding = true;
+        ByteBuf content = ByteBufUtil.writeUtf8(ctx.alloc(), message);
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain;charset=utf-8");
+        response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        if (http2) {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+        response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        rejected = true;
+        if (pendingResponses > 0) {
+            logger.log(Level.FINE, () -> ctx.channel() + " rejection waits for " + pendingResponses + " responses");
+            pendingRejection = response;
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.PendingWriteQueue;
+import org.xbib.netty.http.server.api.ResponseQueuePolicy;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queues responses while the channel is not writable and writes them when the channel
+ * becomes writable again. If the queued responses exceed the limit, the connection is either
+ * closed or reading from the connection is paused until the queue is empty. The pause is one of the
+ * {@link ReadPause} reasons of the connection.
+ */
+public class ResponseQueueHandler extends ChannelDuplexHandler {
+
+    private static final Logger logger = Logger.getLogger(ResponseQueueHandler.class.getName());
+
+    private final int limit;
+
+    private final ResponseQueuePolicy policy;
+
+    private final AtomicLong queuedBytes;
+
+    private PendingWriteQueue queue;
+
+    private long bytes;
+
+    private boolean paused;
+
+    /**
+     * Create a response queue handler.
+     *
+     * @param limit the maximum number of queued bytes
+     * @param policy the policy if the limit is exceeded
+     * @param queuedBytes the counter of queued bytes of all connections
+     */
+    public ResponseQueueHandler(int limit, ResponseQueuePolicy policy, AtomicLong queuedBytes) {
+        this.limit = limit;
+        this.policy = policy;
+        this.queuedBytes = queuedBytes;
+    }
+
+    /**
+     * The number of bytes currently queued for this connection.
+     *
+     * @return the queued bytes
+     */
+    public long getQueuedBytes() {
+        return bytes;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.queue = new PendingWriteQueue(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        discard(new ClosedChannelException());
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (queue.isEmpty() && ctx.channel().isWritable()) {
+            ctx.write(msg, promise);
+            return;
+        }
+        queue.add(msg, promise);
+        update();
+        if (bytes > limit) {
+            overflow(ctx);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        drain(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable() && !queue.isEmpty()) {
+            drain(ctx);
+            ctx.flush();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        discard(new ClosedChannelException());
+        super.channelInactive(ctx);
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        if (queue.isEmpty()) {
+            return;
+        }
+        while (!queue.isEmpty() && ctx.channel().isWritable()) {
+            queue.removeAndWrite();
+        }
+        update();
+        if (paused && queue.isEmpty()) {
+            logger.log(Level.FINE, () -> ctx.channel() + " response queue drained, resume reading");
+            paused = false;
+            ReadPause.resume(ctx.channel(), ReadPause.RESPONSE_QUEUE);
+        }
+    }
+
+    private void overflow(ChannelHandlerContext ctx) {
+        switch (policy) {
+            case CLOSE:
+                logger.log(Level.WARNING, () -> ctx.channel() + " response queue limit exceeded, closing: " + bytes);
+                discard(new ClosedChannelException());
+                ctx.close();
+                break;
+            case PAUSE_READ:
+            default:
+                if (!paused) {
+                    logger.log(Level.FINE, () -> ctx.channel() + " response queue limit exceeded, pause reading: " + bytes);
+                    paused = true;
+                    ReadPause.pause(ctx.channel(), ReadPause.RESPONSE_QUEUE);
+                }
+                break;
+        }
+    }
+
+    private void discard(Throwable cause) {
+        if (queue != null && !queue.isEmpty()) {
+            queue.removeAndFailAll(cause);
+        }
+        update();
+    }
+
+    private void update() {
+        long current = queue != null ? queue.bytes() : 0L;
+        queuedBytes.addAndGet(current - bytes);
+        bytes = current;
+    }
+}
@@ -0,0 +1,140 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCounted;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A full HTTP request whose content is held in a temporary file. The content buffer is a read-only
+ * memory-mapped view of the file, so it does not occupy heap or direct memory. The file is owned by a
+ * reference counted holder, which is shared by the request and all its duplicates and copies, and the
+ * file is deleted when the last of them is released.
+ *
+ * Deleting the file only removes its name. The mapping can not be unmapped safely while a derived buffer
+ * may still be read, so it is left to the garbage collector, and the disk space of the file is held until
+ * the mapped buffer is collected.
+ */
+public class SpilledFullHttpRequest extends DefaultFullHttpRequest {
+
+    private static final Logger logger = Logger.getLogger(SpilledFullHttpRequest.class.getName());
+
+    private final SpillFile spillFile;
+
+    private SpilledFullHttpRequest(HttpVersion httpVersion,
+                                   HttpMethod method,
+                                   String uri,
+                                   ByteBuf content,
+                                   HttpHeaders headers,
+                                   HttpHeaders trailingHeaders,
+                                   SpillFile spillFile) {
+        super(httpVersion, method, uri, content, headers, trailingHeaders);
+        this.spillFile = spillFile;
+    }
+
+    public static SpilledFullHttpRequest of(HttpVersion httpVersion,
+                                            HttpMethod method,
+                                            String uri,
+                                            HttpHeaders headers,
+                                            HttpHeaders trailingHeaders,
+                                            Path path,
+                                            long length) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuf content = Unpooled.wrappedBuffer(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0L, length));
+            return new SpilledFullHttpRequest(httpVersion, method, uri, content, headers, trailingHeaders,
+                    new SpillFile(path));
+        }
+    }
+
+    /**
+     * The path of the temporary file.
+     *
+     * @return the path
+     */
+    public Path getPath() {
+        return spillFile.path;
+    }
+
+    /**
+     * Create a request with the given content. A duplicate shares the reference count of its content with this
+     * request, and the holder of the file is released once for both. A copy has a reference count of its own,
+     * so it takes a reference of the holder.
+     *
+     * @param content the content
+     * @return the request
+     */
+    @Override
+    public FullHttpRequest replace(ByteBuf content) {
+        if (root(content) != root(content())) {
+            spillFile.retain();
+        }
+        SpilledFullHttpRequest request = new SpilledFullHttpRequest(protocolVersion(), method(), uri(), content,
+                headers().copy(), trailingHeaders().copy(), spillFile);
+        request.setDecoderResult(decoderResult());
+        return request;
+    }
+
+    @Override
+    public boolean release() {
+        boolean released = super.release();
+        if (released) {
+            spillFile.release();
+        }
+        return released;
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        boolean released = super.release(decrement);
+        if (released) {
+            spillFile.release();
+        }
+        return released;
+    }
+
+    private static ByteBuf root(ByteBuf byteBuf) {
+        ByteBuf root = byteBuf;
+        while (root.unwrap() != null) {
+            root = root.unwrap();
+        }
+        return root;
+    }
+
+    /**
+     * The temporary file, which is deleted when the last reference is released.
+     */
+    private static class SpillFile extends AbstractReferenceCounted {
+
+        private final Path path;
+
+        SpillFile(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        protected void deallocate() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "unable to delete " + path + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public ReferenceCounted touch(Object hint) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.ReferenceCountedOpenSslEngine;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.xbib.netty.http.server.api.ServerConfig;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * TLS session resumption of a server. The session cache of every SSL context of the server is sized
+ * from the server configuration. With OpenSSL, all SSL contexts share the same session ticket keys,
+ * which are read from a key file, so the nodes of a cluster resume the sessions of each other,
+ * or generated at random. The keys are rotated at a fixed interval.
+ *
+ * A key file holds one or more keys of 48 bytes each, 16 bytes key name, 16 bytes HMAC secret,
+ * and 16 bytes AES key. The first key encrypts new tickets, the other keys only decrypt tickets.
+ * The file is read again at every rotation, so the rotation is driven by the process which writes the file.
+ * Without a key file, a new random key is generated at every rotation and the previous key is kept
+ * for decrypting tickets.
+ */
+public class SslSessionResumption {
+
+    private static final Logger logger = Logger.getLogger(SslSessionResumption.class.getName());
+
+    private static final int TICKET_KEY_LENGTH = 48;
+
+    /**
+     * The number of session IDs to remember if the session cache size is unlimited, the default size
+     * of the session cache of the JDK.
+     */
+    private static final int MAX_SESSION_IDS = 20480;
+
+    private final int sessionCacheSize;
+
+    private final int sessionTimeoutSeconds;
+
+    private final Path ticketKeyFile;
+
+    private final SecureRandom secureRandom;
+
+    /**
+     * The SSL contexts which are configured, guarded by this object.
+     */
+    private final Set<SslContext> sslContexts;
+
+    private final LongAdder resumedHandshakes;
+
+    private final LongAdder fullHandshakes;
+
+    /**
+     * The IDs of the sessions of full handshakes with the JDK SSL provider, guarded by this set.
+     */
+    private final Set<ByteBuffer> sessionIds;
+
+    private final ScheduledFuture<?> rotation;
+
+    /**
+     * The ticket keys, or null for the keys of the SSL provider.
+     */
+    private OpenSslSessionTicketKey[] ticketKeys;
+
+    private boolean ticketKeysUnsupportedLogged;
+
+    public SslSessionResumption(ServerConfig serverConfig) {
+        this.sessionCacheSize = serverConfig.getSessionCacheSize();
+        this.sessionTimeoutSeconds = serverConfig.getSessionTimeoutSeconds();
+        this.ticketKeyFile = serverConfig.getSessionTicketKeyFile();
+        this.secureRandom = new SecureRandom();
+        this.sslContexts = Collections.newSetFromMap(new WeakHashMap<>());
+        this.resumedHandshakes = new LongAdder();
+        this.fullHandshakes = new LongAdder();
+        int maxSessionIds = sessionCacheSize > 0 ? sessionCacheSize : MAX_SESSION_IDS;
+        this.sessionIds = Collections.newSetFromMap(new BoundedMap<>(maxSessionIds));
+        long rotationMillis = serverConfig.getSessionTicketKeyRotationMillis();
+        if (ticketKeyFile != null) {
+            try {
+                this.ticketKeys = readTicketKeys(ticketKeyFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else if (rotationMillis > 0L) {
+            this.ticketKeys = new OpenSslSessionTicketKey[] { newTicketKey() };
+        }
+        this.rotation = rotationMillis > 0L ?
+                GlobalEventExecutor.INSTANCE.scheduleAtFixedRate(this::rotate,
+                        rotationMillis, rotationMillis, TimeUnit.MILLISECONDS) : null;
+    }
+
+    /**
+     * Configure the session cache and the ticket keys of an SSL context. SSL contexts which are
+     * already configured are skipped.
+     *
+     * @param sslContext the SSL context
+     */
+    public synchronized void configure(SslContext sslContext) {
+        if (sslContext == null || !sslContexts.add(sslContext)) {
+            return;
+        }
+        SSLSessionContext sessionContext = sslContext.sessionContext();
+        if (sessionContext != null) {
+            sessionContext.setSessionCacheSize(sessionCacheSize);
+            sessionContext.setSessionTimeout(sessionTimeoutSeconds);
+        }
+        setTicketKeys(sslContext);
+    }
+
+    /**
+     * Count a completed handshake as resumed or full. OpenSSL reports whether the session was reused.
+     * With the JDK SSL provider, a handshake is resumed if its session ID was seen before. The IDs are
+     * remembered up to the session cache size.
+     *
+     * @param engine the SSL engine of the handshake
+     */
+    public void handshakeCompleted(SSLEngine engine) {
+        if (isResumed(engine)) {
+            resumedHandshakes.increment();
+        } else {
+            fullHandshakes.increment();
+        }
+    }
+
+    /**
+     * Returns the number of handshakes which resumed a session, from the session cache or from a ticket.
+     *
+     * @return the number of resumed handshakes
+     */
+    public long getResumedHandshakes() {
+        return resumedHandshakes.sum();
+    }
+
+    /**
+     * Returns the number of full handshakes, which are session resumption misses.
+     *
+     * @return the number of full handshakes
+     */
+    public long getFullHandshakes() {
+        return fullHandshakes.sum();
+    }
+
+    public void close() {
+        if (rotation != null) {
+            rotation.cancel(false);
+        }
+        synchronized (this) {
+            sslContexts.clear();
+        }
+    }
+
+    private boolean isResumed(SSLEngine engine) {
+        if (engine instanceof ReferenceCountedOpenSslEngine) {
+            return ((ReferenceCountedOpenSslEngine) engine).isSessionReused();
+        }
+        SSLSession session = engine.getSession();
+        byte[] id = session != null ? session.getId() : null;
+        if (id == null || id.length == 0) {
+            return false;
+        }
+        synchronized (sessionIds) {
+            return !sessionIds.add(ByteBuffer.wrap(id));
+        }
+    }
+
+    private void rotate() {
+        OpenSslSessionTicketKey[] keys;
+        if (ticketKeyFile != null) {
+            try {
+                keys = readTicketKeys(ticketKeyFile);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "unable to read session ticket keys from " + ticketKeyFile +
+                        ", keeping the current keys", e);
+                return;
+            }
+        } else {
+            synchronized (this) {
+                keys = new OpenSslSessionTicketKey[] { newTicketKey(), ticketKeys[0] };
+            }
+        }
+        synchronized (this) {
+            ticketKeys = keys;
+            for (SslContext sslContext : sslContexts) {
+                setTicketKeys(sslContext);
+            }
+        }
+        logger.log(Level.FINE, () -> "rotated session ticket keys: " + keys.length);
+    }
+
+    private void setTicketKeys(SslContext sslContext) {
+        if (ticketKeys == null) {
+            return;
+        }
+        if (sslContext.sessionContext() instanceof OpenSslSessionContext) {
+            ((OpenSslSessionContext) sslContext.sessionContext()).setTicketKeys(ticketKeys);
+        } else if (!ticketKeysUnsupportedLogged) {
+            ticketKeysUnsupportedLogged = true;
+            logger.log(Level.WARNING, "session ticket keys are only supported by OpenSSL, " +
+                    "the JDK SSL provider uses its own keys");
+        }
+    }
+
+    private OpenSslSessionTicketKey newTicketKey() {
+        byte[] b = new byte[TICKET_KEY_LENGTH];
+        secureRandom.nextBytes(b);
+        return toTicketKey(b, 0);
+    }
+
+    private static OpenSslSessionTicketKey[] readTicketKeys(Path path) throws IOException {
+        byte[] b = Files.readAllBytes(path);
+        if (b.length == 0 || b.length % TICKET_KEY_LENGTH != 0) {
+            throw new IOException("session ticket key file " + path + " must hold keys of " +
+                    TICKET_KEY_LENGTH + " bytes, but has " + b.length + " bytes");
+        }
+        OpenSslSessionTicketKey[] keys = new OpenSslSessionTicketKey[b.length / TICKET_KEY_LENGTH];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = toTicketKey(b, i * TICKET_KEY_LENGTH);
+        }
+        return keys;
+    }
+
+    private static OpenSslSessionTicketKey toTicketKey(byte[] b, int offset) {
+        return new OpenSslSessionTicketKey(Arrays.copyOfRange(b, offset, offset + 16),
+                Arrays.copyOfRange(b, offset + 16, offset + 32),
+                Arrays.copyOfRange(b, offset + 32, offset + 48));
+    }
+
+    /**
+     * A map in insertion order which removes its eldest entry when it exceeds its maximum size.
+     */
+    private static class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        BoundedMap(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.concurrent.EventExecutor;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An output stream which publishes its content in chunks of a given size.
+ *
+ * A chunk is published when it is full, on {@link #flush()}, and on {@link #close()}.
+ * Writing threads block until the subscriber requests the next chunk, which throttles the
+ * producer to the read speed of the client. Chunks can not be published from the event loop
+ * of the channel, because waiting there would stall the channel, and publishing without demand
+ * would queue the whole content, so the stream must be written by a blocking executor.
+ */
+public class StreamingOutputStream extends OutputStream implements Flow.Publisher<ByteBuf> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final ByteBufAllocator allocator;
+
+    private final EventExecutor executor;
+
+    private final int chunkSize;
+
+    private final ReentrantLock lock;
+
+    private final Condition demanded;
+
+    private Flow.Subscriber<? super ByteBuf> subscriber;
+
+    private long demand;
+
+    private boolean cancelled;
+
+    private boolean closed;
+
+    private ByteBuf buffer;
+
+    public StreamingOutputStream(ByteBufAllocator allocator, EventExecutor executor, int chunkSize) {
+        this.allocator = allocator;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.lock = new ReentrantLock();
+        this.demanded = lock.newCondition();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuf> subscriber) {
+        lock.lock();
+        try {
+            if (this.subscriber != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("already subscribed"));
+                return;
+            }
+            this.subscriber = subscriber;
+        } finally {
+            lock.unlock();
+        }
+        subscriber.onSubscribe(new Subscription());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureBuffer();
+        buffer.writeByte(b);
+        if (!buffer.isWritable()) {
+            publish();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureBuffer();
+            int n = Math.min(length, buffer.writableBytes());
+            buffer.writeBytes(bytes, offset, n);
+            offset += n;
+            length -= n;
+            if (!buffer.isWritable()) {
+                publish();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffer != null && buffer.isReadable()) {
+            publish();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+            Flow.Subscriber<? super ByteBuf> s = subscriber;
+            if (s != null && !cancelled) {
+                s.onComplete();
+            }
+        }
+    }
+
+    private void ensureBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        if (buffer == null) {
+            buffer = allocator.buffer(chunkSize, chunkSize);
+        }
+    }
+
+    private void publish() throws IOException {
+        Flow.Subscriber<? super ByteBuf> s;
+        if (executor.inEventLoop()) {
+            throw new IOException("streaming output can not be written on the event loop, use a blocking executor");
+        }
+        lock.lock();
+        try {
+            while (!cancelled && (subscriber == null || demand == 0L)) {
+                demanded.await();
+            }
+            if (cancelled) {
+                throw new IOException("stream cancelled");
+            }
+            demand--;
+            s = subscriber;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            lock.unlock();
+        }
+        ByteBuf byteBuf = buffer;
+        buffer = null;
+        s.onNext(byteBuf);
+    }
+
+    private class Subscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                demand = demand + n < 0L ? Long.MAX_VALUE : demand + n;
+                demanded.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                demanded.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
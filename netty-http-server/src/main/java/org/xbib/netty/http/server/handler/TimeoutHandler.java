@@ -0,0 +1,175 @@
+package org.xbib.netty.http.server.handler;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.DefaultHttp2GoAwayFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.util.AttributeKey;
+
+/**
+ * Records the activity of a connection for the {@link ConnectionTimeouts} of the server.
+ *
+ * On a connection, the handler registers the connection and records reads and writes.
+ * Behind an HTTP codec, it also records requests and responses. On an HTTP/2 stream, the handler
+ * records requests and responses for the activity of the parent connection.
+ *
+ * On a {@link DrainEvent}, an HTTP/2 connection sends GOAWAY, an HTTP/1 connection answers
+ * with {@code Connection: close} and is closed as soon as it has no requests in flight.
+ */
+public class TimeoutHandler extends ChannelDuplexHandler {
+
+    private static final AttributeKey<ConnectionTimeouts.Activity> ACTIVITY_KEY =
+            AttributeKey.valueOf("connection-activity");
+
+    private final ConnectionTimeouts connectionTimeouts;
+
+    private final boolean stream;
+
+    private ConnectionTimeouts.Activity activity;
+
+    private int pending;
+
+    private boolean draining;
+
+    /**
+     * Create a timeout handler.
+     *
+     * @param connectionTimeouts the connection timeouts
+     * @param stream true for the handler of a HTTP/2 stream, false for the handler of a connection
+     */
+    public TimeoutHandler(ConnectionTimeouts connectionTimeouts, boolean stream) {
+        this.connectionTimeouts = connectionTimeouts;
+        this.stream = stream;
+    }
+
+    /**
+     * Whether a connection has requests for which the response is not yet completely written.
+     * Must be called from the event loop of the channel.
+     *
+     * @param channel the channel of the connection
+     * @return true if the connection has requests in flight
+     */
+    public static boolean isBusy(Channel channel) {
+        ConnectionTimeouts.Activity activity = channel.attr(ACTIVITY_KEY).get();
+        return activity != null && activity.isBusy();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        if (ctx.channel().isActive() && ctx.channel().isRegistered()) {
+            initialize(ctx.channel());
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        initialize(ctx.channel());
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (activity != null) {
+            if (stream) {
+                // a reset stream never completes its response
+                while (pending > 0) {
+                    pending--;
+                    activity.responseCompleted();
+                }
+            } else {
+                activity.unregister();
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (activity != null) {
+            activity.read();
+            if (msg instanceof HttpRequest) {
+                pending++;
+                activity.requestStarted();
+            }
+            if (msg instanceof LastHttpContent) {
+                activity.requestReceived();
+            }
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (draining && msg instanceof HttpResponse && !isInformational((HttpResponse) msg)) {
+            // tell the client that the connection closes after this response
+            ((HttpResponse) msg).headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        }
+        if (activity != null) {
+            activity.write();
+            if (isEndOfResponse(msg) && pending > 0) {
+                pending--;
+                activity.responseCompleted();
+                if (draining && !activity.isBusy()) {
+                    ChannelPromise channelPromise = promise.unvoid();
+                    super.write(ctx, msg, channelPromise);
+                    channelPromise.addListener(ChannelFutureListener.CLOSE);
+                    return;
+                }
+            }
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof DrainEvent && !stream && !draining) {
+            draining = true;
+            if (ctx.pipeline().get(Http2FrameCodec.class) != null) {
+                // the codec sets the last stream id
+                ctx.channel().writeAndFlush(new DefaultHttp2GoAwayFrame(Http2Error.NO_ERROR));
+            } else if (activity == null || !activity.isBusy()) {
+                ctx.close();
+            }
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    private static boolean isEndOfResponse(Object msg) {
+        if (msg instanceof HttpResponse && isInformational((HttpResponse) msg)) {
+            // 100 Continue is not the end of the response
+            return false;
+        }
+        return msg instanceof LastHttpContent ||
+                (msg instanceof Http2DataFrame && ((Http2DataFrame) msg).isEndStream()) ||
+                (msg instanceof Http2HeadersFrame && ((Http2HeadersFrame) msg).isEndStream());
+    }
+
+    private static boolean isInformational(HttpResponse httpResponse) {
+        return httpResponse.status().codeClass() == HttpStatusClass.INFORMATIONAL;
+    }
+
+    private void initialize(Channel channel) {
+        if (activity != null) {
+            return;
+        }
+        if (stream) {
+            Channel parent = channel.parent();
+            activity = parent != null ? parent.attr(ACTIVITY_KEY).get() : null;
+        } else {
+            activity = connectionTimeouts.register(channel);
+            channel.attr(ACTIVITY_KEY).set(activity);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package org.xbib.netty.http.server.protocol.http1;
 
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.Mapping;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.server.api.ServerProtocolProvider;
 
-public class Http1 implements ServerProtocolProvider<Http1ChannelInitializer, Http1Transport> {
+public class Http1 implements ServerProtocolProvider<Server> {
 
     @Override
     public boolean supportsMajorVersion(int majorVersion) {
@@ -10,12 +14,13 @@ public class Http1 implements ServerProtocolProvider<Http1ChannelInitializer, Ht
     }
 
     @Override
-    public Class<Http1ChannelInitializer> initializerClass() {
-        return Http1ChannelInitializer.class;
+    public Http1ChannelInitializer createInitializer(Server server, HttpAddress httpAddress,
+                                                     Mapping<String, SslContext> domainNameMapping) {
+        return new Http1ChannelInitializer(server, httpAddress, domainNameMapping);
     }
 
     @Override
-    public Class<Http1Transport> transportClass() {
-        return Http1Transport.class;
+    public Http1Transport createTransport(Server server) {
+        return new Http1Transport(server);
     }
 }
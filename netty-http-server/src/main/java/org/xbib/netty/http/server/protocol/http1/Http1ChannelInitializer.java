@@ -2,15 +2,18 @@ package org.xbib.netty.http.server.protocol.http1;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
-import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpServerCodec;
@@ -20,14 +23,16 @@ import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.util.Mapping;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 import org.xbib.netty.http.server.api.ServerConfig;
 import org.xbib.netty.http.server.handler.ExtendedSNIHandler;
-import org.xbib.netty.http.server.handler.IdleTimeoutHandler;
+import org.xbib.netty.http.server.handler.ContentSpillHandler;
+import org.xbib.netty.http.server.handler.RequestHeadHandler;
+import org.xbib.netty.http.server.handler.ResponseQueueHandler;
+import org.xbib.netty.http.server.handler.TimeoutHandler;
 import org.xbib.netty.http.server.handler.TrafficLoggingHandler;
 import org.xbib.netty.http.server.api.ServerTransport;
 import java.nio.charset.StandardCharsets;
@@ -76,19 +81,18 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel>
 
     private void configureEncrypted(Channel channel)  {
         channel.pipeline().addLast("sni-handler",
-                new ExtendedSNIHandler(domainNameMapping, serverConfig, httpAddress));
+                new ExtendedSNIHandler(domainNameMapping, serverConfig, httpAddress,
+                        server.getSslSessionResumption()));
         configureCleartext(channel);
     }
 
     private void configureCleartext(Channel channel) {
         ChannelPipeline pipeline = channel.pipeline();
-        pipeline.addLast("http-server-read-timeout",
-                new ReadTimeoutHandler(serverConfig.getReadTimeoutMillis()));
-        pipeline.addLast("http-server-chunked-write",
-                new ChunkedWriteHandler());
         pipeline.addLast("http-server-codec",
                 new HttpServerCodec(serverConfig.getMaxInitialLineLength(),
                         serverConfig.getMaxHeadersSize(), serverConfig.getMaxChunkSize()));
+        pipeline.addLast("http-server-timeout",
+                new TimeoutHandler(server.getConnectionTimeouts(), false));
         if (serverConfig.isCompressionEnabled()) {
             pipeline.addLast("http-server-compressor",
                     new HttpContentCompressor());
@@ -97,8 +101,19 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel>
             pipeline.addLast("http-server-decompressor",
                     new HttpContentDecompressor());
         }
+        // behind the codec, so the chunks of chunked input are encoded
+        pipeline.addLast("http-server-chunked-write",
+                new ChunkedWriteHandler());
+        pipeline.addLast("http-server-request-head",
+                new RequestHeadHandler(server, false));
+        if (serverConfig.getContentSpillThreshold() > 0) {
+            pipeline.addLast("http-server-content-spill",
+                    new ContentSpillHandler(serverConfig.getContentSpillThreshold(),
+                            serverConfig.getContentSpillDirectory(), serverConfig.getMaxCompositeBufferComponents(),
+                            server.getFileExecutor()));
+        }
         HttpObjectAggregator httpObjectAggregator =
-                new HttpObjectAggregator(serverConfig.getMaxContentLength());
+                new HttpObjectAggregator(server.getMaxContentLength());
         httpObjectAggregator.setMaxCumulationBufferComponents(serverConfig.getMaxCompositeBufferComponents());
         pipeline.addLast("http-server-aggregator",
                 httpObjectAggregator);
@@ -114,8 +129,9 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel>
         }
         pipeline.addLast("http-server-handler",
                 new ServerMessages(server));
-        pipeline.addLast("http-idle-timeout-handler",
-                new IdleTimeoutHandler(serverConfig.getIdleTimeoutMillis()));
+        pipeline.addLast("http-server-response-queue",
+                new ResponseQueueHandler(serverConfig.getResponseQueueLimit(),
+                        serverConfig.getResponseQueuePolicy(), server.getQueuedResponseBytes()));
     }
 
     @Sharable
@@ -144,11 +160,9 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel>
                     FullHttpRequest fullHttpRequest = (FullHttpRequest) httpPipelinedRequest.getRequest();
                     if (fullHttpRequest.protocolVersion().majorVersion() == 2) {
                         // PRI * HTTP/2.0
-                        DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
-                                HttpResponseStatus.HTTP_VERSION_NOT_SUPPORTED);
-                        ctx.channel().writeAndFlush(response);
+                        writeVersionNotSupported(ctx);
                     } else {
-                        ServerTransport transport = server.newTransport(fullHttpRequest.protocolVersion());
+                        ServerTransport transport = ctx.channel().attr(ServerTransport.TRANSPORT_ATTRIBUTE_KEY).get();
                         transport.requestReceived(ctx, fullHttpRequest, httpPipelinedRequest.getSequenceId());
                     }
                 }
@@ -159,11 +173,9 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel>
                 FullHttpRequest fullHttpRequest = (FullHttpRequest) msg;
                 if (fullHttpRequest.protocolVersion().majorVersion() == 2) {
                     // PRI * HTTP/2.0
-                    DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
-                            HttpResponseStatus.HTTP_VERSION_NOT_SUPPORTED);
-                    ctx.channel().writeAndFlush(response);
+                    writeVersionNotSupported(ctx);
                 } else {
-                    ServerTransport transport = server.newTransport(fullHttpRequest.protocolVersion());
+                    ServerTransport transport = ctx.channel().attr(ServerTransport.TRANSPORT_ATTRIBUTE_KEY).get();
                     transport.requestReceived(ctx, fullHttpRequest, 0);
                 }
                 fullHttpRequest.release();
@@ -172,6 +184,18 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel>
             }
         }
 
+        /**
+         * Answer the HTTP/2 connection preface on a HTTP/1 listener with a complete response and close
+         * the connection, which can not continue with HTTP/1.
+         */
+        private void writeVersionNotSupported(ChannelHandlerContext ctx) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.HTTP_VERSION_NOT_SUPPORTED, Unpooled.EMPTY_BUFFER);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+            ctx.channel().writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+
         @Override
         public void channelReadComplete(ChannelHandlerContext ctx) {
             ctx.flush();
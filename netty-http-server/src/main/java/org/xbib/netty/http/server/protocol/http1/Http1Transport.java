@@ -11,8 +11,8 @@ import org.xbib.netty.http.server.api.ServerResponse;
 import org.xbib.netty.http.server.AcceptState;
 import org.xbib.netty.http.server.BaseTransport;
 import org.xbib.netty.http.server.HttpServerRequest;
+import org.xbib.netty.http.server.handler.RequestHeadHandler;
 import java.io.IOException;
-import java.net.InetSocketAddress;
 
 public class Http1Transport extends BaseTransport {
 
@@ -29,18 +29,20 @@ public class Http1Transport extends BaseTransport {
         switch (acceptState) {
             case OK: {
                 HttpServerRequest.Builder serverRequestBuilder = HttpServerRequest.builder()
-                        .setLocalAddress((InetSocketAddress) ctx.channel().localAddress())
-                        .setRemoteAddress((InetSocketAddress) ctx.channel().remoteAddress())
+                        .setLocalAddress(inetSocketAddress(ctx.channel().localAddress()))
+                        .setRemoteAddress(inetSocketAddress(ctx.channel().remoteAddress()))
                         .setHttpRequest(fullHttpRequest.retainedDuplicate())
                         .setSequenceId(sequenceId)
-                        .setRequestId(server.getRequestCounter().incrementAndGet());
+                        .setRequestId(server.getRequestCounter().incrementAndGet())
+                        .setAcceptedEndpoint(ctx.channel().attr(RequestHeadHandler.ACCEPTED_ENDPOINT_KEY).getAndSet(null));
                 SslHandler sslHandler = ctx.channel().pipeline().get(SslHandler.class);
                 if (sslHandler != null) {
                     serverRequestBuilder.setSession(sslHandler.engine().getSession());
                 }
-                boolean shouldClose = "close".equalsIgnoreCase(fullHttpRequest.headers().get(HttpHeaderNames.CONNECTION));
+                boolean shouldClose = server.isDraining() ||
+                        "close".equalsIgnoreCase(fullHttpRequest.headers().get(HttpHeaderNames.CONNECTION));
                 serverResponseBuilder.shouldClose(shouldClose);
-                server.handle(serverRequestBuilder, serverResponseBuilder);
+                server.handle(ctx.channel(), serverRequestBuilder, serverResponseBuilder);
                 break;
             }
             case MISSING_HOST_HEADER: {
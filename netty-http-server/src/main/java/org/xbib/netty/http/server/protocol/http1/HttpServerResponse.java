@@ -7,6 +7,7 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpResponse;
@@ -24,12 +25,16 @@ import org.xbib.netty.http.common.cookie.Cookie;
 import org.xbib.netty.http.server.ServerName;
 import org.xbib.netty.http.server.api.ServerResponse;
 import org.xbib.netty.http.server.cookie.ServerCookieEncoder;
+import org.xbib.netty.http.server.handler.PublisherChunkedInput;
+import org.xbib.netty.http.server.handler.StreamingOutputStream;
+import java.io.OutputStream;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
+import java.util.concurrent.Flow;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -102,6 +107,14 @@ public class HttpServerResponse implements ServerResponse {
         return new ByteBufOutputStream(ctx.alloc().buffer());
     }
 
+    @Override
+    public OutputStream newStreamingOutputStream() {
+        StreamingOutputStream outputStream = new StreamingOutputStream(ctx.alloc(), ctx.executor(),
+                StreamingOutputStream.DEFAULT_CHUNK_SIZE);
+        write(outputStream);
+        return outputStream;
+    }
+
     @Override
     public void flush() {
         write(Unpooled.buffer(0));
@@ -147,18 +160,18 @@ public class HttpServerResponse implements ServerResponse {
         if (shouldAddServerName) {
             headers.add(HttpHeaderNames.SERVER, ServerName.getServerName());
         }
-        if (ctx.channel().isWritable()) {
-            FullHttpResponse fullHttpResponse;
-            fullHttpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, httpResponseStatus, byteBuf, headers, trailingHeaders);
-            if (sequenceId != null) {
-                HttpPipelinedResponse httpPipelinedResponse = new HttpPipelinedResponse(fullHttpResponse,
-                        ctx.channel().newPromise(), sequenceId);
-                ctx.channel().writeAndFlush(httpPipelinedResponse);
-            } else {
-                ctx.channel().writeAndFlush(fullHttpResponse);
-            }
+        FullHttpResponse fullHttpResponse;
+        fullHttpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, httpResponseStatus, byteBuf, headers, trailingHeaders);
+        ChannelPromise channelPromise = ctx.channel().newPromise();
+        if (sequenceId != null) {
+            HttpPipelinedResponse httpPipelinedResponse = new HttpPipelinedResponse(fullHttpResponse,
+                    channelPromise, sequenceId);
+            ctx.channel().writeAndFlush(httpPipelinedResponse);
         } else {
-            logger.log(Level.WARNING, "channel not writeable: " + ctx.channel());
+            ctx.channel().writeAndFlush(fullHttpResponse, channelPromise);
+        }
+        if (shouldClose) {
+            channelPromise.addListener(ChannelFutureListener.CLOSE);
         }
     }
 
@@ -179,20 +192,29 @@ public class HttpServerResponse implements ServerResponse {
             headers.add(HttpHeaderNames.DATE, DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
         }
         headers.add(HttpHeaderNames.SERVER, ServerName.getServerName());
-        if (ctx.channel().isWritable()) {
-            HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, httpResponseStatus);
-            httpResponse.headers().add(headers);
-            logger.log(Level.FINEST, httpResponse.headers()::toString);
-            ctx.channel().write(httpResponse);
-            ChannelFuture channelFuture = ctx.channel().writeAndFlush(new HttpChunkedInput(chunkedInput));
-            if (shouldClose) {
-                channelFuture.addListener(ChannelFutureListener.CLOSE);
-            }
-        } else {
-            logger.log(Level.WARNING, "channel not writeable");
+        HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, httpResponseStatus);
+        httpResponse.headers().add(headers);
+        logger.log(Level.FINEST, httpResponse.headers()::toString);
+        ctx.channel().write(httpResponse);
+        ChannelFuture channelFuture = ctx.channel().writeAndFlush(new HttpChunkedInput(chunkedInput));
+        if (shouldClose) {
+            channelFuture.addListener(ChannelFutureListener.CLOSE);
         }
     }
 
+    /**
+     * Streaming response from a publisher.
+     *
+     * @param publisher the publisher
+     */
+    @Override
+    public void write(Flow.Publisher<ByteBuf> publisher) {
+        Objects.requireNonNull(publisher);
+        PublisherChunkedInput publisherChunkedInput = new PublisherChunkedInput(ctx);
+        write(publisherChunkedInput);
+        publisher.subscribe(publisherChunkedInput);
+    }
+
     public static class Builder implements ServerResponse.Builder {
 
         private final ChannelHandlerContext ctx;
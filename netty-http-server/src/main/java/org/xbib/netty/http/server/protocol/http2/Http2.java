@@ -1,8 +1,12 @@
 package org.xbib.netty.http.server.protocol.http2;
 
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.Mapping;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.server.api.ServerProtocolProvider;
 
-public class Http2 implements ServerProtocolProvider<Http2ChannelInitializer, Http2Transport> {
+public class Http2 implements ServerProtocolProvider<Server> {
 
     @Override
     public boolean supportsMajorVersion(int majorVersion) {
@@ -10,12 +14,13 @@ public class Http2 implements ServerProtocolProvider<Http2ChannelInitializer, Ht
     }
 
     @Override
-    public Class<Http2ChannelInitializer> initializerClass() {
-        return Http2ChannelInitializer.class;
+    public Http2ChannelInitializer createInitializer(Server server, HttpAddress httpAddress,
+                                                     Mapping<String, SslContext> domainNameMapping) {
+        return new Http2ChannelInitializer(server, httpAddress, domainNameMapping);
     }
 
     @Override
-    public Class<Http2Transport> transportClass() {
-        return Http2Transport.class;
+    public Http2Transport createTransport(Server server) {
+        return new Http2Transport(server);
     }
 }
@@ -29,7 +29,6 @@ import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.util.AsciiString;
 import io.netty.util.Mapping;
 import org.xbib.netty.http.common.HttpAddress;
@@ -37,7 +36,10 @@ import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 import org.xbib.netty.http.server.api.ServerConfig;
 import org.xbib.netty.http.server.handler.ExtendedSNIHandler;
-import org.xbib.netty.http.server.handler.IdleTimeoutHandler;
+import org.xbib.netty.http.server.handler.ContentSpillHandler;
+import org.xbib.netty.http.server.handler.RequestHeadHandler;
+import org.xbib.netty.http.server.handler.ResponseQueueHandler;
+import org.xbib.netty.http.server.handler.TimeoutHandler;
 import org.xbib.netty.http.server.handler.TrafficLoggingHandler;
 import org.xbib.netty.http.server.api.ServerTransport;
 
@@ -89,7 +91,8 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel>
 
     private void configureEncrypted(Channel channel) {
         channel.pipeline().addLast("sni-handler",
-                new ExtendedSNIHandler(domainNameMapping, serverConfig, httpAddress));
+                new ExtendedSNIHandler(domainNameMapping, serverConfig, httpAddress,
+                        server.getSslSessionResumption()));
         configureCleartext(channel);
     }
 
@@ -97,24 +100,36 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel>
         ChannelHandler channelHandler = new ChannelInitializer<Channel>() {
             @Override
             protected void initChannel(Channel channel) {
-                ServerTransport transport = server.newTransport(httpAddress.getVersion());
+                // the streams share the transport of the connection
+                ServerTransport transport = channel.parent().attr(ServerTransport.TRANSPORT_ATTRIBUTE_KEY).get();
                 channel.attr(ServerTransport.TRANSPORT_ATTRIBUTE_KEY).set(transport);
                 ChannelPipeline pipeline = channel.pipeline();
-                pipeline.addLast("server-read-timeout",
-                        new ReadTimeoutHandler(serverConfig.getReadTimeoutMillis()));
                 pipeline.addLast("server-frame-converter",
                         new Http2StreamFrameToHttpObjectCodec(true));
+                pipeline.addLast("server-timeout",
+                        new TimeoutHandler(server.getConnectionTimeouts(), true));
                 if (serverConfig.isCompressionEnabled()) {
                     pipeline.addLast("server-compressor", new HttpContentCompressor());
                 }
                 if (serverConfig.isDecompressionEnabled()) {
                     pipeline.addLast("server-decompressor", new HttpContentDecompressor());
                 }
+                pipeline.addLast("server-request-head",
+                        new RequestHeadHandler(server, true));
+                if (serverConfig.getContentSpillThreshold() > 0) {
+                    pipeline.addLast("server-content-spill",
+                            new ContentSpillHandler(serverConfig.getContentSpillThreshold(),
+                                    serverConfig.getContentSpillDirectory(),
+                                    serverConfig.getMaxCompositeBufferComponents(),
+                                    server.getFileExecutor()));
+                }
                 pipeline.addLast("server-object-aggregator",
-                        new HttpObjectAggregator(serverConfig.getMaxContentLength()));
+                        new HttpObjectAggregator(server.getMaxContentLength()));
                 pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
                 pipeline.addLast("server-request-handler", new ServerRequestHandler());
-                pipeline.addLast("server-idle-timeout-handler", new IdleTimeoutHandler(serverConfig.getIdleTimeoutMillis()));
+                pipeline.addLast("server-response-queue",
+                        new ResponseQueueHandler(serverConfig.getResponseQueueLimit(),
+                                serverConfig.getResponseQueuePolicy(), server.getQueuedResponseBytes()));
             }
         };
         Http2MultiplexCodecBuilder multiplexCodecBuilder = Http2MultiplexCodecBuilder.forServer(channelHandler)
@@ -134,6 +149,8 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel>
         CleartextHttp2ServerUpgradeHandler cleartextHttp2ServerUpgradeHandler =
                 new CleartextHttp2ServerUpgradeHandler(serverCodec, upgradeHandler, multiplexCodec);
         ChannelPipeline pipeline = ch.pipeline();
+        pipeline.addLast("server-timeout",
+                new TimeoutHandler(server.getConnectionTimeouts(), false));
         pipeline.addLast("server-upgrade", cleartextHttp2ServerUpgradeHandler);
         pipeline.addLast("server-messages", new ServerMessages());
     }
@@ -22,13 +22,16 @@ import org.xbib.netty.http.common.cookie.Cookie;
 import org.xbib.netty.http.server.ServerName;
 import org.xbib.netty.http.server.api.ServerResponse;
 import org.xbib.netty.http.server.cookie.ServerCookieEncoder;
+import org.xbib.netty.http.server.handler.PublisherChunkedInput;
+import org.xbib.netty.http.server.handler.StreamingOutputStream;
+import java.io.OutputStream;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
-import java.util.logging.Level;
+import java.util.concurrent.Flow;
 import java.util.logging.Logger;
 
 public class Http2ServerResponse implements ServerResponse {
@@ -100,6 +103,14 @@ public class Http2ServerResponse implements ServerResponse {
         return new ByteBufOutputStream(ctx.alloc().buffer());
     }
 
+    @Override
+    public OutputStream newStreamingOutputStream() {
+        StreamingOutputStream outputStream = new StreamingOutputStream(ctx.alloc(), ctx.executor(),
+                StreamingOutputStream.DEFAULT_CHUNK_SIZE);
+        write(outputStream);
+        return outputStream;
+    }
+
     @Override
     public void flush() {
         write((ByteBuf) null);
@@ -147,23 +158,19 @@ public class Http2ServerResponse implements ServerResponse {
         if (streamId != null) {
             headers.setInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), streamId);
         }
-        if (ctx.channel().isWritable()) {
-            Http2Headers http2Headers = new DefaultHttp2Headers().status(httpResponseStatus.codeAsText()).add(headers);
-            Http2HeadersFrame http2HeadersFrame = new DefaultHttp2HeadersFrame(http2Headers, byteBuf == null);
-            ctx.channel().write(http2HeadersFrame);
-            if (byteBuf != null) {
-                Http2DataFrame http2DataFrame = new DefaultHttp2DataFrame(byteBuf, true);
-                ctx.channel().write(http2DataFrame);
-            }
-            /*if (trailingHeaders != null) {
-                Http2Headers trailingHttp2Headers = new DefaultHttp2Headers().add(trailingHeaders);
-                Http2HeadersFrame trailingHttp2HeadersFrame = new DefaultHttp2HeadersFrame(trailingHttp2Headers, byteBuf == null);
-                ctx.channel().write(trailingHttp2HeadersFrame);
-            }*/
-            ctx.channel().flush();
-        } else {
-            logger.log(Level.WARNING, "channel is not writeable: " + ctx.channel());
+        Http2Headers http2Headers = new DefaultHttp2Headers().status(httpResponseStatus.codeAsText()).add(headers);
+        Http2HeadersFrame http2HeadersFrame = new DefaultHttp2HeadersFrame(http2Headers, byteBuf == null);
+        ctx.channel().write(http2HeadersFrame);
+        if (byteBuf != null) {
+            Http2DataFrame http2DataFrame = new DefaultHttp2DataFrame(byteBuf, true);
+            ctx.channel().write(http2DataFrame);
         }
+        /*if (trailingHeaders != null) {
+            Http2Headers trailingHttp2Headers = new DefaultHttp2Headers().add(trailingHeaders);
+            Http2HeadersFrame trailingHttp2HeadersFrame = new DefaultHttp2HeadersFrame(trailingHttp2Headers, byteBuf == null);
+            ctx.channel().write(trailingHttp2HeadersFrame);
+        }*/
+        ctx.channel().flush();
     }
 
     /**
@@ -183,19 +190,28 @@ public class Http2ServerResponse implements ServerResponse {
             headers.add(HttpHeaderNames.DATE, DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
         }
         headers.add(HttpHeaderNames.SERVER, ServerName.getServerName());
-        if (ctx.channel().isWritable()) {
-            Http2Headers http2Headers = new DefaultHttp2Headers().status(httpResponseStatus.codeAsText()).add(headers);
-            Http2HeadersFrame http2HeadersFrame = new DefaultHttp2HeadersFrame(http2Headers,false);
-            ctx.channel().write(http2HeadersFrame);
-            ChannelFuture channelFuture = ctx.channel().writeAndFlush(new HttpChunkedInput(chunkedInput));
-            if (shouldClose) {
-                channelFuture.addListener(ChannelFutureListener.CLOSE);
-            }
-        } else {
-            logger.log(Level.WARNING, "channel is not writeable: " + ctx.channel());
+        Http2Headers http2Headers = new DefaultHttp2Headers().status(httpResponseStatus.codeAsText()).add(headers);
+        Http2HeadersFrame http2HeadersFrame = new DefaultHttp2HeadersFrame(http2Headers,false);
+        ctx.channel().write(http2HeadersFrame);
+        ChannelFuture channelFuture = ctx.channel().writeAndFlush(new HttpChunkedInput(chunkedInput));
+        if (shouldClose) {
+            channelFuture.addListener(ChannelFutureListener.CLOSE);
         }
     }
 
+    /**
+     * Streaming response from a publisher.
+     *
+     * @param publisher the publisher
+     */
+    @Override
+    public void write(Flow.Publisher<ByteBuf> publisher) {
+        Objects.requireNonNull(publisher);
+        PublisherChunkedInput publisherChunkedInput = new PublisherChunkedInput(ctx);
+        write(publisherChunkedInput);
+        publisher.subscribe(publisherChunkedInput);
+    }
+
     public static class Builder implements ServerResponse.Builder {
 
         private final ChannelHandlerContext ctx;
@@ -1,10 +1,12 @@
 package org.xbib.netty.http.server.protocol.http2;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.codec.http2.HttpConversionUtil;
 import io.netty.handler.ssl.SslHandler;
 import org.xbib.netty.http.server.AcceptState;
@@ -12,8 +14,8 @@ import org.xbib.netty.http.server.BaseTransport;
 import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.server.api.ServerResponse;
 import org.xbib.netty.http.server.HttpServerRequest;
+import org.xbib.netty.http.server.handler.RequestHeadHandler;
 import java.io.IOException;
-import java.net.InetSocketAddress;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,18 +40,21 @@ public class Http2Transport extends BaseTransport {
             case OK: {
                 HttpServerRequest.Builder serverRequestBuilder = HttpServerRequest.builder()
                         .setHttpRequest(fullHttpRequest.retainedDuplicate())
-                        .setLocalAddress((InetSocketAddress) ctx.channel().localAddress())
-                        .setRemoteAddress((InetSocketAddress) ctx.channel().remoteAddress())
+                        .setLocalAddress(inetSocketAddress(ctx.channel().localAddress()))
+                        .setRemoteAddress(inetSocketAddress(ctx.channel().remoteAddress()))
                         .setStreamId(streamId)
                         .setSequenceId(sequenceId)
-                        .setRequestId(server.getRequestCounter().incrementAndGet());
+                        .setRequestId(server.getRequestCounter().incrementAndGet())
+                        .setAcceptedEndpoint(ctx.channel().attr(RequestHeadHandler.ACCEPTED_ENDPOINT_KEY).getAndSet(null));
                 SslHandler sslHandler = ctx.channel().pipeline().get(SslHandler.class);
                 if (sslHandler != null) {
                     serverRequestBuilder.setSession(sslHandler.engine().getSession());
                 }
                 boolean shouldClose = "close".equalsIgnoreCase(fullHttpRequest.headers().get(HttpHeaderNames.CONNECTION));
                 serverResponseBuilder.shouldClose(shouldClose);
-                server.handle(serverRequestBuilder, serverResponseBuilder);
+                // pause reading on the connection, not on the stream
+                Channel channel = ctx.channel() instanceof Http2StreamChannel ? ctx.channel().parent() : ctx.channel();
+                server.handle(channel, serverRequestBuilder, serverResponseBuilder);
                 break;
             }
             case MISSING_HOST_HEADER: {
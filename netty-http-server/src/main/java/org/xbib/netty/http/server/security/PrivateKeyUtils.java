@@ -34,7 +34,7 @@ public class PrivateKeyUtils {
         return getPrivateKeyFromByteBuffer(readPrivateKey(keyInputStream), keyPassword);
     }
 
-    private static final String[] KEY_TYPES = { "RSA", "DSA", "EC" };
+    private static final String[] KEY_TYPES = { "RSA", "DSA", "EC", "EdDSA" };
 
     private static PrivateKey getPrivateKeyFromByteBuffer(ByteBuf encodedKeyBuf, String keyPassword)
             throws NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeySpecException,
@@ -51,7 +51,7 @@ public class PrivateKeyUtils {
                 // ignore
             }
         }
-        throw new InvalidKeySpecException("Neither RSA, DSA nor EC worked");
+        throw new InvalidKeySpecException("Neither RSA, DSA, EC nor EdDSA worked");
     }
 
     private static PKCS8EncodedKeySpec generateKeySpec(char[] password, byte[] key)
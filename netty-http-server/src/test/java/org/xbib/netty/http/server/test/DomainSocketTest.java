@@ -0,0 +1,71 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.ClientTransport;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@EnabledOnOs(value = OS.LINUX, architectures = "amd64")
+@ExtendWith(NettyHttpTestExtension.class)
+class DomainSocketTest {
+
+    private static final Logger logger = Logger.getLogger(DomainSocketTest.class.getName());
+
+    private static final String EPOLL = "org.xbib.netty.http.epoll.EpollTransportProvider";
+
+    @Test
+    void testDomainSocketHttp1() throws Exception {
+        Path path = Files.createTempDirectory("uds").resolve("http1.sock");
+        assertEquals("Hello World", request(HttpAddress.http1(path), "HTTP/1.1"));
+    }
+
+    @Test
+    void testDomainSocketCleartextHttp2() throws Exception {
+        Path path = Files.createTempDirectory("uds").resolve("http2.sock");
+        assertEquals("Hello World", request(HttpAddress.http2(path), "HTTP/2.0"));
+    }
+
+    private static String request(HttpAddress httpAddress, String version) throws Exception {
+        AtomicReference<String> body = new AtomicReference<>();
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                                .write("Hello World"))
+                .build();
+        Server server = Server.builder(domain)
+                .setTransportProviderName(EPOLL)
+                .build();
+        Client client = Client.builder()
+                .setTransportProviderName(EPOLL)
+                .build();
+        try {
+            server.accept();
+            Request request = Request.get().setVersion(version)
+                    .url(server.getServerConfig().getAddress().base())
+                    .setResponseListener(resp -> body.set(resp.getBodyAsString(StandardCharsets.UTF_8)))
+                    .build();
+            ClientTransport transport = client.newTransport(httpAddress);
+            transport.execute(request);
+            transport.get();
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+            logger.log(Level.INFO, "server and client shut down");
+        }
+        return body.get();
+    }
+}
@@ -0,0 +1,32 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.ssl.SslContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class DomainSslContextTest {
+
+    @Test
+    void testSslContextIsBuiltOnce() throws Exception {
+        HttpAddress httpAddress = HttpAddress.secureHttp1("localhost", 8143);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .setSelfCert()
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush())
+                .build();
+        HttpServerDomain copy = HttpServerDomain.builder(domain)
+                .setServerName("127.0.0.1")
+                .build();
+        SslContext sslContext = domain.getSslContext();
+        assertNotNull(sslContext);
+        assertSame(sslContext, domain.getSslContext());
+        // copies of a domain share the SSL context
+        assertSame(sslContext, copy.getSslContext());
+    }
+}
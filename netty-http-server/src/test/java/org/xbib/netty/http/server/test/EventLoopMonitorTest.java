@@ -0,0 +1,59 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.server.DefaultServerConfig;
+import org.xbib.netty.http.server.handler.EventLoopMonitor;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class EventLoopMonitorTest {
+
+    @Test
+    void testStall() throws Exception {
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        serverConfig.setEventLoopProbeIntervalMillis(10L);
+        serverConfig.setEventLoopStallThresholdMillis(50L);
+        EventLoopGroup eventLoopGroup = new DefaultEventLoopGroup(1);
+        EventLoopMonitor eventLoopMonitor = new EventLoopMonitor(serverConfig, eventLoopGroup);
+        try {
+            Thread.sleep(100L);
+            assertEquals(0L, eventLoopMonitor.getStalls());
+            // a handler which blocks the event loop
+            eventLoopGroup.submit(() -> {
+                eventLoopMonitor.enter("GET /blocking");
+                try {
+                    Thread.sleep(500L);
+                } finally {
+                    eventLoopMonitor.exit();
+                }
+                return null;
+            }).get();
+            Thread.sleep(100L);
+            assertEquals(1L, eventLoopMonitor.getStalls());
+            assertTrue(eventLoopMonitor.getMaxLagNanos() >= TimeUnit.MILLISECONDS.toNanos(50L));
+        } finally {
+            eventLoopMonitor.close();
+            eventLoopGroup.shutdownGracefully(0L, 1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testDisabled() {
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        EventLoopGroup eventLoopGroup = new DefaultEventLoopGroup(1);
+        EventLoopMonitor eventLoopMonitor = new EventLoopMonitor(serverConfig, eventLoopGroup);
+        try {
+            assertFalse(eventLoopMonitor.isEnabled());
+            assertEquals(0, eventLoopMonitor.getPendingTasks());
+        } finally {
+            eventLoopMonitor.close();
+            eventLoopGroup.shutdownGracefully(0L, 1L, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.DefaultServerConfig;
+import org.xbib.netty.http.server.api.ServerKeyCertificateSource;
+import org.xbib.netty.http.server.handler.LazySslContextMapping;
+import org.xbib.netty.http.server.handler.SslSessionResumption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLEngine;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class LazySslContextMappingTest {
+
+    @Test
+    void testLazySslContexts() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        ServerKeyCertificateSource keyCertificateSource = serverName -> {
+            loads.incrementAndGet();
+            if (!serverName.endsWith(".example.com")) {
+                return null;
+            }
+            SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate(serverName);
+            return new ServerKeyCertificateSource.KeyCertificate(selfSignedCertificate.key(),
+                    List.of(selfSignedCertificate.cert()));
+        };
+        SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate("localhost");
+        SslContext defaultSslContext = SslContextBuilder
+                .forServer(selfSignedCertificate.key(), selfSignedCertificate.cert())
+                .build();
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        serverConfig.setSslContextCacheSize(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        LazySslContextMapping mapping = new LazySslContextMapping(keyCertificateSource, input -> defaultSslContext,
+                serverConfig, HttpAddress.secureHttp1("localhost", 8143), executor, new SslSessionResumption(serverConfig));
+        try {
+            // nothing is loaded without a client hello
+            assertSame(defaultSslContext, mapping.map("a.example.com"));
+            assertEquals(0, loads.get());
+            SslContext a = mapping.map("a.example.com", GlobalEventExecutor.INSTANCE.newPromise()).get();
+            assertNotSame(defaultSslContext, a);
+            assertSame(a, mapping.map("a.example.com", GlobalEventExecutor.INSTANCE.newPromise()).get());
+            assertSame(a, mapping.map("a.example.com"));
+            assertEquals(1, loads.get());
+            // unknown names fall back to the configured domains and are not cached
+            assertSame(defaultSslContext, mapping.map("unknown.org", GlobalEventExecutor.INSTANCE.newPromise()).get());
+            assertEquals(2, loads.get());
+            assertEquals(1, mapping.size());
+            // the cache holds one context, so b evicts a
+            SslContext b = mapping.map("b.example.com", GlobalEventExecutor.INSTANCE.newPromise()).get();
+            assertNotSame(a, b);
+            assertEquals(1, mapping.size());
+            assertSame(defaultSslContext, mapping.map("a.example.com"));
+        } finally {
+            mapping.close();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRetainedContextSurvivesEviction() throws Exception {
+        ServerKeyCertificateSource keyCertificateSource = serverName -> {
+            SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate(serverName);
+            return new ServerKeyCertificateSource.KeyCertificate(selfSignedCertificate.key(),
+                    List.of(selfSignedCertificate.cert()));
+        };
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        LazySslContextMapping mapping = new LazySslContextMapping(keyCertificateSource, input -> null,
+                serverConfig, HttpAddress.secureHttp1("localhost", 8143), executor, new SslSessionResumption(serverConfig));
+        try {
+            SslContext a = mapping.map("a.example.com", GlobalEventExecutor.INSTANCE.newPromise()).get();
+            // the handshake holds a reference until it has created the SSL engine
+            mapping.invalidate("a.example.com");
+            if (a instanceof ReferenceCounted) {
+                assertEquals(1, ((ReferenceCounted) a).refCnt());
+            }
+            SSLEngine engine = a.newEngine(ByteBufAllocator.DEFAULT);
+            ReferenceCountUtil.release(engine);
+            ReferenceCountUtil.release(a);
+        } finally {
+            mapping.close();
+            executor.shutdown();
+        }
+    }
+}
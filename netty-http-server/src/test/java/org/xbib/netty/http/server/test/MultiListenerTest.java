@@ -0,0 +1,116 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.ClientTransport;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class MultiListenerTest {
+
+    private static final Logger logger = Logger.getLogger(MultiListenerTest.class.getName());
+
+    @Test
+    void testHttp1AndCleartextHttp2Listeners() throws Exception {
+        HttpAddress http1Address = HttpAddress.http1("localhost", 8008);
+        HttpAddress http2Address = HttpAddress.http2("localhost", 8009);
+        HttpServerDomain http1Domain = HttpServerDomain.builder(http1Address)
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                                .write("http1"))
+                .build();
+        HttpServerDomain http2Domain = HttpServerDomain.builder(http2Address)
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                                .write("http2"))
+                .build();
+        Server server = Server.builder(http1Domain)
+                .addListener(http2Domain)
+                .build();
+        Client client = Client.builder()
+                .build();
+        AtomicReference<String> http1Body = new AtomicReference<>();
+        AtomicReference<String> http2Body = new AtomicReference<>();
+        try {
+            server.accept();
+            Request request = Request.get().setVersion("HTTP/1.1")
+                    .url(http1Address.base())
+                    .setResponseListener(resp -> http1Body.set(resp.getBodyAsString(StandardCharsets.UTF_8)))
+                    .build();
+            client.execute(request).get();
+            request = Request.get().setVersion("HTTP/2.0")
+                    .url(http2Address.base())
+                    .setResponseListener(resp -> http2Body.set(resp.getBodyAsString(StandardCharsets.UTF_8)))
+                    .build();
+            ClientTransport transport = client.newTransport(http2Address);
+            transport.execute(request);
+            transport.get();
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+            logger.log(Level.INFO, "server and client shut down");
+        }
+        assertEquals(2, server.getListeners().size());
+        assertEquals("http1", http1Body.get());
+        assertEquals("http2", http2Body.get());
+    }
+
+    @Test
+    void testHostHeaderDoesNotSelectListener() throws Exception {
+        HttpAddress publicAddress = HttpAddress.http1("localhost", 8008);
+        HttpAddress adminAddress = HttpAddress.http1("localhost", 8009);
+        HttpServerDomain publicDomain = HttpServerDomain.builder(publicAddress)
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                                .write("public"))
+                .build();
+        HttpServerDomain adminDomain = HttpServerDomain.builder(adminAddress)
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                                .write("admin"))
+                .build();
+        Server server = Server.builder(publicDomain)
+                .addListener(adminDomain)
+                .build();
+        try {
+            server.accept();
+            // the port of the host header names the admin listener, but the connection is on the public listener
+            assertTrue(get(8008, "localhost:8009").endsWith("public"));
+            // without a port in the host header, the admin listener still serves its own domains
+            assertTrue(get(8009, "localhost").endsWith("admin"));
+        } finally {
+            server.shutdownGracefully();
+        }
+    }
+
+    private static String get(int port, String host) throws Exception {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port));
+            socket.setSoTimeout(5000);
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write(("GET / HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            socket.getInputStream().transferTo(byteArrayOutputStream);
+            String response = byteArrayOutputStream.toString(StandardCharsets.US_ASCII);
+            logger.log(Level.INFO, response);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.server.handler.PublisherChunkedInput;
+import java.util.concurrent.Flow;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class PublisherChunkedInputTest {
+
+    @Test
+    void testSynchronousPublisher() {
+        int max = 100000;
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        try {
+            PublisherChunkedInput publisherChunkedInput = new PublisherChunkedInput(channel.pipeline().firstContext());
+            ChannelFuture channelFuture = channel.writeAndFlush(publisherChunkedInput);
+            // emits in request(), so each chunk read by the handler emits the next one
+            publisherChunkedInput.onSubscribe(new Flow.Subscription() {
+                private int count;
+
+                @Override
+                public void request(long n) {
+                    for (long i = 0; i < n && count < max; i++) {
+                        count++;
+                        publisherChunkedInput.onNext(Unpooled.wrappedBuffer(new byte[] { 'x' }));
+                        if (count == max) {
+                            publisherChunkedInput.onComplete();
+                        }
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            channel.runPendingTasks();
+            assertTrue(channelFuture.isSuccess());
+            int length = 0;
+            ByteBuf byteBuf;
+            while ((byteBuf = channel.readOutbound()) != null) {
+                length += byteBuf.readableBytes();
+                byteBuf.release();
+            }
+            assertEquals(max, length);
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void testPublisherWithoutDemand() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        try {
+            PublisherChunkedInput publisherChunkedInput = new PublisherChunkedInput(channel.pipeline().firstContext());
+            // the input is not written to the channel, so nothing is read from the queue
+            boolean[] cancelled = new boolean[1];
+            publisherChunkedInput.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled[0] = true;
+                }
+            });
+            for (int i = 0; i <= PublisherChunkedInput.MAX_QUEUED_BUFFERS; i++) {
+                publisherChunkedInput.onNext(Unpooled.wrappedBuffer(new byte[] { 'x' }));
+            }
+            assertTrue(cancelled[0]);
+            assertThrows(Exception.class, publisherChunkedInput::isEndOfInput);
+            publisherChunkedInput.close();
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+}
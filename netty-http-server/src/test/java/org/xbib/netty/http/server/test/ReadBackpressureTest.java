@@ -0,0 +1,87 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.server.DefaultServerConfig;
+import org.xbib.netty.http.server.handler.ReadBackpressure;
+import org.xbib.netty.http.server.handler.ReadPause;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class ReadBackpressureTest {
+
+    @Test
+    void testWaterMarks() {
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        serverConfig.setBlockingQueueHighWaterMark(2);
+        serverConfig.setBlockingQueueLowWaterMark(1);
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(10);
+        ReadBackpressure readBackpressure = new ReadBackpressure(serverConfig, queue);
+        EmbeddedChannel channel1 = new EmbeddedChannel();
+        EmbeddedChannel channel2 = new EmbeddedChannel();
+        try {
+            readBackpressure.requestQueued(channel1);
+            assertTrue(channel1.config().isAutoRead());
+            queue.add(() -> {});
+            queue.add(() -> {});
+            // above the high water mark
+            readBackpressure.requestQueued(channel1);
+            readBackpressure.requestQueued(channel2);
+            assertTrue(readBackpressure.isPaused());
+            assertFalse(channel1.config().isAutoRead());
+            assertFalse(channel2.config().isAutoRead());
+            assertEquals(2L, readBackpressure.getPauses());
+            // not yet at the low water mark
+            readBackpressure.requestDone();
+            assertFalse(channel1.config().isAutoRead());
+            queue.poll();
+            readBackpressure.requestDone();
+            assertFalse(readBackpressure.isPaused());
+            assertTrue(channel1.config().isAutoRead());
+            assertTrue(channel2.config().isAutoRead());
+        } finally {
+            channel1.finishAndReleaseAll();
+            channel2.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void testInvalidWaterMarks() {
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        serverConfig.setBlockingQueueHighWaterMark(2);
+        serverConfig.setBlockingQueueLowWaterMark(2);
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReadBackpressure(serverConfig, new ArrayBlockingQueue<>(10)));
+    }
+
+    @Test
+    void testResponseQueuePauseIsKept() {
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        serverConfig.setBlockingQueueHighWaterMark(1);
+        serverConfig.setBlockingQueueLowWaterMark(0);
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(10);
+        ReadBackpressure readBackpressure = new ReadBackpressure(serverConfig, queue);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        try {
+            ReadPause.pause(channel, ReadPause.RESPONSE_QUEUE);
+            queue.add(() -> {});
+            readBackpressure.requestQueued(channel);
+            assertTrue(ReadPause.isPaused(channel, ReadPause.BLOCKING_QUEUE));
+            queue.poll();
+            readBackpressure.requestDone();
+            // the response queue still pauses the connection
+            assertFalse(ReadPause.isPaused(channel, ReadPause.BLOCKING_QUEUE));
+            assertFalse(channel.config().isAutoRead());
+            ReadPause.resume(channel, ReadPause.RESPONSE_QUEUE);
+            assertTrue(channel.config().isAutoRead());
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+}
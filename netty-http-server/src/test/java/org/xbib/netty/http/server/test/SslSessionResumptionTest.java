@@ -0,0 +1,106 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.DefaultServerConfig;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.handler.SslSessionResumption;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class SslSessionResumptionTest {
+
+    @Test
+    void testSessionCacheAndTicketKeys() throws Exception {
+        byte[] keys = new byte[2 * 48];
+        new SecureRandom().nextBytes(keys);
+        Path ticketKeyFile = Files.createTempFile("ticket", ".key");
+        Files.write(ticketKeyFile, keys);
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        serverConfig.setSessionCacheSize(100);
+        serverConfig.setSessionTimeoutSeconds(600);
+        serverConfig.setSessionTicketKeyFile(ticketKeyFile);
+        SslSessionResumption sslSessionResumption = new SslSessionResumption(serverConfig);
+        SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate("localhost");
+        try {
+            for (SslProvider sslProvider : OpenSsl.isAvailable() ?
+                    new SslProvider[] { SslProvider.JDK, SslProvider.OPENSSL } : new SslProvider[] { SslProvider.JDK }) {
+                SslContext sslContext = SslContextBuilder
+                        .forServer(selfSignedCertificate.key(), selfSignedCertificate.cert())
+                        .sslProvider(sslProvider)
+                        .build();
+                sslSessionResumption.configure(sslContext);
+                assertEquals(100, sslContext.sessionContext().getSessionCacheSize());
+                assertEquals(600, sslContext.sessionContext().getSessionTimeout());
+            }
+        } finally {
+            sslSessionResumption.close();
+            Files.delete(ticketKeyFile);
+        }
+    }
+
+    @Test
+    void testInvalidTicketKeyFile() throws Exception {
+        Path ticketKeyFile = Files.createTempFile("ticket", ".key");
+        Files.write(ticketKeyFile, new byte[47]);
+        DefaultServerConfig serverConfig = new DefaultServerConfig();
+        serverConfig.setSessionTicketKeyFile(ticketKeyFile);
+        try {
+            assertThrows(UncheckedIOException.class, () -> new SslSessionResumption(serverConfig));
+        } finally {
+            Files.delete(ticketKeyFile);
+        }
+    }
+
+    @Test
+    void testResumedHandshakes() throws Exception {
+        for (SslProvider sslProvider : OpenSsl.isAvailable() ?
+                new SslProvider[] { SslProvider.JDK, SslProvider.OPENSSL } : new SslProvider[] { SslProvider.JDK }) {
+            HttpAddress httpAddress = HttpAddress.secureHttp1("localhost", 8143);
+            Server.Builder builder = Server.builder(HttpServerDomain.builder(httpAddress)
+                            .setSelfCert()
+                            .singleEndpoint("/", (request, response) ->
+                                    response.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush())
+                            .build())
+                    .setTransportLayerSecurityProtocols("TLSv1.2");
+            Server server = (sslProvider == SslProvider.OPENSSL ? builder.setOpenSSLSslProvider() :
+                    builder.setJdkSslProvider()).build();
+            Client client = Client.builder()
+                    .setTransportLayerSecurityProtocols("TLSv1.2")
+                    .trustInsecure()
+                    .build();
+            try {
+                server.accept();
+                // each request opens a new connection, the second and third resume the session of the first
+                for (int i = 0; i < 3; i++) {
+                    Request request = Request.get().setVersion(HttpVersion.HTTP_1_1)
+                            .url(server.getServerConfig().getAddress().base())
+                            .build();
+                    client.execute(request).get();
+                }
+            } finally {
+                client.shutdownGracefully();
+                server.shutdownGracefully();
+            }
+            SslSessionResumption sslSessionResumption = server.getSslSessionResumption();
+            assertEquals(1L, sslSessionResumption.getFullHandshakes(), sslProvider.name());
+            assertEquals(2L, sslSessionResumption.getResumedHandshakes(), sslProvider.name());
+        }
+    }
+}
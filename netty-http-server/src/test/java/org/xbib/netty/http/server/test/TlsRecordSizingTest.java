@@ -0,0 +1,91 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.common.TlsRecordSizing;
+import org.xbib.netty.http.common.TlsRecordSizingHandler;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class TlsRecordSizingTest {
+
+    @Test
+    void testRecordSizing() throws Exception {
+        SslContext sslContext = SslContextBuilder.forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .build();
+        TlsRecordSizing tlsRecordSizing = new TlsRecordSizing()
+                .setEnabled(true)
+                .setSmallRecordSize(1000)
+                .setSmallRecordBytes(4096)
+                .setIdleTimeoutMillis(100L);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        SslHandler sslHandler = sslContext.newHandler(channel.alloc());
+        TlsRecordSizingHandler tlsRecordSizingHandler = new TlsRecordSizingHandler(sslHandler, tlsRecordSizing);
+        channel.pipeline().addLast(sslHandler, tlsRecordSizingHandler);
+        try {
+            // small records after the handshake
+            assertEquals(1000, tlsRecordSizingHandler.getRecordSize());
+            channel.write(Unpooled.buffer(1000).writerIndex(1000));
+            assertEquals(1000, tlsRecordSizingHandler.getRecordSize());
+            // large records after the small record phase, from the next flush on
+            channel.write(Unpooled.buffer(4000).writerIndex(4000));
+            assertEquals(1000, tlsRecordSizingHandler.getRecordSize());
+            channel.flush();
+            assertEquals(TlsRecordSizing.MAX_RECORD_SIZE, tlsRecordSizingHandler.getRecordSize());
+            // small records again after an idle period
+            Thread.sleep(200L);
+            channel.write(Unpooled.buffer(10).writerIndex(10));
+            assertEquals(1000, tlsRecordSizingHandler.getRecordSize());
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void testSplitWriteCompletesPromise() throws Exception {
+        SslContext sslContext = SslContextBuilder.forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .build();
+        TlsRecordSizing tlsRecordSizing = new TlsRecordSizing()
+                .setEnabled(true)
+                .setSmallRecordSize(1000)
+                .setSmallRecordBytes(4096);
+        // the SSL handler is not in the pipeline, so the plain text is written out
+        SslHandler sslHandler = sslContext.newHandler(UnpooledByteBufAllocator.DEFAULT);
+        EmbeddedChannel channel = new EmbeddedChannel(new TlsRecordSizingHandler(sslHandler, tlsRecordSizing));
+        try {
+            ChannelFuture future = channel.write(Unpooled.buffer(5000).writerIndex(5000));
+            ChannelFuture later = channel.write(Unpooled.buffer(10).writerIndex(10));
+            // the rest of the split write waits for the switch to large records at the flush
+            assertFalse(future.isDone());
+            channel.flush();
+            assertTrue(future.isSuccess());
+            assertTrue(later.isSuccess());
+            ByteBuf small = channel.readOutbound();
+            assertEquals(4096, small.readableBytes());
+            small.release();
+            ByteBuf rest = channel.readOutbound();
+            assertEquals(904, rest.readableBytes());
+            rest.release();
+            ByteBuf next = channel.readOutbound();
+            assertEquals(10, next.readableBytes());
+            next.release();
+            assertNull(channel.readOutbound());
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+}
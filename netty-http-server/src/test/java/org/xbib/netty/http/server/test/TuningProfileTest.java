@@ -0,0 +1,42 @@
+package org.xbib.netty.http.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.common.TuningProfile;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class TuningProfileTest {
+
+    @Test
+    void testSafeProfile() {
+        assertSame(ByteBufAllocator.DEFAULT, TuningProfile.SAFE.newByteBufAllocator());
+        assertNull(TuningProfile.SAFE.newRecvByteBufAllocator());
+    }
+
+    @Test
+    void testThroughputProfile() {
+        ByteBufAllocator byteBufAllocator = TuningProfile.THROUGHPUT.newByteBufAllocator();
+        assertInstanceOf(PooledByteBufAllocator.class, byteBufAllocator);
+        PooledByteBufAllocatorMetric metric = ((PooledByteBufAllocator) byteBufAllocator).metric();
+        assertTrue(metric.numHeapArenas() >= 1);
+        assertTrue(metric.numDirectArenas() >= 1);
+        // 4 MB chunks, and no more than half of the direct memory in arenas of 3 chunks each
+        assertEquals(4 * 1024 * 1024, metric.chunkSize());
+        assertTrue(metric.numDirectArenas() == 1 ||
+                metric.numDirectArenas() * 3L * metric.chunkSize() <= PlatformDependent.maxDirectMemory() / 2);
+        // each server and client has an allocator of its own
+        assertNotSame(byteBufAllocator, TuningProfile.THROUGHPUT.newByteBufAllocator());
+        assertNotNull(TuningProfile.THROUGHPUT.newRecvByteBufAllocator());
+    }
+}
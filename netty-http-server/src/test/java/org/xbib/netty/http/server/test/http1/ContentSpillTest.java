@@ -0,0 +1,156 @@
+package org.xbib.netty.http.server.test.http1;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.handler.ContentSpillHandler;
+import org.xbib.netty.http.server.handler.SpilledFullHttpRequest;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class ContentSpillTest {
+
+    private static final Logger logger = Logger.getLogger(ContentSpillTest.class.getName());
+
+    @Test
+    void testSpillContentHttp1() throws Exception {
+        final AtomicReference<Path> spilled = new AtomicReference<>();
+        final AtomicReference<byte[]> received = new AtomicReference<>();
+        final AtomicBoolean inMemory = new AtomicBoolean(false);
+        final AtomicInteger status = new AtomicInteger();
+        Path directory = Files.createTempDirectory("spill");
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/spill", "/**", (req, resp) -> {
+                    if (req.getContentPath() != null) {
+                        spilled.set(req.getContentPath());
+                        received.set(ByteBufUtil.getBytes(req.getContent()));
+                    } else {
+                        inMemory.set(true);
+                    }
+                    resp.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush();
+                })
+                .build();
+        Server server = Server.builder(domain)
+                .setContentSpillThreshold(1024)
+                .setContentSpillDirectory(directory)
+                .build();
+        Client client = Client.builder()
+                .build();
+        byte[] content = new byte[64 * 1024];
+        new Random().nextBytes(content);
+        try {
+            server.accept();
+            Request request = Request.post().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base().resolve("/spill/small"))
+                    .content(new byte[512], "application/octet-stream")
+                    .build();
+            client.execute(request).get();
+            request = Request.post().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base().resolve("/spill/large"))
+                    .content(content, "application/octet-stream")
+                    .setResponseListener(resp -> status.set(resp.getStatus().getCode()))
+                    .build();
+            client.execute(request).get();
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+            logger.log(Level.INFO, "server and client shut down");
+        }
+        assertTrue(inMemory.get());
+        assertEquals(HttpResponseStatus.OK.code(), status.get());
+        assertEquals(directory, spilled.get().getParent());
+        assertArrayEquals(content, received.get());
+        assertFalse(Files.exists(spilled.get()));
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testSpillFileOutlivesCopiesAndDuplicates() throws Exception {
+        Path path = Files.createTempFile("spill", ".tmp");
+        Files.write(path, new byte[1024]);
+        SpilledFullHttpRequest request = SpilledFullHttpRequest.of(HttpVersion.HTTP_1_1, HttpMethod.POST, "/",
+                new DefaultHttpHeaders(), new DefaultHttpHeaders(), path, 1024L);
+        FullHttpRequest duplicate = request.retainedDuplicate();
+        FullHttpRequest copy = request.copy();
+        assertTrue(copy instanceof SpilledFullHttpRequest);
+        request.release();
+        assertTrue(Files.exists(path));
+        // the duplicate shares the reference count of the request
+        assertTrue(duplicate.release());
+        assertTrue(Files.exists(path));
+        // the copy is the last owner of the file
+        assertTrue(copy.release());
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void testSpilledRequestKeepsOrder() throws Exception {
+        ExecutorService fileExecutor = Executors.newSingleThreadExecutor();
+        Path directory = Files.createTempDirectory("spill");
+        EmbeddedChannel channel = new EmbeddedChannel(new ContentSpillHandler(16, directory, 1024, fileExecutor));
+        try {
+            HttpRequest large = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/large");
+            HttpUtil.setContentLength(large, 64L);
+            channel.writeInbound(large);
+            channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[32])));
+            channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[32])));
+            // arrives while the content of the large request may still be written
+            FullHttpRequest small = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/small");
+            channel.writeInbound(small);
+            Object first;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while ((first = channel.readInbound()) == null && System.nanoTime() < deadline) {
+                Thread.sleep(10L);
+                channel.runPendingTasks();
+            }
+            assertTrue(first instanceof SpilledFullHttpRequest);
+            SpilledFullHttpRequest spilled = (SpilledFullHttpRequest) first;
+            assertEquals(64, spilled.content().readableBytes());
+            assertSame(small, channel.readInbound());
+            assertTrue(channel.config().isAutoRead());
+            Path path = spilled.getPath();
+            spilled.release();
+            small.release();
+            assertFalse(Files.exists(path));
+        } finally {
+            channel.finishAndReleaseAll();
+            fileExecutor.shutdown();
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.xbib.netty.http.server.test.http1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class DrainTest {
+
+    private static final Logger logger = Logger.getLogger(DrainTest.class.getName());
+
+    @Test
+    void testDrainHttp1() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/", (request, response) -> {
+                    entered.countDown();
+                    try {
+                        Thread.sleep(500L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush();
+                })
+                .build();
+        Server server = Server.builder(domain)
+                .setBlockingThreadCount(2)
+                .build();
+        String response;
+        server.accept();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 8008));
+            socket.setSoTimeout(5000);
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write("GET / HTTP/1.1\r\nHost: localhost:8008\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+            assertTrue(entered.await(5L, TimeUnit.SECONDS));
+            // shut down while the request is in flight
+            Thread shutdown = new Thread(() -> {
+                try {
+                    server.shutdownGracefully(5L, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, e.getMessage(), e);
+                }
+            });
+            shutdown.start();
+            InputStream inputStream = socket.getInputStream();
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            // the server closes the connection after the response
+            inputStream.transferTo(byteArrayOutputStream);
+            response = byteArrayOutputStream.toString(StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
+            shutdown.join();
+        }
+        logger.log(Level.INFO, response);
+        assertTrue(response.startsWith("http/1.1 200"));
+        assertTrue(response.contains("connection: close"));
+    }
+
+    @Test
+    void testDrainWaitsForStreamedResponseHttp1() throws Exception {
+        int lines = 10;
+        CountDownLatch entered = new CountDownLatch(1);
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/", (request, response) -> {
+                    SubmissionPublisher<ByteBuf> publisher = new SubmissionPublisher<>();
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build().write(publisher);
+                    // the handler returns while the content is still produced
+                    new Thread(() -> {
+                        try {
+                            for (int i = 0; i < lines; i++) {
+                                Thread.sleep(50L);
+                                publisher.submit(Unpooled.copiedBuffer("Hello World\n", StandardCharsets.UTF_8));
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            publisher.close();
+                        }
+                    }).start();
+                    entered.countDown();
+                })
+                .build();
+        Server server = Server.builder(domain)
+                .setBlockingThreadCount(2)
+                .build();
+        String response;
+        server.accept();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 8008));
+            socket.setSoTimeout(5000);
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write("GET / HTTP/1.1\r\nHost: localhost:8008\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+            assertTrue(entered.await(5L, TimeUnit.SECONDS));
+            // shut down after the request is handled, but before the response is written
+            Thread shutdown = new Thread(() -> {
+                try {
+                    server.shutdownGracefully(5L, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, e.getMessage(), e);
+                }
+            });
+            shutdown.start();
+            InputStream inputStream = socket.getInputStream();
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            inputStream.transferTo(byteArrayOutputStream);
+            response = byteArrayOutputStream.toString(StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
+            shutdown.join();
+        }
+        logger.log(Level.INFO, response);
+        assertTrue(response.startsWith("http/1.1 200"));
+        assertEquals(lines, response.split("hello world", -1).length - 1);
+        // the last chunk
+        assertTrue(response.endsWith("0\r\n\r\n"));
+    }
+}
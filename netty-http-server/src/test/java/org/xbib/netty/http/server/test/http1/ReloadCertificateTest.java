@@ -0,0 +1,55 @@
+package org.xbib.netty.http.server.test.http1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.security.cert.Certificate;
+import java.util.List;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class ReloadCertificateTest {
+
+    @Test
+    void testReloadCertificate() throws Exception {
+        HttpAddress httpAddress = HttpAddress.secureHttp1("localhost", 8143);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .setSelfCert()
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush())
+                .build();
+        Server server = Server.builder(domain)
+                .build();
+        try {
+            server.accept();
+            Certificate before = peerCertificate(httpAddress);
+            assertEquals(domain.getCertificateChain().iterator().next(), before);
+            SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate("localhost");
+            domain.reload(selfSignedCertificate.key(), List.of(selfSignedCertificate.cert()));
+            Certificate after = peerCertificate(httpAddress);
+            assertNotEquals(before, after);
+            assertEquals(selfSignedCertificate.cert(), after);
+        } finally {
+            server.shutdownGracefully();
+        }
+    }
+
+    private static Certificate peerCertificate(HttpAddress httpAddress) throws Exception {
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, InsecureTrustManagerFactory.INSTANCE.getTrustManagers(), null);
+        try (SSLSocket socket = (SSLSocket) sslContext.getSocketFactory()
+                .createSocket(httpAddress.getInetSocketAddress().getHostString(), httpAddress.getInetSocketAddress().getPort())) {
+            socket.startHandshake();
+            return socket.getSession().getPeerCertificates()[0];
+        }
+    }
+}
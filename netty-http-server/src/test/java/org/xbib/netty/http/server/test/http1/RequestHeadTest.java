@@ -0,0 +1,175 @@
+package org.xbib.netty.http.server.test.http1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.endpoint.HttpEndpoint;
+import org.xbib.netty.http.server.endpoint.HttpEndpointResolver;
+import org.xbib.netty.http.server.handler.RequestHeadHandler;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class RequestHeadTest {
+
+    private static final Logger logger = Logger.getLogger(RequestHeadTest.class.getName());
+
+    @Test
+    void testRejectBeforeContentHttp1() throws Exception {
+        final AtomicBoolean dispatched = new AtomicBoolean(false);
+        final AtomicInteger notFound = new AtomicInteger();
+        final AtomicInteger tooLarge = new AtomicInteger();
+        final AtomicInteger unauthorized = new AtomicInteger();
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpEndpointResolver httpEndpointResolver = HttpEndpointResolver.builder()
+                .addEndpoint(HttpEndpoint.builder()
+                        .setPrefix("/upload")
+                        .setPath("/**")
+                        .setMethods(List.of("POST"))
+                        .setMaxContentLength(1024)
+                        .addHeaderFilter(httpRequest ->
+                                httpRequest.headers().contains(HttpHeaderNames.AUTHORIZATION) ?
+                                        null : HttpResponseStatus.UNAUTHORIZED)
+                        .build())
+                .setDispatcher((req, resp) -> {
+                    dispatched.set(true);
+                    resp.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush();
+                })
+                .build();
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .addEndpointResolver(httpEndpointResolver)
+                .build();
+        Server server = Server.builder(domain)
+                .build();
+        Client client = Client.builder()
+                .build();
+        byte[] content = new byte[4096];
+        try {
+            server.accept();
+            Request request = Request.post().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base().resolve("/wrong/path"))
+                    .content(content, "application/octet-stream")
+                    .setResponseListener(resp -> notFound.set(resp.getStatus().getCode()))
+                    .build();
+            client.execute(request).get();
+            request = Request.post().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base().resolve("/upload/file"))
+                    .content(content, "application/octet-stream")
+                    .setResponseListener(resp -> unauthorized.set(resp.getStatus().getCode()))
+                    .build();
+            client.execute(request).get();
+            request = Request.post().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base().resolve("/upload/file"))
+                    .addBasicAuthorization("user", "pass")
+                    .content(content, "application/octet-stream")
+                    .setResponseListener(resp -> tooLarge.set(resp.getStatus().getCode()))
+                    .build();
+            client.execute(request).get();
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+            logger.log(Level.INFO, "server and client shut down");
+        }
+        assertEquals(HttpResponseStatus.NOT_FOUND.code(), notFound.get());
+        assertEquals(HttpResponseStatus.UNAUTHORIZED.code(), unauthorized.get());
+        assertEquals(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code(), tooLarge.get());
+        assertFalse(dispatched.get());
+    }
+
+    @Test
+    void testRejectionWaitsForEarlierResponses() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush())
+                .build();
+        Server server = Server.builder(domain)
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestHeadHandler(server, false));
+        try {
+            FullHttpRequest first = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            first.headers().set(HttpHeaderNames.HOST, "localhost");
+            channel.writeInbound(first);
+            assertSame(first, channel.readInbound());
+            first.release();
+            DefaultHttpRequest second = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/wrong/path");
+            second.headers().set(HttpHeaderNames.HOST, "localhost");
+            second.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 10);
+            channel.writeInbound(second);
+            assertNull(channel.readInbound());
+            // the rejection of the second request waits for the response to the first request
+            assertNull(channel.readOutbound());
+            channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+            FullHttpResponse response = channel.readOutbound();
+            assertEquals(HttpResponseStatus.OK, response.status());
+            response.release();
+            response = channel.readOutbound();
+            assertEquals(HttpResponseStatus.NOT_FOUND, response.status());
+            response.release();
+            assertFalse(channel.isOpen());
+        } finally {
+            channel.finishAndReleaseAll();
+            server.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void testRejectionAfterResponseEndedByClose() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush())
+                .build();
+        Server server = Server.builder(domain)
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(new RequestHeadHandler(server, false));
+        try {
+            FullHttpRequest first = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            first.headers().set(HttpHeaderNames.HOST, "localhost");
+            channel.writeInbound(first);
+            assertSame(first, channel.readInbound());
+            first.release();
+            // a response head without content, which is ended by closing the connection
+            HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            channel.writeOutbound(head);
+            assertSame(head, channel.readOutbound());
+            DefaultHttpRequest second = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+            second.headers().set(HttpHeaderNames.HOST, "localhost");
+            second.headers().set(HttpHeaderNames.CONTENT_LENGTH, Long.MAX_VALUE);
+            channel.writeInbound(second);
+            assertNull(channel.readInbound());
+            // the rejection can not be encoded after an unfinished response
+            assertNull(channel.readOutbound());
+            channel.close();
+            assertFalse(channel.isOpen());
+            assertNull(channel.readOutbound());
+        } finally {
+            channel.finishAndReleaseAll();
+            server.shutdownGracefully();
+        }
+    }
+}
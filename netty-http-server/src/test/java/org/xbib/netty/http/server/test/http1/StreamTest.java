@@ -13,6 +13,7 @@ import org.xbib.netty.http.server.HttpServerDomain;
 import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.server.test.NettyHttpTestExtension;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -62,4 +63,42 @@ class StreamTest {
         }
         assertEquals(max, count.get());
     }
+
+    @Test
+    void testServerStreamingOutputStreamHttp1() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        int lines = 10000;
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/", (request, response) -> {
+                    try (OutputStream outputStream = response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build().newStreamingOutputStream()) {
+                        for (int i = 0; i < lines; i++) {
+                            outputStream.write("Hello World\n".getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                })
+                .build();
+        Server server = Server.builder(domain)
+                .setBlockingThreadCount(2)
+                .build();
+        Client client = Client.builder()
+                .build();
+        final AtomicInteger length = new AtomicInteger(0);
+        try {
+            server.accept();
+            Request request = Request.get().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base().resolve("/"))
+                    .setResponseListener(resp -> {
+                        if (resp.getStatus().getCode() == HttpResponseStatus.OK.code()) {
+                            length.set(resp.getBodyAsString(StandardCharsets.UTF_8).length());
+                        }
+                    })
+                    .build();
+            client.execute(request).get();
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+        }
+        assertEquals(lines * "Hello World\n".length(), length.get());
+    }
 }
@@ -0,0 +1,45 @@
+package org.xbib.netty.http.server.test.http1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.handler.ConnectionTimeouts;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class TimeoutTest {
+
+    @Test
+    void testKeepAliveTimeoutHttp1() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).build().flush())
+                .build();
+        Server server = Server.builder(domain)
+                .setKeepAliveTimeoutMillis(500)
+                .build();
+        int read;
+        try {
+            server.accept();
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", 8008));
+                socket.setSoTimeout(5000);
+                InputStream inputStream = socket.getInputStream();
+                // the server closes the silent connection
+                read = inputStream.read();
+            }
+        } finally {
+            server.shutdownGracefully();
+        }
+        assertEquals(-1, read);
+        assertEquals(1L, server.getConnectionTimeouts().getClosedConnections(ConnectionTimeouts.Kind.KEEP_ALIVE));
+    }
+}